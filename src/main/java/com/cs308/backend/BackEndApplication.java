@@ -2,8 +2,10 @@ package com.cs308.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.cs308.backend")
+@EnableScheduling
 public class BackEndApplication {
 
 	public static void main(String[] args) {
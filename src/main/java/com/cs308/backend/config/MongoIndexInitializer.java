@@ -0,0 +1,74 @@
+package com.cs308.backend.config;
+
+import com.cs308.backend.models.*;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared with @Indexed / @CompoundIndex on the models.
+ *
+ * Spring Boot no longer creates them automatically, so this runs once after
+ * startup on a background thread: an unreachable or slow cluster only gets
+ * logged and never delays or fails the boot. Creating an index that already
+ * exists is a no-op on the server.
+ */
+@Component
+public class MongoIndexInitializer {
+    public static final List<Class<?>> INDEXED_DOCUMENTS = List.of(
+            Product.class, Category.class, Order.class, OrderHistory.class, Review.class,
+            Cart.class, Payment.class, RefundRequest.class, User.class, SecureToken.class, BackgroundJob.class,
+            DiscountCampaign.class, PricePoint.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final boolean enabled;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate,
+                                 MongoMappingContext mappingContext,
+                                 @Value("${mongo.indexes.ensure-on-startup:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::ensureIndexes, "mongo-index-init");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Ensures every declared index exists; returns how many definitions were applied. */
+    public int ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        int applied = 0;
+        for (Class<?> type : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            for (var definition : resolver.resolveIndexFor(type)) {
+                try {
+                    indexOps.ensureIndex(definition);
+                    applied++;
+                } catch (RuntimeException e) {
+                    // e.g. existing duplicates for a unique index; the other indexes still get created
+                    System.err.println("Could not create index " + definition.getIndexKeys().toJson()
+                            + " on " + type.getSimpleName() + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("Mongo indexes ensured: " + applied + " definitions");
+        return applied;
+    }
+}
@@ -18,6 +18,7 @@ public class WebConfig {
                         .allowedOrigins("http://localhost:5173")
                         .allowedMethods("*")
                         .allowedHeaders("*")
+                        .exposedHeaders("X-Next-Cursor", "ETag")
                         .allowCredentials(true);
             }
         };
@@ -33,14 +33,18 @@ public class AuthController {
     private final SecureTokenService tokenService;
 
 
+    private final JobService jobService;
+
+
 
 
     @Autowired
-    public AuthController(UserService userService, UserRepository userRepository, UserChecks userChecks, SecureTokenService tokenService) {
+    public AuthController(UserService userService, UserRepository userRepository, UserChecks userChecks, SecureTokenService tokenService, JobService jobService) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.userChecks = userChecks;
         this.tokenService = tokenService;
+        this.jobService = jobService;
     }
 
 
@@ -170,9 +174,10 @@ public class AuthController {
         return ResponseEntity.ok(result);
     }
 
+    // runs as a background job; poll /api/jobs/{jobId} for progress
     @PatchMapping("/assign-taxids")
-    public ResponseEntity<String> assignTaxIdsToUsers() {
-        return userService.assignTaxIdsToUsers();
+    public ResponseEntity<BackgroundJob> assignTaxIdsToUsers() {
+        return JobController.accepted(jobService.submit(TaxIdAssignmentTask.TYPE));
     }
 
 
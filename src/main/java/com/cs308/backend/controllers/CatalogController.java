@@ -0,0 +1,58 @@
+package com.cs308.backend.controllers;
+
+import com.cs308.backend.services.CoPurchaseIndex;
+import com.cs308.backend.services.ProductCatalogCache;
+import com.cs308.backend.services.TrendingProducts;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    private final ProductCatalogCache catalogCache;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final TrendingProducts trendingProducts;
+
+    public CatalogController(ProductCatalogCache catalogCache, CoPurchaseIndex coPurchaseIndex, TrendingProducts trendingProducts) {
+        this.catalogCache = catalogCache;
+        this.coPurchaseIndex = coPurchaseIndex;
+        this.trendingProducts = trendingProducts;
+    }
+
+    /**
+     * Hit / miss / refresh counters of the in-memory product snapshot
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getCatalogStats() {
+        return ResponseEntity.ok(catalogCache.getStats());
+    }
+
+    /**
+     * Size of the "frequently bought together" matrix
+     */
+    @GetMapping("/co-purchases/stats")
+    public ResponseEntity<Map<String, Object>> getCoPurchaseStats() {
+        return ResponseEntity.ok(coPurchaseIndex.getStats());
+    }
+
+    /**
+     * Whether the trending counters were restored from their checkpoint, and how many products they track
+     */
+    @GetMapping("/trending/stats")
+    public ResponseEntity<Map<String, Object>> getTrendingStats() {
+        return ResponseEntity.ok(trendingProducts.getStats());
+    }
+
+    /**
+     * Drop the snapshot so the next catalog read reloads it from Mongo
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refreshCatalog() {
+        catalogCache.invalidate();
+        return ResponseEntity.ok("Catalog snapshot invalidated.");
+    }
+}
@@ -1,14 +1,23 @@
 package com.cs308.backend.controllers;
 
+import com.cs308.backend.models.BulkPriceUpdate;
+import com.cs308.backend.models.DiscountCampaign;
+import com.cs308.backend.models.PricePoint;
 import com.cs308.backend.models.Product;
+import com.cs308.backend.services.BulkPricingService;
+import com.cs308.backend.services.CampaignService;
+import com.cs308.backend.services.PriceHistoryService;
 import com.cs308.backend.services.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/discounts")
@@ -16,10 +25,17 @@ import java.util.Map;
 public class DiscountController {
 
     private final ProductService productService;
+    private final BulkPricingService bulkPricingService;
+    private final PriceHistoryService priceHistoryService;
+    private final CampaignService campaignService;
 
     @Autowired
-    public DiscountController(ProductService productService) {
+    public DiscountController(ProductService productService, BulkPricingService bulkPricingService,
+                              PriceHistoryService priceHistoryService, CampaignService campaignService) {
         this.productService = productService;
+        this.bulkPricingService = bulkPricingService;
+        this.priceHistoryService = priceHistoryService;
+        this.campaignService = campaignService;
     }
 
     @PostMapping("/set")
@@ -40,9 +56,83 @@ public class DiscountController {
         return ResponseEntity.ok(product);
     }
 
+    // Discount or reprice every product matching the filter, e.g. 20% off a category where stock > 50
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulkReprice(@RequestBody BulkPriceUpdate request) {
+        try {
+            return ResponseEntity.ok(bulkPricingService.reprice(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
 
+    // Restores the price the product had before its discounts
     @DeleteMapping("/remove")
-    public ResponseEntity<String> removeDiscount(@RequestParam String productId) {
-        return ResponseEntity.badRequest().body("Removing discount is not supported anymore since original prices are not stored.");
+    public ResponseEntity<?> removeDiscount(@RequestParam String productId) {
+        try {
+            return ResponseEntity.ok(productService.removeDiscount(productId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Every recorded price of the product, oldest first
+    @GetMapping("/history")
+    public ResponseEntity<List<PricePoint>> getPriceHistory(@RequestParam String productId) {
+        return ResponseEntity.ok(priceHistoryService.getHistory(productId));
+    }
+
+    // The price in effect at the given time, e.g. at=2025-05-01T12:00:00
+    @GetMapping("/history/at")
+    public ResponseEntity<PricePoint> getPriceAt(
+            @RequestParam String productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return priceHistoryService.priceAt(productId, at)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Schedules a discount on a set of products, e.g.
+    // {"name": "Spring sale", "productIds": [...], "discountPercentage": 20,
+    //  "startsAt": "2025-05-01T09:00:00", "endsAt": "2025-05-08T09:00:00"}
+    @PostMapping("/campaigns")
+    public ResponseEntity<?> createCampaign(@RequestBody DiscountCampaign request) {
+        try {
+            return ResponseEntity.ok(campaignService.create(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/campaigns")
+    public ResponseEntity<List<DiscountCampaign>> getCampaigns(
+            @RequestParam(required = false) DiscountCampaign.Status status,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(campaignService.getCampaigns(status, limit));
+    }
+
+    @GetMapping("/campaigns/{campaignId}")
+    public ResponseEntity<DiscountCampaign> getCampaign(@PathVariable String campaignId) {
+        return campaignService.getCampaign(campaignId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Cancels a scheduled campaign or ends a running one now; its products get their prices back
+    @DeleteMapping("/campaigns/{campaignId}")
+    public ResponseEntity<?> cancelCampaign(@PathVariable String campaignId) {
+        try {
+            return ResponseEntity.ok(campaignService.cancel(campaignId));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/campaigns/scheduler")
+    public ResponseEntity<Map<String, Object>> getCampaignScheduler() {
+        return ResponseEntity.ok(campaignService.getSchedulerStats());
     }
-}
\ No newline at end of file
+}
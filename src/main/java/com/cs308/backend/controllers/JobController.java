@@ -0,0 +1,41 @@
+package com.cs308.backend.controllers;
+
+import com.cs308.backend.models.BackgroundJob;
+import com.cs308.backend.services.JobService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+public class JobController {
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    // status and progress (processed / total) of one job
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BackgroundJob> getJob(@PathVariable String jobId) {
+        return jobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BackgroundJob>> recentJobs(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(jobService.recentJobs(limit));
+    }
+
+    /** 202 response for endpoints that hand their work to a background job. */
+    static ResponseEntity<BackgroundJob> accepted(BackgroundJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getJobId()))
+                .body(job);
+    }
+}
@@ -5,8 +5,10 @@ import com.cs308.backend.models.*;
 import com.cs308.backend.models.CartItem;
 import com.cs308.backend.repositories.*;
 import com.cs308.backend.services.*;
+import com.cs308.backend.util.ProductFields;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,6 +18,7 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import java.time.Duration;
 
 
@@ -23,62 +26,107 @@ import java.time.Duration;
 @RestController
 @RequestMapping("/api/main")
 public class MainController {
+    /** Response header carrying the cursor of the next page on paginated listings */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ProductService productService;
     private final CategoryService categoryService;
     private final UserService userService;
     private final ReviewService reviewService;
     private final CartService cartService;
+    private final ProductImportService productImportService;
+    private final CatalogVersions catalogVersions;
+    private final JobService jobService;
     private final CartRepository cartRepository;
 
 
-    public MainController(ProductService productService, CategoryService categoryService, ReviewService reviewService, UserService userService, CartService cartService, CartRepository cartRepository) {
+    public MainController(ProductService productService, CategoryService categoryService, ReviewService reviewService, UserService userService, CartService cartService, CartRepository cartRepository, ProductImportService productImportService, CatalogVersions catalogVersions, JobService jobService) {
         this.productService = productService;
         this.categoryService = categoryService;
         this.reviewService = reviewService;
         this.userService = userService;
         this.cartService = cartService;
         this.cartRepository = cartRepository;
+        this.productImportService = productImportService;
+        this.catalogVersions = catalogVersions;
+        this.jobService = jobService;
     }
 
 
     @GetMapping("/products/{productId}")
-    public ResponseEntity<Product> getProductById(@PathVariable String productId) {
+    public ResponseEntity<Product> getProductById(
+            @PathVariable String productId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // take the tag before reading, so a concurrent write can only make it older than the body
+        String etag = catalogVersions.productETag(productId);
+        if (CatalogVersions.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         return productService.getProductById(productId)
-                .map(ResponseEntity::ok)
+                .map(product -> versioned(ResponseEntity.ok(), etag).body(product))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
 
     @GetMapping("/getCategories")
-    public ResponseEntity<Map<String, Object>> getCustomerMainPage() {
+    public ResponseEntity<Map<String, Object>> getCustomerMainPage(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersions.categoriesETag();
+        if (CatalogVersions.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         List<Category> categories = categoryService.getAllCategories();
 
 
         Map<String, Object> response = new HashMap<>();
         response.put("categories", categories);
-        return ResponseEntity.ok(response);
+        return versioned(ResponseEntity.ok(), etag).body(response);
     }
 
 
     @GetMapping("/category/{categoryId}/getProductsByCategory")
-    public ResponseEntity<Map<String, Object>> getProductsByCategory(@PathVariable String categoryId) {
+    public ResponseEntity<Map<String, Object>> getProductsByCategory(
+            @PathVariable String categoryId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersions.categoryETag(categoryId);
+        if (CatalogVersions.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        if (isPaged(limit, cursor)) {
+            return categoryPage(categoryId, false, cursor, limit, fields, etag);
+        }
         List<Product> products = productService.getProductsByCategory(categoryId);
 
 
         Map<String, Object> response = new HashMap<>();
-        response.put("products", products);
-        return ResponseEntity.ok(response);
+        response.put("products", withFields(products, fields));
+        return versioned(ResponseEntity.ok(), etag).body(response);
     }
 
     @GetMapping("/category/{categoryId}/showProductsByCategory")
-    public ResponseEntity<Map<String, Object>> showProductsByCategory(@PathVariable String categoryId) {
+    public ResponseEntity<Map<String, Object>> showProductsByCategory(
+            @PathVariable String categoryId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersions.categoryETag(categoryId);
+        if (CatalogVersions.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        if (isPaged(limit, cursor)) {
+            return categoryPage(categoryId, true, cursor, limit, fields, etag);
+        }
         List<Product> products = productService.getProductsByCategory(categoryId).stream()
                 .filter(p -> p.getPrice() > 0)
                 .toList();
 
         Map<String, Object> response = new HashMap<>();
-        response.put("products", products);
-        return ResponseEntity.ok(response);
+        response.put("products", withFields(products, fields));
+        return versioned(ResponseEntity.ok(), etag).body(response);
     }
 
 
@@ -105,6 +153,16 @@ public class MainController {
     }
 
 
+    // Bulk version of addProduct: text/csv with a header row, or application/x-ndjson
+    @PostMapping(value = "/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportReport> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        ProductImportService.Format format = ProductImportService.Format.fromContentType(contentType);
+        return ResponseEntity.ok(productImportService.importProducts(body, format));
+    }
+
+
     @PostMapping("/addCategory")
     public ResponseEntity<String> addCategory(@RequestBody Category category)
     {
@@ -261,47 +319,142 @@ public class MainController {
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping("/cart/remove")
+    public ResponseEntity<Void> removeFromCart(@RequestParam String cartId, @RequestParam String productId) {
+        return cartService.removeFromCart(cartId, productId);
+    }
+
+    // Sets the quantity of an item in the cart; 0 removes it
+    @PutMapping("/cart/quantity")
+    public ResponseEntity<AddToCartResponse> setCartQuantity(
+            @RequestParam String cartId,
+            @RequestParam String productId,
+            @RequestParam int quantity) {
+        return cartService.setQuantity(cartId, productId, quantity);
+    }
+
 
 
 
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String query) {
+    public ResponseEntity<List<?>> searchProducts(
+            @RequestParam String query,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        if (isPaged(limit, cursor)) {
+            ProductPage<Product> page = productService.searchProductsPage(query, cursor, pageSize(limit));
+            return okWithCursor(page.getNextCursor()).body(withFields(page.getProducts(), fields));
+        }
         List<Product> products = productService.searchProducts(query);
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(withFields(products, fields));
+    }
+
+
+    // e.g. /products/filter?categoryId=a&categoryId=b&minPrice=50&maxPrice=250&minRating=4&inStock=true
+    @GetMapping("/products/filter")
+    public ResponseEntity<Map<String, Object>> filterProducts(
+            @RequestParam(required = false) Set<String> categoryId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.badRequest().body(Map.of("error", "minPrice cannot be greater than maxPrice"));
+        }
+        ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter(categoryId, minPrice, maxPrice, minRating, inStock);
+        Map<String, Object> result = productService.filterProducts(filter, cursor, pageSize(limit));
+        @SuppressWarnings("unchecked")
+        List<Product> products = (List<Product>) result.get("products");
+        result.put("products", withFields(products, fields));
+        return okWithCursor((String) result.get("nextCursor")).body(result);
+    }
+
+
+    @GetMapping("/search/suggest")
+    public ResponseEntity<Map<String, Object>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
     }
 
 
     @GetMapping("/sortProductsByPriceAsc")
-    public ResponseEntity<List<Product>> sortProductsByPriceAsc() {
+    public ResponseEntity<List<?>> sortProductsByPriceAsc(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        if (isPaged(limit, cursor)) {
+            return sortedPage(ProductSortIndex.SortKey.PRICE, false, cursor, limit, fields);
+        }
         List<Product> sortedProducts = productService.sortProductsByPriceAsc();
-        return ResponseEntity.ok(sortedProducts);
+        return ResponseEntity.ok(withFields(sortedProducts, fields));
     }
 
     @GetMapping("/sortProductsByPriceDesc")
-    public ResponseEntity<List<Product>> sortProductsByPriceDesc() {
+    public ResponseEntity<List<?>> sortProductsByPriceDesc(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        if (isPaged(limit, cursor)) {
+            return sortedPage(ProductSortIndex.SortKey.PRICE, true, cursor, limit, fields);
+        }
         List<Product> sortedProducts = productService.sortProductsByPriceDesc();
-        return ResponseEntity.ok(sortedProducts);
+        return ResponseEntity.ok(withFields(sortedProducts, fields));
     }
 
     @GetMapping("/sortProductsByRatingAsc")
-    public ResponseEntity<List<Product>> sortProductsByRatingAsc() {
+    public ResponseEntity<List<?>> sortProductsByRatingAsc(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        if (isPaged(limit, cursor)) {
+            return sortedPage(ProductSortIndex.SortKey.RATING, false, cursor, limit, fields);
+        }
         List<Product> sortedProducts = productService.sortProductsByRatingAsc();
-        return ResponseEntity.ok(sortedProducts);
+        return ResponseEntity.ok(withFields(sortedProducts, fields));
     }
 
     @GetMapping("/sortProductsByRatingDesc")
-    public ResponseEntity<List<Product>> sortProductsByRatingDesc() {
+    public ResponseEntity<List<?>> sortProductsByRatingDesc(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        if (isPaged(limit, cursor)) {
+            return sortedPage(ProductSortIndex.SortKey.RATING, true, cursor, limit, fields);
+        }
         List<Product> sortedProducts = productService.sortProductsByRatingDesc();
-        return ResponseEntity.ok(sortedProducts);
+        return ResponseEntity.ok(withFields(sortedProducts, fields));
     }
 
 
+    // The whole moderation queue, or with limit/cursor a keyset page of it (oldest first)
     @GetMapping("/reviews/pending-comments")
-    public ResponseEntity<List<Map<String, String>>> getPendingCommentsWithUserIds() {
+    public ResponseEntity<List<Map<String, String>>> getPendingCommentsWithUserIds(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        if (isPaged(limit, cursor)) {
+            ReviewPage page = reviewService.getPendingCommentsPage(cursor, pageSize(limit));
+            return okWithCursor(page.getNextCursor())
+                    .body(page.getReviews().stream().map(ReviewService::pendingComment).toList());
+        }
         List<Map<String, String>> pending = reviewService.getPendingCommentsWithUserIds();
         return ResponseEntity.ok(pending);
     }
 
+    // Approve and decline up to 1000 queued reviews in one call
+    @PostMapping("/reviews/moderate")
+    public ResponseEntity<Map<String, Object>> moderateReviews(@RequestBody ReviewModeration request) {
+        try {
+            return ResponseEntity.ok(reviewService.moderate(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
 
 
     /** Add a product to this user’s wishlist */
@@ -330,14 +483,62 @@ public class MainController {
     }
 
 
+    /**
+     * Verified reviews with a comment. With limit, cursor or sort (newest, helpful)
+     * this is a keyset-paged feed; the next page's cursor is in X-Next-Cursor.
+     */
     @GetMapping("/product/{productId}/verified")
     public ResponseEntity<List<Review>> getVerifiedReviewsForProduct(
-            @PathVariable String productId
+            @PathVariable String productId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor
     ) {
+        if (isPaged(limit, cursor) || sort != null) {
+            ReviewPage page = reviewService.getReviewFeed(productId, ReviewService.FeedOrder.parse(sort), cursor, pageSize(limit));
+            return okWithCursor(page.getNextCursor()).body(page.getReviews());
+        }
         List<Review> reviews = reviewService.getVerifiedReviewsForProduct(productId);
         return ResponseEntity.ok(reviews);
     }
 
+    @PostMapping("/review/{reviewId}/helpful")
+    public ResponseEntity<Review> markReviewHelpful(@PathVariable String reviewId) {
+        return ResponseEntity.ok(reviewService.markHelpful(reviewId));
+    }
+
+    /** Products with the most cart adds and purchases in the last 1h, 24h (default) or 7d */
+    @GetMapping("/products/trending")
+    public ResponseEntity<List<?>> getTrendingProducts(
+            @RequestParam(required = false) String window,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(withFields(productService.getTrendingProducts(TrendingProducts.Window.parse(window), limit), fields));
+    }
+
+    /** Products most often bought together with this one */
+    @GetMapping("/products/{productId}/related")
+    public ResponseEntity<List<?>> getRelatedProducts(
+            @PathVariable String productId,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(withFields(productService.getRelatedProducts(productId, limit), fields));
+    }
+
+    /** Average, count and 1-5 star histogram of a product's ratings */
+    @GetMapping("/products/{productId}/ratings")
+    public ResponseEntity<Map<String, Object>> getRatingSummary(
+            @PathVariable String productId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersions.productETag(productId);
+        if (CatalogVersions.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return reviewService.getRatingSummary(productId)
+                .map(summary -> versioned(ResponseEntity.ok(), etag).body(summary))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/review/{reviewId}")
     public ResponseEntity<Void> deleteReview(@PathVariable String reviewId) {
         reviewService.deleteReview(reviewId);
@@ -351,20 +552,39 @@ public class MainController {
     }
 
 
+    // Products (with their reviews and wishlist entries) are deleted in batches by a
+    // background job, the category itself last; poll /api/jobs/{jobId} for progress
     @DeleteMapping("/deleteCategory/{categoryId}")
-    public ResponseEntity<Void> deleteCategoryWithCleanup(@PathVariable String categoryId) {
-        // 1. Fetch all products in this category
-        List<Product> products = productService.getProductsByCategory(categoryId);
-
-        // 2. Delete each product using the cleanup method
-        for (Product p : products) {
-            productService.deleteProductWithCleanup(p.getProductId());
+    public ResponseEntity<BackgroundJob> deleteCategoryWithCleanup(@PathVariable String categoryId) {
+        if (!categoryService.exists(categoryId)) {
+            return ResponseEntity.notFound().build();
         }
+        return JobController.accepted(jobService.submit(CategoryDeleteTask.TYPE,
+                Map.of(CategoryDeleteTask.CATEGORY_ID, categoryId)));
+    }
+
+    // Recomputes every Category.productCount (and drops the old productIds arrays)
+    @PostMapping("/recountCategoryProducts")
+    public ResponseEntity<BackgroundJob> recountCategoryProducts() {
+        return JobController.accepted(jobService.submit(CategoryRecountTask.TYPE));
+    }
 
-        // 3. Now delete the category itself
-        categoryService.deleteCategory(categoryId);
+    // Recomputes every product's rating aggregates (sum, count, star histogram) from its reviews
+    @PostMapping("/rebuildRatingAggregates")
+    public ResponseEntity<BackgroundJob> rebuildRatingAggregates() {
+        return JobController.accepted(jobService.submit(RatingAggregatesTask.TYPE));
+    }
 
-        return ResponseEntity.noContent().build();
+    // Recomputes the "frequently bought together" matrix from all paid orders
+    @PostMapping("/rebuildCoPurchases")
+    public ResponseEntity<BackgroundJob> rebuildCoPurchases() {
+        return JobController.accepted(jobService.submit(CoPurchaseRebuildTask.TYPE));
+    }
+
+    // Fills the review feed fields (hasComment, createdAt, helpfulCount) on older reviews
+    @PostMapping("/backfillReviewFeedFields")
+    public ResponseEntity<BackgroundJob> backfillReviewFeedFields() {
+        return JobController.accepted(jobService.submit(ReviewFeedFieldsTask.TYPE));
     }
 
     /**
@@ -386,17 +606,26 @@ public class MainController {
     }
 
 
+    // Awaiting-pricing queue, oldest first. Always paged: follow X-Next-Cursor for the rest.
     @GetMapping("/products/new")
-    public ResponseEntity<List<Product>> getNewProducts() {
-        List<Product> newProducts = productService.getNewProducts();
-        return ResponseEntity.ok(newProducts);
+    public ResponseEntity<List<?>> getNewProducts(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        List<String> selected = ProductFields.parse(fields);
+        if (selected != null && ProductFields.coveredBySummary(selected)) {
+            ProductPage<ProductSummary> page = productService.getNewProductSummariesPage(cursor, pageSize(limit));
+            return okWithCursor(page.getNextCursor()).body(ProductFields.selectSummaries(page.getProducts(), selected));
+        }
+        ProductPage<Product> page = productService.getNewProductsPage(cursor, pageSize(limit));
+        return okWithCursor(page.getNextCursor()).body(withFields(page.getProducts(), selected));
     }
 
 
+    // runs as a background job; poll /api/jobs/{jobId} for progress
     @GetMapping("/patchMissingProductionCosts")
-    public ResponseEntity<String> patchMissingProductionCosts() {
-        int patchedCount = productService.patchMissingProductionCosts();
-        return ResponseEntity.ok("✅ Patched " + patchedCount + " products with missing production costs.");
+    public ResponseEntity<BackgroundJob> patchMissingProductionCosts() {
+        return JobController.accepted(jobService.submit(ProductionCostPatchTask.TYPE));
     }
 
     @PutMapping("/setPrice/{productId}/{price}")
@@ -406,5 +635,63 @@ public class MainController {
     }
 
 
+    // --- keyset pagination helpers ---
+    // Listings stay unbounded unless the client passes limit and/or cursor.
+
+    private static boolean isPaged(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
+    private static int pageSize(Integer limit) {
+        return limit != null ? limit : ProductService.DEFAULT_PAGE_SIZE;
+    }
+
+    private static ResponseEntity.BodyBuilder okWithCursor(String nextCursor) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (nextCursor != null) {
+            ok.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return ok;
+    }
+
+    private ResponseEntity<List<?>> sortedPage(ProductSortIndex.SortKey key, boolean descending, String cursor, Integer limit, String fields) {
+        ProductPage<Product> page = productService.getSortedProductsPage(key, descending, cursor, pageSize(limit));
+        return okWithCursor(page.getNextCursor()).body(withFields(page.getProducts(), fields));
+    }
+
+    // Mongo-backed page: a selection covered by ProductSummary is read with a field projection
+    private ResponseEntity<Map<String, Object>> categoryPage(String categoryId, boolean pricedOnly, String cursor, Integer limit, String fields, String etag) {
+        List<String> selected = ProductFields.parse(fields);
+        if (selected != null && ProductFields.coveredBySummary(selected)) {
+            ProductPage<ProductSummary> page = productService.getProductSummariesByCategoryPage(categoryId, pricedOnly, cursor, pageSize(limit));
+            return versioned(okWithCursor(page.getNextCursor()), etag)
+                    .body(Map.of("products", ProductFields.selectSummaries(page.getProducts(), selected)));
+        }
+        ProductPage<Product> page = productService.getProductsByCategoryPage(categoryId, pricedOnly, cursor, pageSize(limit));
+        return versioned(okWithCursor(page.getNextCursor()), etag)
+                .body(Map.of("products", withFields(page.getProducts(), selected)));
+    }
+
+    // --- conditional GET (ETags from CatalogVersions) ---
+
+    private static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder builder, String etag) {
+        return builder.eTag(etag).cacheControl(CatalogVersions.CACHE_CONTROL);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CatalogVersions.CACHE_CONTROL)
+                .build();
+    }
 
+    // --- field selection (?fields=summary or ?fields=productId,price,...) ---
+
+    private static List<?> withFields(List<Product> products, String fields) {
+        return withFields(products, ProductFields.parse(fields));
+    }
+
+    private static List<?> withFields(List<Product> products, List<String> selected) {
+        return selected == null ? products : ProductFields.select(products, selected);
+    }
 }
@@ -22,18 +22,24 @@ public class OrderController {
     private final OrderService orderService;
     private final PaymentService paymentService;
     private final OrderHistoryService orderHistoryService;
+    private final JobService jobService;
+    private final RecommendationService recommendationService;
 
 
     public OrderController(UserService userService,
                            CartService cartService,
                            OrderService orderService,
                            PaymentService paymentService,
-                           OrderHistoryService orderHistoryService) {
+                           OrderHistoryService orderHistoryService,
+                           JobService jobService,
+                           RecommendationService recommendationService) {
         this.userService           = userService;
         this.cartService           = cartService;
         this.orderService          = orderService;
         this.paymentService        = paymentService;
         this.orderHistoryService   = orderHistoryService;
+        this.jobService            = jobService;
+        this.recommendationService = recommendationService;
     }
 
 
@@ -200,6 +206,22 @@ public class OrderController {
         return orderHistoryService.getProductsFromPreviousOrders(userId);
     }
 
+    // precomputed by the recommendation job; 404 until it has run for this user
+    @GetMapping("/recommendations/{userId}")
+    public ResponseEntity<List<Product>> recommendations(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return recommendationService.getRecommendations(userId, limit)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // recomputes every user's recommendations now instead of waiting for the scheduled run
+    @PostMapping("/recommendations/recompute")
+    public ResponseEntity<BackgroundJob> recomputeRecommendations() {
+        return JobController.accepted(recommendationService.refresh());
+    }
+
     @DeleteMapping("/cancel/{orderId}")
     public ResponseEntity<String> cancelOrder(
             @PathVariable String orderId,
@@ -265,21 +287,10 @@ public class OrderController {
     }
 
 
+    // runs as a background job; poll /api/jobs/{jobId} for progress
     @PutMapping("/sanitizeOldPayments")
-    public ResponseEntity<String> sanitizeOldOrders() {
-        List<Order> orders = orderService.getAllOrders(); // You might need to add this method to service/repo
-
-        for (Order order : orders) {
-            String rawCard = order.getCardNumber();
-            if (rawCard != null && rawCard.length() >= 4) {
-                String masked = "*".repeat(rawCard.length() - 4) + rawCard.substring(rawCard.length() - 4);
-                order.setCardNumber(masked);
-            }
-            order.setCvv("***");
-            orderService.saveOrder(order); // you may already have a save method in your service
-        }
-
-        return ResponseEntity.ok("✅ All old card numbers and CVVs sanitized.");
+    public ResponseEntity<BackgroundJob> sanitizeOldOrders() {
+        return JobController.accepted(jobService.submit(OrderCardSanitizeTask.TYPE));
     }
 
 
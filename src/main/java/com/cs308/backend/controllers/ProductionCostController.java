@@ -1,7 +1,9 @@
 package com.cs308.backend.controllers;
 
 import com.cs308.backend.models.Product;
+import com.cs308.backend.models.ProductPage;
 import com.cs308.backend.services.ProductService;
+import com.cs308.backend.services.ProductSortIndex;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -56,7 +58,12 @@ public class ProductionCostController {
      * Get products sorted by profit margin (price - production cost)
      */
     @GetMapping("/sort-by-profit-margin")
-    public ResponseEntity<List<Product>> getProductsSortedByProfitMargin() {
+    public ResponseEntity<List<Product>> getProductsSortedByProfitMargin(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        if (limit != null || cursor != null) {
+            return sortedPage(ProductSortIndex.SortKey.PROFIT_MARGIN, cursor, limit);
+        }
         List<Product> sortedProducts = productService.sortProductsByProfitMargin();
         return ResponseEntity.ok(sortedProducts);
     }
@@ -65,8 +72,23 @@ public class ProductionCostController {
      * Get products sorted by profit margin percentage
      */
     @GetMapping("/sort-by-profit-margin-percentage")
-    public ResponseEntity<List<Product>> getProductsSortedByProfitMarginPercentage() {
+    public ResponseEntity<List<Product>> getProductsSortedByProfitMarginPercentage(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        if (limit != null || cursor != null) {
+            return sortedPage(ProductSortIndex.SortKey.PROFIT_MARGIN_PERCENTAGE, cursor, limit);
+        }
         List<Product> sortedProducts = productService.sortProductsByProfitMarginPercentage();
         return ResponseEntity.ok(sortedProducts);
     }
+
+    private ResponseEntity<List<Product>> sortedPage(ProductSortIndex.SortKey key, String cursor, Integer limit) {
+        ProductPage<Product> page = productService.getSortedProductsPage(
+                key, true, cursor, limit != null ? limit : ProductService.DEFAULT_PAGE_SIZE);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            ok.header(MainController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return ok.body(page.getProducts());
+    }
 }
\ No newline at end of file
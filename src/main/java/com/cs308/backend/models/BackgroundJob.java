@@ -0,0 +1,48 @@
+package com.cs308.backend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A maintenance job run in the background by JobService. The checkpoint is
+ * the _id of the last document processed, so a job picked up again after a
+ * restart continues from there.
+ */
+@Data
+@NoArgsConstructor
+@CompoundIndexes({
+        // one active job per type and params
+        @CompoundIndex(name = "type_status", def = "{'type': 1, 'status': 1}"),
+        // claiming queued jobs and jobs whose runner stopped sending heartbeats
+        @CompoundIndex(name = "status_heartbeat", def = "{'status': 1, 'heartbeatAt': 1}")
+})
+@Document(collection = "jobs")
+public class BackgroundJob {
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Id
+    private String jobId;
+    private String type;
+    private Status status;
+    private Map<String, String> params;   // e.g. the categoryId of a category deletion
+
+    private String checkpoint;
+    private long total;      // documents that needed work when the job started
+    private long processed;
+    private long modified;   // documents updated or deleted
+
+    private String owner;    // node currently running the job
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,26 @@
+package com.cs308.backend.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body of a bulk repricing: a product filter plus exactly one of
+ * discountPercentage (1-99, applied to the current price) or price
+ * (an explicit new price). Filters left null are not applied, but at
+ * least one has to be set.
+ */
+@Data
+@NoArgsConstructor
+public class BulkPriceUpdate {
+    private List<String> categoryIds;
+    private List<String> productIds;
+    /** Only products with stockCount strictly greater than this. */
+    private Integer stockGreaterThan;
+    private Double minPrice;
+    private Double maxPrice;
+
+    private Double discountPercentage;
+    private Double price;
+}
@@ -1,6 +1,7 @@
 package com.cs308.backend.models;
 
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.annotation.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -16,6 +17,7 @@ import com.cs308.backend.models.CartItem;
 public class Cart {
     @Id
     private String cartId;
+    @Indexed
     private String userId;
 
     /** Now each entry has both productId and quantity */
@@ -1,11 +1,11 @@
 package com.cs308.backend.models;
 
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.annotation.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.util.List;
 
 import com.cs308.backend.models.*;
 @Data
@@ -15,6 +15,9 @@ import com.cs308.backend.models.*;
 public class Category {
     @Id
     private String categoryId;
-    private List<String> productIds;
+    // maintained with $inc on product add/delete; membership itself is Product.categoryId.
+    // null on categories stored before the count existed, until DataMigrations has recounted them
+    private Integer productCount;
+    @Indexed
     private String categoryName;
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.cs308.backend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A discount on a set of products between two points in time. Campaigns are
+ * started and ended by CampaignService; while one is active, each of its
+ * products carries the campaign id and the price to go back to.
+ */
+@Data
+@NoArgsConstructor
+@CompoundIndexes({
+        // the next campaigns to start and to end
+        @CompoundIndex(name = "status_starts", def = "{'status': 1, 'startsAt': 1}"),
+        @CompoundIndex(name = "status_ends", def = "{'status': 1, 'endsAt': 1}")
+})
+@Document(collection = "discount_campaigns")
+public class DiscountCampaign {
+    public enum Status { SCHEDULED, ACTIVE, ENDED, CANCELLED }
+
+    @Id
+    private String campaignId;
+    private String name;
+    private List<String> productIds;
+    private double discountPercentage;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+    private Status status;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime activatedAt;
+    private LocalDateTime endedAt;
+}
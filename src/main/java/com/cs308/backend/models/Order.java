@@ -1,6 +1,9 @@
 package com.cs308.backend.models;
 
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.annotation.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,17 +15,31 @@ import com.cs308.backend.models.*;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@CompoundIndexes({
+        // findByUserId, findByUserIdAndShippedTrue/False
+        @CompoundIndex(name = "user_shipped", def = "{'userId': 1, 'shipped': 1}"),
+        // findByPaid, findByPaidIsTrueAndInvoicePathIsNotNull
+        @CompoundIndex(name = "paid_invoice", def = "{'paid': 1, 'invoicePath': 1}")
+})
 @Document(collection = "order")
 public class Order {
     @Id
     private String orderId;
+    @Indexed
     private String cartId;
     private String userId;
+    // case-insensitive: findByStatusIgnoreCase queries with the same collation
+    @Indexed(collation = "{ 'locale': 'en', 'strength': 2 }")
     private String status;
+    @Indexed
     private String paymentId;
     private List<String> productIds = new ArrayList<>();
     private List<Integer> quantities = new ArrayList<>();
     private boolean paid;
+    // When PaymentService took the payment; missing on older orders and on
+    // orders marked paid by hand. Separates a co-purchase rebuild's scan from
+    // the orders recorded live while it runs.
+    private LocalDateTime paidAt;
     private boolean shipped;
     private boolean refundRequested;
     private String cardNumber;
@@ -2,6 +2,7 @@ package com.cs308.backend.models;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +15,7 @@ import java.util.List;
 public class OrderHistory {
     @Id
     private String orderHistoryId; // Unique ID for this order history record
+    @Indexed
     private String userId;         // Reference to the user that placed the orders
     private List<String> orderIds; // List of order IDs that belong to this user
 }
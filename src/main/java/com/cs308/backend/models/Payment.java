@@ -1,6 +1,7 @@
 package com.cs308.backend.models;
 
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.annotation.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,7 +16,9 @@ import com.cs308.backend.models.*;
 public class Payment {
     @Id
     private String paymentId;
+    @Indexed
     private String orderId;
+    @Indexed
     private String userId;
     private String cardNumber;
     private String expiryDate;
@@ -0,0 +1,47 @@
+package com.cs308.backend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a product's price history: from {@code at} on the product sold
+ * for {@code price}. {@code listPrice} is the regular price the discounts
+ * were taken off; it equals price while no discount is active.
+ *
+ * One document per entry, never changed once written, so a product's history
+ * can grow without limit. Stored with one-letter field names since there are
+ * many of these; the index serves both the latest entry at or before a time
+ * and the whole history.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "price_points")
+@CompoundIndex(name = "product_time", def = "{'productId': 1, 't': -1}")
+public class PricePoint {
+    @Id
+    private String id;
+    private String productId;
+    @Field("t")
+    private LocalDateTime at;
+    @Field("p")
+    private double price;
+    @Field("l")
+    private double listPrice;
+
+    public PricePoint(String productId, LocalDateTime at, double price, double listPrice) {
+        this.productId = productId;
+        this.at = at;
+        this.price = price;
+        this.listPrice = listPrice;
+    }
+
+    public boolean isDiscounted() {
+        return price < listPrice - 0.005;
+    }
+}
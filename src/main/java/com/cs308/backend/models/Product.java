@@ -1,16 +1,30 @@
 package com.cs308.backend.models;
 
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@CompoundIndexes({
+        // category listings, keyset-paged by id
+        @CompoundIndex(name = "category_id", def = "{'categoryId': 1, '_id': 1}"),
+        // price range filters (bulk repricing), ties broken by id
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+        // awaiting-pricing queue: only unpriced products are indexed, oldest listing first
+        @CompoundIndex(name = "awaiting_pricing", def = "{'listedAt': 1, '_id': 1}", partialFilter = "{'price': 0}")
+})
 @Document(collection = "products")
 public class Product {
     @Id
@@ -18,11 +32,19 @@ public class Product {
 
     private String serialNumber;
 
+    @Indexed
     private int stockCount;
     private double price;
+    // case-insensitive: findByProductNameIgnoreCase queries with the same collation
+    @Indexed(collation = "{ 'locale': 'en', 'strength': 2 }")
     private String productName;
     private List<String> reviewIds;
-    private double rating;
+    private double rating;           // ratingSum / ratingCount
+    // Rating aggregates, changed with $inc when a rated review is posted or deleted.
+    // Histogram keys are the star levels "1".."5".
+    private double ratingSum;
+    private int ratingCount;
+    private Map<String, Integer> ratingHistogram;
     private String productInfo;
     private String categoryId;
     private String warrantyStatus;
@@ -31,6 +53,20 @@ public class Product {
     // Production cost field with default value calculation handled in service layer
     private Double productionCost;
 
+    // When the product was added; null for products created before this field existed
+    private LocalDateTime listedAt;
+
+    // Last write: set by auditing on save() and by the services' bulk/partial updates.
+    // The catalog snapshot file catches up on products changed after it was written.
+    @LastModifiedDate
+    @Indexed
+    private LocalDateTime updatedAt;
+
+    // Set while a discount campaign has this product discounted: the campaign
+    // and the price to restore when it ends
+    private String campaignId;
+    private Double campaignListPrice;
+
     // New discount fields
 
     // Helper method to calculate default production cost (50% of price)
@@ -0,0 +1,37 @@
+package com.cs308.backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Result of a bulk product import; rows are numbered from 1, not counting the CSV header. */
+@Data
+@NoArgsConstructor
+public class ProductImportReport {
+    /** Only the first this many row errors are listed; errorCount is always exact. */
+    public static final int MAX_LISTED_ERRORS = 1000;
+
+    private int totalRows;
+    private int imported;
+    private int errorCount;
+    private List<RowError> errors = new ArrayList<>();
+    private long elapsedMillis;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private int row;
+        private String message;
+    }
+
+    public void addError(int row, String message) {
+        errorCount++;
+        if (errors.size() < MAX_LISTED_ERRORS) {
+            errors.add(new RowError(row, message));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cs308.backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a product listing (full products or {@link ProductSummary}).
+ * {@code nextCursor} is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class ProductPage<T> {
+    private List<T> products;
+    private String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.cs308.backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields a product card needs. Used as a Mongo projection so listing
+ * pages do not load reviewIds, distributor info and the like.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+    private String productId;
+    private String productName;
+    private double price;
+    private double rating;
+    private int stockCount;
+    private String categoryId;
+    private LocalDateTime listedAt;
+
+    public static ProductSummary from(Product product) {
+        return new ProductSummary(product.getProductId(), product.getProductName(), product.getPrice(),
+                product.getRating(), product.getStockCount(), product.getCategoryId(), product.getListedAt());
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,11 +19,14 @@ public class RefundRequest {
     @Id
     private String requestId;
 
+    @Indexed
     private String orderId;
+    @Indexed
     private String userId;
 
     private LocalDateTime requestDate;
 
+    @Indexed
     private boolean processed;
 
     private List<RefundItem> items;
@@ -1,15 +1,29 @@
 package com.cs308.backend.models;
 
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.annotation.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 import com.cs308.backend.models.*;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@CompoundIndexes({
+        // review feed, newest first; its prefix also serves findByProductId,
+        // findByProductIdAndVerifiedTrue and deleteByProductId
+        @CompoundIndex(name = "product_feed_newest", def = "{'productId': 1, 'verified': 1, 'hasComment': 1, 'createdAt': -1, '_id': -1}"),
+        // review feed, most helpful first
+        @CompoundIndex(name = "product_feed_helpful", def = "{'productId': 1, 'verified': 1, 'hasComment': 1, 'helpfulCount': -1, '_id': -1}"),
+        // moderation queue, oldest first; also findByVerifiedFalseAndDeclinedFalse
+        @CompoundIndex(name = "moderation_queue", def = "{'verified': 1, 'declined': 1, '_id': 1}")
+})
 @Document(collection = "reviews")
 public class Review {
     @Id
@@ -18,7 +32,12 @@ public class Review {
     private String comment;
     private boolean verified;
     private boolean declined;
+    @Indexed
     private String userId;
     private String productId;
 
+    private boolean hasComment;   // comment is not blank, set when the review is posted
+    private LocalDateTime createdAt;
+    private int helpfulCount;
+    private String moderationBatch;   // last batch moderation that changed this review
 }
\ No newline at end of file
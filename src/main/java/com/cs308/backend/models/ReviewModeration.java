@@ -0,0 +1,17 @@
+package com.cs308.backend.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body of a batch moderation: the ids of queued reviews to approve
+ * and to decline. Reviews that are no longer in the queue are skipped.
+ */
+@Data
+@NoArgsConstructor
+public class ReviewModeration {
+    private List<String> approve;
+    private List<String> decline;
+}
@@ -0,0 +1,16 @@
+package com.cs308.backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a product's review feed. {@code nextCursor} is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class ReviewPage {
+    private List<Review> reviews;
+    private String nextCursor;
+}
@@ -0,0 +1,30 @@
+package com.cs308.backend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Checkpoint of one product's trending counters on one node: for every
+ * window, the live time buckets (bucket number as key) and the counts that
+ * node recorded. Every node writes only its own documents; on startup the
+ * documents of all nodes are summed so a restart does not reset the
+ * rankings.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "trending_counters")
+public class TrendingCounter {
+    @Id
+    private String id;           // productId:nodeId
+    private String productId;
+    private String nodeId;
+    private Map<String, Map<String, Long>> buckets;
+    private LocalDateTime checkpointedAt;
+}
@@ -29,6 +29,7 @@ public class User extends Auditable {
     private String phoneNumber;
     private String specificAddress;
     private String token;
+    @Indexed
     private List<String> wishList;
     private String taxId;
 
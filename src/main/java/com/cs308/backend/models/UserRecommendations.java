@@ -0,0 +1,25 @@
+package com.cs308.backend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Precomputed product recommendations of one user, best first, written by
+ * the recommendation batch job and read by id when the user asks for them.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "user_recommendations")
+public class UserRecommendations {
+    @Id
+    private String userId;
+    private List<String> productIds;
+    private LocalDateTime computedAt;
+}
@@ -2,6 +2,8 @@ package com.cs308.backend.repositories;
 
 import com.cs308.backend.models.Category;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -13,4 +15,10 @@ public interface CategoryRepository extends MongoRepository<Category, String> {
 
     // Check if a category with this name exists
     boolean existsByCategoryName(String categoryName);
+
+    // Atomic change of the product count, without rewriting the category document. A category
+    // not counted yet is left alone: its recount sees the product either way.
+    @Query("{ '_id': ?0, 'productCount': { '$exists': true } }")
+    @Update("{ '$inc': { 'productCount': ?1 } }")
+    long incrementProductCount(String categoryId, int delta);
 }
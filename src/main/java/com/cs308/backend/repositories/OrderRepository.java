@@ -2,6 +2,7 @@ package com.cs308.backend.repositories;
 
 import com.cs308.backend.models.*;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -21,19 +22,15 @@ public interface OrderRepository extends MongoRepository<Order, String>
     // Get orders by paid status
     List<Order> findByPaid(boolean paid);
 
-    // Get orders by shipped status
-    List<Order> findByShipped(boolean shipped);
-
-    // Get orders by status string (optional if you're using it like "pending", "completed", etc.)
-    List<Order> findByStatus(String status);
-
     List<Order> findByUserIdAndShippedTrue(String userId);
 
     List<Order> findByUserIdAndShippedFalse(String userId);
 
     List<Order> findByPaidIsTrueAndInvoicePathIsNotNull();
 
-    // Case-insensitive version of status filter
+    // Orders by status string, case-insensitive ("pending", "completed", etc.). Uses the
+    // collation of the status index rather than a /^status$/i regex.
+    @Query(value = "{ 'status': ?0 }", collation = "{ 'locale': 'en', 'strength': 2 }")
     List<Order> findByStatusIgnoreCase(String status);
 
 }
\ No newline at end of file
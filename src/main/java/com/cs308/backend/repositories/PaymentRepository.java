@@ -15,7 +15,4 @@ public interface PaymentRepository extends MongoRepository<Payment, String> {
 
     // Find all payments made by a specific user
     List<Payment> findByUserId(String userId);
-
-    // Optional: Find payment by card number (not recommended for production use due to sensitivity)
-    Optional<Payment> findByCardNumber(String cardNumber);
 }
@@ -1,8 +1,12 @@
 package com.cs308.backend.repositories;
 
 import com.cs308.backend.models.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -11,18 +15,47 @@ public interface ProductRepository extends MongoRepository<Product, String> {
     // Find products by category
     List<Product> findByCategoryId(String categoryId);
 
-    // Find a product by its name (case insensitive)
+    long countByCategoryId(String categoryId);
+
+    // Find a product by its name (case insensitive). A collation instead of the derived
+    // /^name$/i regex, so the productName index (same collation) serves it.
+    @Query(value = "{ 'productName': ?0 }", collation = "{ 'locale': 'en', 'strength': 2 }")
     Product findByProductNameIgnoreCase(String productName);
 
     // Find all products that are in stock
     List<Product> findByStockCountGreaterThan(int minStock);
 
-    List<Product> findByProductNameContainingIgnoreCaseOrProductInfoContainingIgnoreCase(
-            String productName, String productInfo);
+    // Keyset pages ordered by productId: pass the last id of the previous page ("" for the first page)
+    List<Product> findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(
+            String categoryId, String afterProductId, Limit limit);
+
+    List<Product> findByCategoryIdAndPriceGreaterThanAndProductIdGreaterThanOrderByProductIdAsc(
+            String categoryId, double minPrice, String afterProductId, Limit limit);
+
+    // Same pages with a dynamic projection (e.g. ProductSummary), so only those fields are read
+    <T> List<T> findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(
+            String categoryId, String afterProductId, Limit limit, Class<T> type);
+
+    <T> List<T> findByCategoryIdAndPriceGreaterThanAndProductIdGreaterThanOrderByProductIdAsc(
+            String categoryId, double minPrice, String afterProductId, Limit limit, Class<T> type);
+
+    // Awaiting-pricing queue (price == 0) in listing order, served by the partial awaiting_pricing index.
+    // Products without listedAt sort first (by id), then (listedAt, id) keyset pages.
+    <T> List<T> findByPriceAndListedAtIsNullAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+            double price, String afterProductId, Limit limit, Class<T> type);
+
+    <T> List<T> findByPriceAndListedAtAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+            double price, LocalDateTime listedAt, String afterProductId, Limit limit, Class<T> type);
+
+    <T> List<T> findByPriceAndListedAtGreaterThanOrderByListedAtAscProductIdAsc(
+            double price, LocalDateTime after, Limit limit, Class<T> type);
 
 
     // Delete all products by category
     void deleteByCategoryId(String categoryId);
 
+    // Returns the number of products removed (0 when it was already gone)
+    long deleteByProductId(String productId);
+
 }
 
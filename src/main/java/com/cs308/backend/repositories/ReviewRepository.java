@@ -15,7 +15,7 @@ public interface ReviewRepository extends MongoRepository<Review, String> {
     // Find all reviews by a user
     List<Review> findByUserId(String userId);
 
-    void deleteByProductId(String productId);
+    long deleteByProductId(String productId);
 
     List<Review> findByVerifiedFalseAndDeclinedFalse();
 
@@ -2,6 +2,8 @@ package com.cs308.backend.repositories;
 
 import com.cs308.backend.models.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import java.util.Optional;
 import java.util.List;
 
@@ -11,4 +13,8 @@ public interface UserRepository extends MongoRepository<User, String> {
     // Add this new method to find users who have a specific product in their wishlist
     List<User> findByWishListContains(String productId);
 
+    // Pulls a product out of every wishlist in one server-side update (uses the wishList index)
+    @Query("{ 'wishList': ?0 }")
+    @Update("{ '$pull': { 'wishList': ?0 } }")
+    long removeFromWishLists(String productId);
 }
@@ -0,0 +1,159 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.BulkPriceUpdate;
+import com.cs308.backend.models.Product;
+import com.mongodb.bulk.BulkWriteResult;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Reprices every product matching a filter with server-side updates instead
+ * of a findById/save per product.
+ *
+ * A discount multiplies price in place. productionCost follows the same rule
+ * as a single price change: when it is unset or still 50% of the old price,
+ * it becomes 50% of the new price; a manually set cost is kept. An explicit
+ * price always resets the cost to 50%, like setPriceExplicit.
+ *
+ * Matching ids and prices are read first and updated in chunks of
+ * {@link #CHUNK_SIZE} (one bulk write), then the changed products are
+ * re-read into the catalog snapshot and their new prices recorded in the
+ * price history, like a single price change: a discount is taken from the
+ * price read before the update, an explicit price is its own list price.
+ */
+@Service
+public class BulkPricingService {
+    static final int CHUNK_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalogCache catalogCache;
+    private final PriceHistoryService priceHistory;
+
+    public BulkPricingService(MongoTemplate mongoTemplate, ProductCatalogCache catalogCache, PriceHistoryService priceHistory) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogCache = catalogCache;
+        this.priceHistory = priceHistory;
+    }
+
+    /** Applies the update and returns the number of products matched and modified. */
+    public Map<String, Object> reprice(BulkPriceUpdate request) {
+        UpdateDefinition update = toUpdate(request);
+        Criteria filter = toCriteria(request);
+
+        Query idQuery = new Query(filter);
+        idQuery.fields().include("_id", "price");
+        Map<String, Double> before = new LinkedHashMap<>();
+        mongoTemplate.find(idQuery, Product.class)
+                .forEach(product -> before.put(product.getProductId(), product.getPrice()));
+        List<String> ids = new ArrayList<>(before.keySet());
+
+        int modified = 0;
+        if (!ids.isEmpty()) {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+            for (List<String> chunk : chunks(ids)) {
+                // keep the original filter so a product changed in between is not repriced twice
+                ops.updateMulti(new Query(new Criteria().andOperator(filter, Criteria.where("_id").in(chunk))), update);
+            }
+            BulkWriteResult result = ops.execute();
+            modified = result.getModifiedCount();
+
+            for (List<String> chunk : chunks(ids)) {
+                for (Product product : mongoTemplate.find(new Query(Criteria.where("_id").in(chunk)), Product.class)) {
+                    catalogCache.put(product);
+                    recordPrice(product, before.get(product.getProductId()), request.getPrice());
+                }
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("matched", ids.size());
+        response.put("modified", modified);
+        return response;
+    }
+
+    // a product the filter skipped in the meantime keeps its price and gets no entry
+    private void recordPrice(Product product, double oldPrice, Double explicitPrice) {
+        if (explicitPrice != null) {
+            if (PriceHistoryService.samePrice(product.getPrice(), explicitPrice)) {
+                priceHistory.record(product.getProductId(), product.getPrice(), product.getPrice());
+            }
+        } else if (!PriceHistoryService.samePrice(product.getPrice(), oldPrice)) {
+            priceHistory.record(product.getProductId(), product.getPrice(), oldPrice);
+        }
+    }
+
+    static Criteria toCriteria(BulkPriceUpdate request) {
+        List<Criteria> parts = new ArrayList<>();
+        if (request.getCategoryIds() != null && !request.getCategoryIds().isEmpty()) {
+            parts.add(Criteria.where("categoryId").in(request.getCategoryIds()));
+        }
+        if (request.getProductIds() != null && !request.getProductIds().isEmpty()) {
+            parts.add(Criteria.where("_id").in(request.getProductIds()));
+        }
+        if (request.getStockGreaterThan() != null) {
+            parts.add(Criteria.where("stockCount").gt(request.getStockGreaterThan()));
+        }
+        if (request.getMinPrice() != null) {
+            parts.add(Criteria.where("price").gte(request.getMinPrice()));
+        }
+        if (request.getMaxPrice() != null) {
+            parts.add(Criteria.where("price").lte(request.getMaxPrice()));
+        }
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("At least one product filter is required");
+        }
+        return parts.size() == 1 ? parts.get(0) : new Criteria().andOperator(parts);
+    }
+
+    static UpdateDefinition toUpdate(BulkPriceUpdate request) {
+        Double discount = request.getDiscountPercentage();
+        Double price = request.getPrice();
+        if ((discount == null) == (price == null)) {
+            throw new IllegalArgumentException("Exactly one of discountPercentage or price must be given");
+        }
+        if (price != null) {
+            if (price < 0) {
+                throw new IllegalArgumentException("Price cannot be negative");
+            }
+            return new Update().set("price", price).set("productionCost", price * 0.5).currentDate("updatedAt");
+        }
+        if (discount <= 0 || discount > 99) {
+            throw new IllegalArgumentException("Discount percentage must be between 1 and 99");
+        }
+        double factor = 1 - discount / 100;
+
+        // both fields are computed from the document as it was before this stage
+        Document defaultCost = new Document("$multiply", List.of("$price", 0.5));
+        Document costIsDefault = new Document("$or", List.of(
+                new Document("$eq", Arrays.asList(new Document("$ifNull", Arrays.asList("$productionCost", null)), null)),
+                new Document("$lt", List.of(
+                        new Document("$abs", new Document("$subtract", List.of("$productionCost", defaultCost))),
+                        0.01))));
+        Document set = new Document()
+                .append("price", new Document("$multiply", List.of("$price", factor)))
+                .append("productionCost", new Document("$cond", List.of(
+                        costIsDefault,
+                        new Document("$multiply", List.of("$price", factor * 0.5)),
+                        "$productionCost")))
+                .append("updatedAt", "$$NOW");
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    private static List<List<String>> chunks(List<String> ids) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
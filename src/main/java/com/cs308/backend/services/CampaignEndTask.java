@@ -0,0 +1,120 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.DiscountCampaign;
+import com.cs308.backend.models.Product;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reverts the products of a campaign that ended or was cancelled. A product
+ * still at the campaign price gets its old price back; one whose price was
+ * changed during the campaign keeps that price. Either way the campaign
+ * fields are cleared, guarded on the price that was read. Runs for any
+ * status, so it also cleans up a campaign cancelled while it was starting.
+ */
+@Component
+public class CampaignEndTask implements JobTask<Product> {
+    public static final String TYPE = "end-campaign";
+    public static final String CAMPAIGN_ID = "campaignId";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalogCache catalogCache;
+    private final PriceHistoryService priceHistory;
+
+    public CampaignEndTask(MongoTemplate mongoTemplate, ProductCatalogCache catalogCache, PriceHistoryService priceHistory) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogCache = catalogCache;
+        this.priceHistory = priceHistory;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Product> entityType() {
+        return Product.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        if (campaign == null) {
+            return Criteria.where("_id").in(List.of());
+        }
+        return Criteria.where("_id").in(campaign.getProductIds()).and("campaignId").is(campaign.getCampaignId());
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id", "price", "campaignListPrice");
+    }
+
+    @Override
+    public String idOf(Product product) {
+        return product.getProductId();
+    }
+
+    @Override
+    public int apply(List<Product> chunk, Map<String, String> params, BulkOperations ops) {
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        if (campaign == null) {
+            return 0;
+        }
+        for (Product product : chunk) {
+            Update revert = new Update()
+                    .unset("campaignId")
+                    .unset("campaignListPrice")
+                    .currentDate("updatedAt");
+            if (atCampaignPrice(product, campaign)) {
+                revert.set("price", product.getCampaignListPrice());
+            }
+            ops.updateOne(new Query(Criteria.where("_id").is(product.getProductId())
+                    .and("campaignId").is(campaign.getCampaignId())
+                    .and("price").is(product.getPrice())), revert);
+        }
+        return chunk.size();
+    }
+
+    @Override
+    public void afterChunk(List<Product> chunk, Map<String, String> params) {
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        Map<String, Product> before = chunk.stream().collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        for (Product product : mongoTemplate.find(new Query(Criteria.where("_id").in(before.keySet())), Product.class)) {
+            catalogCache.put(product);
+            Product old = before.get(product.getProductId());
+            if (campaign != null && product.getCampaignId() == null && atCampaignPrice(old, campaign)
+                    && PriceHistoryService.samePrice(product.getPrice(), old.getCampaignListPrice())) {
+                priceHistory.record(product.getProductId(), product.getPrice(), product.getPrice());
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(Map<String, String> params) {
+        // a cancelled campaign stays CANCELLED
+        Query running = new Query(Criteria.where("_id").is(params.get(CAMPAIGN_ID))
+                .and("status").in(DiscountCampaign.Status.SCHEDULED, DiscountCampaign.Status.ACTIVE));
+        mongoTemplate.updateFirst(running, new Update()
+                .set("status", DiscountCampaign.Status.ENDED)
+                .set("endedAt", LocalDateTime.now()), DiscountCampaign.class);
+    }
+
+    private static boolean atCampaignPrice(Product product, DiscountCampaign campaign) {
+        Double listPrice = product.getCampaignListPrice();
+        return listPrice != null && PriceHistoryService.samePrice(product.getPrice(),
+                listPrice * (1 - campaign.getDiscountPercentage() / 100));
+    }
+}
@@ -0,0 +1,93 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.DiscountCampaign;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.User;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Emails the users who have products of a newly started campaign on their
+ * wishlist, one email per discounted product, a chunk of users at a time.
+ * Queued by {@link CampaignStartTask} so activation never waits on the mail
+ * server. A chunk replayed after a crash sends its emails again.
+ */
+@Component
+public class CampaignNotifyTask implements JobTask<User> {
+    public static final String TYPE = "notify-campaign-wishlists";
+    public static final String CAMPAIGN_ID = "campaignId";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductService productService;
+
+    public CampaignNotifyTask(MongoTemplate mongoTemplate, ProductService productService) {
+        this.mongoTemplate = mongoTemplate;
+        this.productService = productService;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<User> entityType() {
+        return User.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        if (campaign == null || campaign.getStatus() != DiscountCampaign.Status.ACTIVE) {
+            // ended or cancelled before the emails went out
+            return Criteria.where("_id").in(List.of());
+        }
+        return Criteria.where("wishList").in(campaign.getProductIds());
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id", "name", "email", "wishList");
+    }
+
+    @Override
+    public String idOf(User user) {
+        return user.getUserId();
+    }
+
+    @Override
+    public int apply(List<User> chunk, Map<String, String> params, BulkOperations ops) {
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        if (campaign == null) {
+            return 0;
+        }
+        Set<String> inCampaign = new HashSet<>(campaign.getProductIds());
+        Set<String> wished = chunk.stream()
+                .flatMap(user -> user.getWishList().stream())
+                .filter(inCampaign::contains)
+                .collect(Collectors.toSet());
+        // only the products the campaign actually discounted
+        Map<String, Product> discounted = mongoTemplate.find(new Query(Criteria.where("_id").in(wished)
+                        .and("campaignId").is(campaign.getCampaignId())), Product.class).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+
+        for (User user : chunk) {
+            for (String productId : new LinkedHashSet<>(user.getWishList())) {
+                Product product = discounted.get(productId);
+                if (product != null) {
+                    productService.sendDiscountEmail(user, product, campaign.getDiscountPercentage(), product.getCampaignListPrice());
+                }
+            }
+        }
+        // nothing to write
+        return 0;
+    }
+}
@@ -0,0 +1,277 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.DiscountCampaign;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.util.HashedTimerWheel;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discount campaigns: a percentage off a set of products between a start
+ * and an end time.
+ *
+ * Starts and ends are timers on a {@link HashedTimerWheel} with one-second
+ * ticks, advanced by a single daemon thread, so thousands of pending
+ * campaigns cost one bucket lookup per second. Only the transitions due
+ * within the horizon (two sync intervals) are on the wheel: the schedule
+ * lives in discount_campaigns and is re-read every
+ * {@code campaigns.sync-interval-ms}, which is also how a restarted node
+ * (or another node) recovers it. A timer only submits a background job
+ * ({@link CampaignStartTask}, {@link CampaignEndTask}); the jobs do the bulk
+ * writes, are idempotent, and two nodes firing the same timer just submit
+ * the same job. The transitions run wherever the job runner is enabled.
+ */
+@Service
+public class CampaignService {
+    static final long TICK_MS = 1_000;
+    static final int WHEEL_SIZE = 512;
+    // an end that fires while the start job is still running is retried after this long
+    static final long RETRY_MS = 5_000;
+
+    private static final String START = "start";
+    private static final String END = "end";
+
+    private final MongoTemplate mongoTemplate;
+    private final JobService jobService;
+    private final boolean enabled;
+    private final long horizonMillis;
+    private final HashedTimerWheel wheel = new HashedTimerWheel(TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+    // campaignId:transition -> pending timer
+    private final Map<String, HashedTimerWheel.Timeout> timers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "campaign-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CampaignService(MongoTemplate mongoTemplate,
+                           JobService jobService,
+                           @Value("${jobs.runner.enabled:true}") boolean enabled,
+                           @Value("${campaigns.sync-interval-ms:300000}") long syncIntervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobService = jobService;
+        this.enabled = enabled;
+        this.horizonMillis = 2 * syncIntervalMs;
+    }
+
+    public DiscountCampaign create(DiscountCampaign request) {
+        List<String> productIds = request.getProductIds() == null ? List.of()
+                : request.getProductIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (productIds.isEmpty()) {
+            throw new IllegalArgumentException("A campaign needs at least one product");
+        }
+        if (request.getDiscountPercentage() <= 0 || request.getDiscountPercentage() > 99) {
+            throw new IllegalArgumentException("Discount percentage must be between 1 and 99");
+        }
+        if (request.getStartsAt() == null || request.getEndsAt() == null || !request.getEndsAt().isAfter(request.getStartsAt())) {
+            throw new IllegalArgumentException("startsAt and endsAt are required and endsAt must be after startsAt");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!request.getEndsAt().isAfter(now)) {
+            throw new IllegalArgumentException("endsAt is in the past");
+        }
+        long found = mongoTemplate.count(new Query(Criteria.where("_id").in(productIds)), Product.class);
+        if (found != productIds.size()) {
+            throw new IllegalArgumentException((productIds.size() - found) + " of the products do not exist");
+        }
+
+        DiscountCampaign campaign = new DiscountCampaign();
+        campaign.setName(request.getName());
+        campaign.setProductIds(productIds);
+        campaign.setDiscountPercentage(request.getDiscountPercentage());
+        campaign.setStartsAt(request.getStartsAt());
+        campaign.setEndsAt(request.getEndsAt());
+        campaign.setStatus(DiscountCampaign.Status.SCHEDULED);
+        campaign.setCreatedAt(now);
+        DiscountCampaign saved = mongoTemplate.insert(campaign);
+        scheduleIfDue(saved.getCampaignId(), START, saved.getStartsAt(), System.currentTimeMillis());
+        return saved;
+    }
+
+    public Optional<DiscountCampaign> getCampaign(String campaignId) {
+        return Optional.ofNullable(mongoTemplate.findById(campaignId, DiscountCampaign.class));
+    }
+
+    /** Campaigns by start time, newest first; all statuses if status is null. */
+    public List<DiscountCampaign> getCampaigns(DiscountCampaign.Status status, int limit) {
+        Query query = status == null ? new Query() : new Query(Criteria.where("status").is(status));
+        query.with(Sort.by(Sort.Direction.DESC, "startsAt")).limit(Math.max(1, Math.min(limit, 200)));
+        return mongoTemplate.find(query, DiscountCampaign.class);
+    }
+
+    /**
+     * Cancels a campaign that has not started, or ends a running one now.
+     * A campaign whose start time has passed may already be partly applied,
+     * so its products are reverted in both cases.
+     */
+    public DiscountCampaign cancel(String campaignId) {
+        Query scheduled = new Query(Criteria.where("_id").is(campaignId).and("status").is(DiscountCampaign.Status.SCHEDULED));
+        boolean cancelled = mongoTemplate.updateFirst(scheduled, new Update()
+                .set("status", DiscountCampaign.Status.CANCELLED)
+                .set("endedAt", LocalDateTime.now()), DiscountCampaign.class).getModifiedCount() > 0;
+        DiscountCampaign campaign = getCampaign(campaignId)
+                .orElseThrow(() -> new NoSuchElementException("Campaign not found: " + campaignId));
+        if (!cancelled && campaign.getStatus() != DiscountCampaign.Status.ACTIVE) {
+            throw new IllegalStateException("Campaign " + campaignId + " is already " + campaign.getStatus());
+        }
+        cancelTimers(campaignId);
+        if (!cancelled || !campaign.getStartsAt().isAfter(LocalDateTime.now())) {
+            jobService.submit(CampaignEndTask.TYPE, Map.of(CampaignEndTask.CAMPAIGN_ID, campaignId));
+        }
+        return campaign;
+    }
+
+    public Map<String, Object> getSchedulerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pendingTimers", wheel.size());
+        stats.put("horizonMs", horizonMillis);
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            ticker.scheduleAtFixedRate(() -> wheel.advance(System.currentTimeMillis()), TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Puts the starts and ends due within the horizon on the wheel. */
+    @Scheduled(fixedDelayString = "${campaigns.sync-interval-ms:300000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sync(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // timers already on the wheel still fire; the next sync tries again
+            System.err.println("Campaign schedule sync failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /** Returns how many transitions are now on the wheel. */
+    int sync(long now) {
+        LocalDateTime until = toDateTime(now + horizonMillis);
+        Query starting = new Query(Criteria.where("status").is(DiscountCampaign.Status.SCHEDULED).and("startsAt").lte(until));
+        starting.fields().include("_id", "startsAt");
+        Query ending = new Query(Criteria.where("status").is(DiscountCampaign.Status.ACTIVE).and("endsAt").lte(until));
+        ending.fields().include("_id", "endsAt");
+
+        int scheduled = 0;
+        for (DiscountCampaign campaign : mongoTemplate.find(starting, DiscountCampaign.class)) {
+            schedule(campaign.getCampaignId(), START, toMillis(campaign.getStartsAt()));
+            scheduled++;
+        }
+        for (DiscountCampaign campaign : mongoTemplate.find(ending, DiscountCampaign.class)) {
+            schedule(campaign.getCampaignId(), END, toMillis(campaign.getEndsAt()));
+            scheduled++;
+        }
+        return scheduled;
+    }
+
+    /** Runs the timers due by now; the ticker does this every tick. */
+    int advance(long now) {
+        return wheel.advance(now);
+    }
+
+    void start(String campaignId, long now) {
+        DiscountCampaign campaign = mongoTemplate.findById(campaignId, DiscountCampaign.class);
+        if (campaign == null || campaign.getStatus() != DiscountCampaign.Status.SCHEDULED) {
+            return;
+        }
+        Map<String, String> params = Map.of(CampaignStartTask.CAMPAIGN_ID, campaignId);
+        if (toMillis(campaign.getEndsAt()) <= now) {
+            // missed its whole window (e.g. the app was down): revert whatever a failed start applied
+            jobService.submit(CampaignEndTask.TYPE, params);
+            return;
+        }
+        jobService.submit(CampaignStartTask.TYPE, params);
+        scheduleIfDue(campaignId, END, campaign.getEndsAt(), now);
+    }
+
+    void end(String campaignId, long now) {
+        DiscountCampaign campaign = mongoTemplate.findById(campaignId, DiscountCampaign.class);
+        if (campaign == null) {
+            return;
+        }
+        if (campaign.getStatus() == DiscountCampaign.Status.ACTIVE) {
+            jobService.submit(CampaignEndTask.TYPE, Map.of(CampaignEndTask.CAMPAIGN_ID, campaignId));
+        } else if (campaign.getStatus() == DiscountCampaign.Status.SCHEDULED) {
+            // the start job has not finished yet
+            schedule(campaignId, END, now + RETRY_MS);
+        }
+    }
+
+    private void scheduleIfDue(String campaignId, String transition, LocalDateTime at, long now) {
+        long deadline = toMillis(at);
+        if (enabled && deadline <= now + horizonMillis) {
+            schedule(campaignId, transition, deadline);
+        }
+    }
+
+    // keeps a pending timer with the same deadline, so repeated syncs do not pile up timers
+    private void schedule(String campaignId, String transition, long deadline) {
+        String key = campaignId + ":" + transition;
+        timers.compute(key, (k, pending) -> {
+            if (pending != null && !pending.isExpired() && pending.deadline() == deadline) {
+                return pending;
+            }
+            if (pending != null) {
+                pending.cancel();
+            }
+            return wheel.schedule(deadline, () -> fire(key, campaignId, transition));
+        });
+    }
+
+    private void fire(String key, String campaignId, String transition) {
+        timers.computeIfPresent(key, (k, timeout) -> timeout.isExpired() ? null : timeout);
+        long now = System.currentTimeMillis();
+        if (START.equals(transition)) {
+            start(campaignId, now);
+        } else {
+            end(campaignId, now);
+        }
+    }
+
+    private void cancelTimers(String campaignId) {
+        for (String transition : List.of(START, END)) {
+            HashedTimerWheel.Timeout timeout = timers.remove(campaignId + ":" + transition);
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
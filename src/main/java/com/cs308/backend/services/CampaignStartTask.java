@@ -0,0 +1,156 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.DiscountCampaign;
+import com.cs308.backend.models.Product;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Discounts the products of a campaign that is due to start. Each product
+ * gets one conditional update in the chunk's bulk write: the discounted
+ * price, the campaign id and the price it had, guarded on the price that
+ * was read, so a concurrent price change is never overwritten and a
+ * replayed chunk skips what it already did. A product already in another
+ * campaign is left alone. When every product is done the campaign becomes
+ * ACTIVE and the wishlist emails are queued as a {@link CampaignNotifyTask}.
+ *
+ * A cancel that lands between a chunk's read and its write finds nothing
+ * to revert yet, so each chunk re-checks the campaign after its write and
+ * reverts what it just discounted if the campaign was withdrawn meanwhile.
+ */
+@Component
+public class CampaignStartTask implements JobTask<Product> {
+    public static final String TYPE = "start-campaign";
+    public static final String CAMPAIGN_ID = "campaignId";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalogCache catalogCache;
+    private final PriceHistoryService priceHistory;
+    // JobService is built from the tasks, so it can only be looked up later
+    private final ObjectProvider<JobService> jobService;
+
+    public CampaignStartTask(MongoTemplate mongoTemplate,
+                             ProductCatalogCache catalogCache,
+                             PriceHistoryService priceHistory,
+                             ObjectProvider<JobService> jobService) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogCache = catalogCache;
+        this.priceHistory = priceHistory;
+        this.jobService = jobService;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Product> entityType() {
+        return Product.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        if (campaign == null || campaign.getStatus() != DiscountCampaign.Status.SCHEDULED) {
+            // cancelled or already started: nothing left to discount
+            return Criteria.where("_id").in(List.of());
+        }
+        return Criteria.where("_id").in(campaign.getProductIds()).and("campaignId").is(null);
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id", "price");
+    }
+
+    @Override
+    public String idOf(Product product) {
+        return product.getProductId();
+    }
+
+    @Override
+    public int apply(List<Product> chunk, Map<String, String> params, BulkOperations ops) {
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        if (campaign == null) {
+            return 0;
+        }
+        double factor = 1 - campaign.getDiscountPercentage() / 100;
+        for (Product product : chunk) {
+            Query unchanged = new Query(Criteria.where("_id").is(product.getProductId())
+                    .and("campaignId").is(null)
+                    .and("price").is(product.getPrice()));
+            ops.updateOne(unchanged, new Update()
+                    .set("price", product.getPrice() * factor)
+                    .set("campaignId", campaign.getCampaignId())
+                    .set("campaignListPrice", product.getPrice())
+                    .currentDate("updatedAt"));
+        }
+        return chunk.size();
+    }
+
+    @Override
+    public void afterChunk(List<Product> chunk, Map<String, String> params) {
+        List<String> ids = chunk.stream().map(Product::getProductId).toList();
+        // the chunk only held products without the campaign, so these are the ones just discounted
+        Query discounted = new Query(Criteria.where("_id").in(ids).and("campaignId").is(params.get(CAMPAIGN_ID)));
+        List<Product> products = mongoTemplate.find(discounted, Product.class);
+        if (products.isEmpty()) {
+            return;
+        }
+        // read after the write: a cancel from now on submits an end job that sees these products
+        DiscountCampaign campaign = mongoTemplate.findById(params.get(CAMPAIGN_ID), DiscountCampaign.class);
+        boolean withdrawn = campaign == null
+                || campaign.getStatus() == DiscountCampaign.Status.CANCELLED
+                || campaign.getStatus() == DiscountCampaign.Status.ENDED;
+        for (Product product : products) {
+            if (withdrawn) {
+                revert(product);
+            } else {
+                catalogCache.put(product);
+                priceHistory.record(product.getProductId(), product.getPrice(), product.getCampaignListPrice());
+            }
+        }
+    }
+
+    // same update as CampaignEndTask, guarded on the discounted price that was read
+    private void revert(Product product) {
+        Query stillDiscounted = new Query(Criteria.where("_id").is(product.getProductId())
+                .and("campaignId").is(product.getCampaignId())
+                .and("price").is(product.getPrice()));
+        Update revert = new Update()
+                .set("price", product.getCampaignListPrice())
+                .unset("campaignId")
+                .unset("campaignListPrice")
+                .currentDate("updatedAt");
+        Product reverted = mongoTemplate.findAndModify(stillDiscounted, revert,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (reverted != null) {
+            catalogCache.put(reverted);
+        }
+    }
+
+    @Override
+    public void onComplete(Map<String, String> params) {
+        Query scheduled = new Query(Criteria.where("_id").is(params.get(CAMPAIGN_ID))
+                .and("status").is(DiscountCampaign.Status.SCHEDULED));
+        Update activate = new Update()
+                .set("status", DiscountCampaign.Status.ACTIVE)
+                .set("activatedAt", LocalDateTime.now());
+        // only the run that activates the campaign queues the emails
+        if (mongoTemplate.updateFirst(scheduled, activate, DiscountCampaign.class).getModifiedCount() > 0) {
+            jobService.getObject().submit(CampaignNotifyTask.TYPE, Map.of(CampaignNotifyTask.CAMPAIGN_ID, params.get(CAMPAIGN_ID)));
+        }
+    }
+}
@@ -4,6 +4,14 @@ import com.cs308.backend.models.*;
 import com.cs308.backend.models.CartItem;
 import com.cs308.backend.repositories.*;
 
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import java.util.*;
@@ -13,14 +21,29 @@ import org.springframework.http.*;
 
 
 
+/**
+ * Cart mutations are single conditional updates on the cart document, so
+ * concurrent clicks (e.g. from two tabs) never overwrite each other: an add
+ * is an $inc on the matching item, guarded on the quantity being below the
+ * product's stock, or a $push guarded on the item being absent. The stock
+ * comes from one product read at the start of the call.
+ */
 @Service
 public class CartService {
+    // an add only loses to a concurrent add of the same item, so a few rounds always settle it
+    static final int MAX_ATTEMPTS = 5;
+
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
+    private final TrendingProducts trendingProducts;
+    private final MongoTemplate mongoTemplate;
 
-    public CartService(CartRepository cartRepository, ProductRepository productRepository) {
+    public CartService(CartRepository cartRepository, ProductRepository productRepository,
+                       TrendingProducts trendingProducts, MongoTemplate mongoTemplate) {
         this.cartRepository = cartRepository;
         this.productRepository = productRepository;
+        this.trendingProducts = trendingProducts;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public ResponseEntity<AddToCartResponse> addToCart(String cartId, String productId) {
@@ -28,55 +51,18 @@ public class CartService {
             // 1) verify product exists
             Product p = productRepository.findById(productId)
                     .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
-
-            // 2) fetch-or-create cart
-            Cart cart;
-            boolean isNew = false;
-            if (cartId == null || !cartRepository.existsById(cartId)) {
-                cart = new Cart();
-                if (cartId == null) {
-                    cartId = UUID.randomUUID().toString().replaceAll("[^a-zA-Z0-9\\-]", "");
-                }
-                cart.setCartId(cartId);
-                isNew = true;
-            }
-            else {
-                cart = cartRepository.findById(cartId)
-                        .orElseThrow(); // existsById already checked
+            if (cartId == null) {
+                cartId = UUID.randomUUID().toString().replaceAll("[^a-zA-Z0-9\\-]", "");
             }
 
-            // 3) find or create the CartItem
-            List<CartItem> items = cart.getItems();
-            CartItem match = items.stream()
-                    .filter(ci -> ci.getProductId().equals(productId))
-                    .findFirst()
-                    .orElse(null);
-
-            int newQty = (match != null ? match.getQuantity() : 0) + 1;
-            // 4) enforce stock constraint
-            if (p.getStockCount() < newQty) {
-                throw new IllegalStateException("Cannot add more than " + p.getStockCount() +
-                        " units of this item to your cart.");
-            }
-
-            // 5) commit to cart
-            if (match != null) {
-                match.setQuantity(newQty);
-                if (match.getPrice() == 0.0) {
-                    match.setPrice(p.getPrice());
-                }
-            } else {
-                // Inside the else block in addToCart method:
-                items.add(new CartItem(productId, 1, p.getPrice()));
-
-            }
-            cart.setItems(items);
-            cartRepository.save(cart);
+            // 2) one atomic update of the cart (created on the first add)
+            Added added = addItem(cartId, p);
+            trendingProducts.recordCartAdd(productId);
 
             AddToCartResponse body = new AddToCartResponse(
                     cartId,
-                    (isNew ? "New cart created; " : "") +
-                            "You now have " + newQty + "× “" + p.getProductName() + "” in your cart."
+                    (added.newCart() ? "New cart created; " : "") +
+                            "You now have " + added.quantity() + "× “" + p.getProductName() + "” in your cart."
             );
             return ResponseEntity.ok(body);
 
@@ -89,6 +75,90 @@ public class CartService {
         }
     }
 
+    /** Sets the quantity of an item already in the cart; 0 or less removes it. */
+    public ResponseEntity<AddToCartResponse> setQuantity(String cartId, String productId, int quantity) {
+        if (quantity <= 0) {
+            ResponseEntity<Void> removed = removeFromCart(cartId, productId);
+            return ResponseEntity.status(removed.getStatusCode())
+                    .body(new AddToCartResponse(cartId, removed.getStatusCode().is2xxSuccessful()
+                            ? "Item removed from your cart." : "Item is not in your cart."));
+        }
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AddToCartResponse(cartId, "Product not found: " + productId));
+        }
+        Product p = product.get();
+        if (quantity > p.getStockCount()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AddToCartResponse(cartId, stockMessage(p)));
+        }
+        Query inCart = new Query(Criteria.where("_id").is(cartId).and("items.productId").is(productId));
+        if (mongoTemplate.updateFirst(inCart, new Update().set("items.$.quantity", quantity), Cart.class).getMatchedCount() == 0) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new AddToCartResponse(cartId, "Item is not in your cart."));
+        }
+        return ResponseEntity.ok(new AddToCartResponse(cartId,
+                "You now have " + quantity + "× “" + p.getProductName() + "” in your cart."));
+    }
+
+    private record Added(int quantity, boolean newCart) {
+    }
+
+    private Added addItem(String cartId, Product p) {
+        String productId = p.getProductId();
+        int stock = p.getStockCount();
+        if (stock < 1) {
+            throw new IllegalStateException(stockMessage(p));
+        }
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            // a) the item is in the cart and below the stock ceiling: one more, and in the same
+            //    update the price of an item added before prices were stored on the cart. Both
+            //    through array filters; a product is in the items at most once.
+            Query belowStock = new Query(Criteria.where("_id").is(cartId)
+                    .and("items").elemMatch(Criteria.where("productId").is(productId).and("quantity").lt(stock)));
+            Update increment = new Update().inc("items.$[item].quantity", 1)
+                    .set("items.$[unpriced].price", p.getPrice())
+                    .filterArray(Criteria.where("item.productId").is(productId))
+                    .filterArray(Criteria.where("unpriced.productId").is(productId).and("unpriced.price").is(0.0));
+            Cart cart = mongoTemplate.findAndModify(belowStock, increment,
+                    FindAndModifyOptions.options().returnNew(true), Cart.class);
+            if (cart != null) {
+                CartItem item = cart.getItems().stream()
+                        .filter(ci -> productId.equals(ci.getProductId()))
+                        .findFirst()
+                        .orElseThrow();
+                return new Added(item.getQuantity(), false);
+            }
+
+            // b) the item is not in the cart (or there is no cart yet): push it
+            Query absent = new Query(Criteria.where("_id").is(cartId).and("items.productId").ne(productId)
+                    .orOperator(Criteria.where("items").exists(false), Criteria.where("items").type(JsonSchemaObject.Type.ARRAY)));
+            try {
+                Cart before = mongoTemplate.findAndModify(absent, new Update().push("items", new CartItem(productId, 1, p.getPrice())),
+                        FindAndModifyOptions.options().upsert(true).returnNew(false), Cart.class);
+                return new Added(1, before == null);
+            } catch (DuplicateKeyException e) {
+                // a cart saved with items: null cannot take a $push; start it over as an empty list
+                Query broken = new Query(Criteria.where("_id").is(cartId).and("items").not().type(JsonSchemaObject.Type.ARRAY));
+                if (mongoTemplate.updateFirst(broken, new Update().set("items", new ArrayList<>()), Cart.class).getModifiedCount() > 0) {
+                    continue;
+                }
+                // the cart exists and already holds the item: at the ceiling, or added concurrently
+                Query atStock = new Query(Criteria.where("_id").is(cartId)
+                        .and("items").elemMatch(Criteria.where("productId").is(productId).and("quantity").gte(stock)));
+                if (mongoTemplate.exists(atStock, Cart.class)) {
+                    throw new IllegalStateException(stockMessage(p));
+                }
+            }
+        }
+        throw new IllegalStateException("Your cart is being updated elsewhere, please try again.");
+    }
+
+    private static String stockMessage(Product p) {
+        return "Cannot add more than " + p.getStockCount() + " units of this item to your cart.";
+    }
+
     public void clearCart(String cartId) {
         cartRepository.findById(cartId).ifPresent(c -> {
             c.getItems().clear();
@@ -104,18 +174,12 @@ public class CartService {
     }
 
     public ResponseEntity<Void> removeFromCart(String cartId, String productId) {
-        Optional<Cart> optCart = cartRepository.findById(cartId);
-        if (optCart.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        }
-        Cart cart = optCart.get();
-        List<CartItem> items = cart.getItems();
-        boolean removed = items.removeIf(ci -> ci.getProductId().equals(productId));
-        if (!removed) {
+        // matches only if the item is there, so a missing cart or item is a 404
+        Query inCart = new Query(Criteria.where("_id").is(cartId).and("items.productId").is(productId));
+        Update pull = new Update().pull("items", new Document("productId", productId));
+        if (mongoTemplate.updateFirst(inCart, pull, Cart.class).getMatchedCount() == 0) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        cart.setItems(items);
-        cartRepository.save(cart);
         return ResponseEntity.ok().build();
     }
 
@@ -0,0 +1,21 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+
+import java.util.Collection;
+
+/**
+ * Receives every change applied to the {@link ProductCatalogCache} so that
+ * derived in-memory indexes can be kept up to date incrementally.
+ * Callbacks are invoked while the cache holds its write lock, in order.
+ */
+public interface CatalogListener {
+
+    /** The snapshot was (re)loaded from Mongo; rebuild from scratch. */
+    void onCatalogReload(Collection<Product> products);
+
+    /** A product was saved. {@code previous} is null for new products. */
+    void onProductUpdated(Product previous, Product current);
+
+    void onProductRemoved(Product previous);
+}
@@ -0,0 +1,174 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+
+import com.mongodb.MongoClientSettings;
+import jakarta.annotation.PostConstruct;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local-disk copy of the product snapshot, so a restarted node serves
+ * catalog reads right away instead of starting with findAll().
+ *
+ * The cache is written every {@code catalog.snapshot.write-interval-ms} as
+ * a header (magic, format, syncedAt, count) followed by one length-prefixed
+ * BSON document per product, encoded with the mapping converter so new
+ * Product fields need no codec changes. At startup the file is memory-mapped
+ * and decoded straight from the mapping into the cache. Once the application
+ * is ready, a background thread catches up: the products whose updatedAt is
+ * after the file's syncedAt (minus {@link #CLOCK_SKEW_MS}) and the ids of all
+ * products, to drop the deleted ones. An empty path turns it off.
+ */
+@Component
+public class CatalogSnapshotFile {
+    static final int MAGIC = 0x43415453;   // "CATS"
+    static final int FORMAT = 1;
+    // updatedAt comes from the clocks of several app servers and the database
+    static final long CLOCK_SKEW_MS = 60_000;
+
+    private final ProductCatalogCache catalogCache;
+    private final MongoTemplate mongoTemplate;
+    private final Path path;
+    private final DocumentCodec codec = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private volatile long warmStartedAt = -1;
+
+    public CatalogSnapshotFile(ProductCatalogCache catalogCache,
+                               MongoTemplate mongoTemplate,
+                               @Value("${catalog.snapshot.file:}") String path) {
+        this.catalogCache = catalogCache;
+        this.mongoTemplate = mongoTemplate;
+        this.path = path == null || path.isBlank() ? null : Paths.get(path);
+    }
+
+    /** Fills the cache from the file before the first request can trigger a findAll(). */
+    @PostConstruct
+    public void load() {
+        if (path == null || !Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            ProductCatalogCache.SyncedProducts saved = read(path);
+            if (catalogCache.warmStart(saved)) {
+                warmStartedAt = saved.syncedAt();
+                System.out.println("Catalog snapshot loaded from " + path + ": " + saved.products().size() + " products");
+            }
+        } catch (IOException | RuntimeException e) {
+            // a broken file only costs us the warm start
+            System.err.println("Could not load catalog snapshot " + path + ": " + e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (warmStartedAt < 0) {
+            return;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                catchUp(warmStartedAt);
+            } catch (RuntimeException e) {
+                // the regular max-age reload still brings the snapshot up to date
+                System.err.println("Catalog snapshot catch-up failed: " + e.getMessage());
+            }
+        }, "catalog-snapshot-catch-up");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Scheduled(initialDelayString = "${catalog.snapshot.write-interval-ms:600000}",
+            fixedDelayString = "${catalog.snapshot.write-interval-ms:600000}")
+    public void write() {
+        if (path == null) {
+            return;
+        }
+        catalogCache.synced().ifPresent(synced -> {
+            try {
+                write(synced, path);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not write catalog snapshot " + path + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /** Applies the changes made in Mongo since syncedAt; returns how many products were re-read. */
+    int catchUp(long syncedAt) {
+        long started = System.currentTimeMillis();
+        Query changedSince = new Query(Criteria.where("updatedAt").gte(new Date(syncedAt - CLOCK_SKEW_MS)));
+        List<Product> changed = mongoTemplate.find(changedSince, Product.class);
+
+        Query allIds = new Query();
+        allIds.fields().include("_id");
+        Set<String> existing;
+        try (Stream<Product> ids = mongoTemplate.stream(allIds, Product.class)) {
+            existing = ids.map(Product::getProductId).collect(Collectors.toSet());
+        }
+        catalogCache.catchUp(changed, existing, started);
+        return changed.size();
+    }
+
+    void write(ProductCatalogCache.SyncedProducts synced, Path target) throws IOException {
+        MongoConverter converter = mongoTemplate.getConverter();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(synced.syncedAt());
+            out.writeInt(synced.products().size());
+            for (Product product : synced.products()) {
+                Document document = new Document();
+                converter.write(product, document);
+                BasicOutputBuffer buffer = new BasicOutputBuffer();
+                codec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+                out.writeInt(buffer.getPosition());
+                buffer.pipe(out);
+            }
+        }
+        // readers never see a half-written file
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    ProductCatalogCache.SyncedProducts read(Path source) throws IOException {
+        MongoConverter converter = mongoTemplate.getConverter();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT) {
+                throw new IOException("not a catalog snapshot (format " + FORMAT + ")");
+            }
+            long syncedAt = mapped.getLong();
+            int count = mapped.getInt();
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = mapped.getInt();
+                ByteBuffer bson = mapped.slice(mapped.position(), length);
+                mapped.position(mapped.position() + length);
+                Document document = codec.decode(new BsonBinaryReader(bson), DecoderContext.builder().build());
+                products.add(converter.read(Product.class, document));
+            }
+            return new ProductCatalogCache.SyncedProducts(syncedAt, products);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.cs308.backend.services;
+
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the catalog ETags.
+ *
+ * One global counter is bumped on every catalog change. The new value is then
+ * recorded for the affected product and category, so every per-key version
+ * is monotonic too. A snapshot reload can bring in changes we never saw (other
+ * nodes, manual edits), so it bumps everything at once through
+ * a reset version. ETags also carry a boot epoch, so tags issued before a
+ * restart never match again. Reading a version never touches Mongo.
+ */
+@Component
+public class CatalogVersions {
+    /** Clients may store catalog responses but must revalidate them with If-None-Match. */
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLong resetVersion = new AtomicLong();
+    private final AtomicLong categoriesVersion = new AtomicLong();
+    private final Map<String, Long> productVersions = new ConcurrentHashMap<>();
+    private final Map<String, Long> categoryVersions = new ConcurrentHashMap<>();
+
+    /** A product was saved or deleted; pass its old and new category when known. */
+    public void productChanged(String productId, String previousCategoryId, String categoryId, boolean membershipChanged) {
+        long version = global.incrementAndGet();
+        productVersions.merge(productId, version, Math::max);
+        bumpCategory(previousCategoryId, version);
+        bumpCategory(categoryId, version);
+        if (membershipChanged) {
+            // category documents carry their product count
+            categoriesVersion.accumulateAndGet(version, Math::max);
+        }
+    }
+
+    /** A category was added, renamed or deleted. */
+    public void categoryChanged(String categoryId) {
+        long version = global.incrementAndGet();
+        bumpCategory(categoryId, version);
+        categoriesVersion.accumulateAndGet(version, Math::max);
+    }
+
+    /** Everything may have changed (e.g. the snapshot was reloaded from Mongo). */
+    public void changedAll() {
+        long version = global.incrementAndGet();
+        resetVersion.accumulateAndGet(version, Math::max);
+        categoriesVersion.accumulateAndGet(version, Math::max);
+    }
+
+    public long globalVersion() {
+        return global.get();
+    }
+
+    public String productETag(String productId) {
+        return etag("p", Math.max(resetVersion.get(), productVersions.getOrDefault(productId, 0L)));
+    }
+
+    public String categoryETag(String categoryId) {
+        return etag("c", Math.max(resetVersion.get(), categoryVersions.getOrDefault(categoryId, 0L)));
+    }
+
+    public String categoriesETag() {
+        return etag("cats", Math.max(resetVersion.get(), categoriesVersion.get()));
+    }
+
+    /** If-None-Match check (weak comparison, as RFC 9110 asks for this header). */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void bumpCategory(String categoryId, long version) {
+        if (categoryId != null) {
+            categoryVersions.merge(categoryId, version, Math::max);
+        }
+    }
+
+    private String etag(String kind, long version) {
+        return "\"" + kind + "-" + epoch + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,87 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.Review;
+import com.cs308.backend.models.User;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Deletes a category with everything that hangs off its products: per chunk
+ * the reviews and wishlist entries are removed first, then the products, so
+ * a replayed chunk still finds its products. The category document goes
+ * last, once no product points at it.
+ */
+@Component
+public class CategoryDeleteTask implements JobTask<Product> {
+    public static final String TYPE = "delete-category";
+    public static final String CATEGORY_ID = "categoryId";
+
+    private final MongoTemplate mongoTemplate;
+    private final CategoryService categoryService;
+    private final ProductCatalogCache catalogCache;
+
+    public CategoryDeleteTask(MongoTemplate mongoTemplate, CategoryService categoryService, ProductCatalogCache catalogCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.categoryService = categoryService;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Product> entityType() {
+        return Product.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        return Criteria.where("categoryId").is(params.get(CATEGORY_ID));
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id");
+    }
+
+    @Override
+    public String idOf(Product product) {
+        return product.getProductId();
+    }
+
+    @Override
+    public int apply(List<Product> chunk, Map<String, String> params, BulkOperations ops) {
+        List<String> ids = chunk.stream().map(Product::getProductId).toList();
+        mongoTemplate.remove(new Query(Criteria.where("productId").in(ids)), Review.class);
+        mongoTemplate.updateMulti(new Query(Criteria.where("wishList").in(ids)),
+                new Update().pullAll("wishList", ids.toArray()), User.class);
+        ops.remove(new Query(new Criteria().andOperator(criteria(params), Criteria.where("_id").in(ids))));
+        return 1;
+    }
+
+    @Override
+    public void afterChunk(List<Product> chunk, Map<String, String> params) {
+        chunk.forEach(p -> catalogCache.evict(p.getProductId()));
+    }
+
+    @Override
+    public void onComplete(Map<String, String> params) {
+        try {
+            categoryService.deleteCategory(params.get(CATEGORY_ID));
+        } catch (NoSuchElementException e) {
+            // already deleted by an earlier run of this job
+        }
+    }
+}
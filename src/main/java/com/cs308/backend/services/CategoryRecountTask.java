@@ -0,0 +1,83 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Category;
+import com.cs308.backend.models.Product;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recomputes Category.productCount from the products (one indexed count per
+ * category) and drops the old embedded productIds array. With
+ * {@link #MISSING_ONLY} it only counts the categories stored before the
+ * count existed, which {@link DataMigrations} runs on startup; run it in
+ * full whenever the counts look off.
+ */
+@Component
+public class CategoryRecountTask implements JobTask<Category> {
+    public static final String TYPE = "recount-category-products";
+    public static final Map<String, String> MISSING_ONLY = Map.of("missingOnly", "true");
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogVersions catalogVersions;
+
+    public CategoryRecountTask(MongoTemplate mongoTemplate, CatalogVersions catalogVersions) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogVersions = catalogVersions;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Category> entityType() {
+        return Category.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        if (missingOnly(params)) {
+            return Criteria.where("productCount").exists(false);
+        }
+        return Criteria.where("_id").exists(true);
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id");
+    }
+
+    @Override
+    public String idOf(Category category) {
+        return category.getCategoryId();
+    }
+
+    @Override
+    public int apply(List<Category> chunk, Map<String, String> params, BulkOperations ops) {
+        for (Category category : chunk) {
+            long count = mongoTemplate.count(new Query(Criteria.where("categoryId").is(category.getCategoryId())), Product.class);
+            Criteria target = Criteria.where("_id").is(category.getCategoryId());
+            ops.updateOne(new Query(missingOnly(params) ? target.and("productCount").exists(false) : target),
+                    new Update().set("productCount", count).unset("productIds"));
+        }
+        return chunk.size();
+    }
+
+    @Override
+    public void afterChunk(List<Category> chunk, Map<String, String> params) {
+        chunk.forEach(c -> catalogVersions.categoryChanged(c.getCategoryId()));
+    }
+
+    private static boolean missingOnly(Map<String, String> params) {
+        return "true".equals(params.get("missingOnly"));
+    }
+}
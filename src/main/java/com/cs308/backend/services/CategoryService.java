@@ -2,6 +2,7 @@ package com.cs308.backend.services;
 
 import com.cs308.backend.models.Category;
 import com.cs308.backend.repositories.CategoryRepository;
+import com.cs308.backend.repositories.ProductRepository;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -10,9 +11,16 @@ import java.util.*;
 @Service
 public class CategoryService {
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final SearchSuggestService searchSuggestService;
+    private final CatalogVersions catalogVersions;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ProductRepository productRepository,
+                           SearchSuggestService searchSuggestService, CatalogVersions catalogVersions) {
         this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.searchSuggestService = searchSuggestService;
+        this.catalogVersions = catalogVersions;
     }
 
     public ResponseEntity<String> addCategory(Category category, String categoryName) {
@@ -21,8 +29,10 @@ public class CategoryService {
         if (categoryName == null || categoryName == "")
             return ResponseEntity.badRequest().body("Category name cannot be null or empty!");
         category.setCategoryName(categoryName);
-        category.setProductIds(new ArrayList<>());
-        categoryRepository.save(category);
+        category.setProductCount(0);
+        Category saved = categoryRepository.save(category);
+        catalogVersions.categoryChanged(saved != null ? saved.getCategoryId() : null);
+        searchSuggestService.onCategorySaved(saved);
         return ResponseEntity.ok("Category added successfully!");
     }
 
@@ -35,8 +45,19 @@ public class CategoryService {
     }
 
 
+    public boolean exists(String categoryId) {
+        return categoryRepository.existsById(categoryId);
+    }
+
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        List<Category> categories = categoryRepository.findAll();
+        for (Category category : categories) {
+            if (category.getProductCount() == null) {
+                // stored before the count existed and not recounted yet: counted on the categoryId index
+                category.setProductCount((int) productRepository.countByCategoryId(category.getCategoryId()));
+            }
+        }
+        return categories;
     }
 
     public void deleteCategory(String categoryId) {
@@ -44,6 +65,8 @@ public class CategoryService {
             throw new NoSuchElementException("Category not found: " + categoryId);
         }
         categoryRepository.deleteById(categoryId);
+        catalogVersions.categoryChanged(categoryId);
+        searchSuggestService.onCategoryRemoved(categoryId);
     }
 
 
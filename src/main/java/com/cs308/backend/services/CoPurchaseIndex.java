@@ -0,0 +1,284 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Order;
+import com.cs308.backend.util.IntCountMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * "Frequently bought together": how often two products were paid for in the
+ * same order. Products get dense int slots; each slot has a sparse row of
+ * co-purchase counts ({@link IntCountMap}) and its top {@link #TOP_K}
+ * neighbours, kept sorted on every update, so a lookup only copies at most
+ * K ids.
+ *
+ * The matrix is built from the paid, unrefunded orders on a background
+ * thread after startup (or on first use if that is switched off or failed;
+ * lookups return nothing until it is loaded) and updated by PaymentService
+ * for every newly paid order. {@link CoPurchaseRebuildTask}
+ * recomputes it from scratch in the background and swaps it in. The rebuild
+ * only scans orders paid before it started; orders recorded while it runs
+ * are kept aside and replayed into the new matrix at the swap, so none are
+ * lost. Like the catalog snapshot, every node keeps its own matrix.
+ */
+@Component
+public class CoPurchaseIndex {
+    public static final int TOP_K = 20;
+    // a huge order adds n^2 pairs with little signal; only its first products are paired
+    static final int MAX_PRODUCTS_PER_ORDER = 50;
+    // orders kept aside for a running rebuild; past this the rebuild is given up
+    static final int MAX_PENDING_ORDERS = 100_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean loadOnStartup;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Matrix matrix;   // null until loaded
+    private final AtomicBoolean loading = new AtomicBoolean();
+    // guarded by lock; null unless a rebuild is running
+    private Rebuild rebuild;
+
+    private record Rebuild(LocalDateTime startedAt, List<Collection<String>> pending) {
+    }
+
+    public CoPurchaseIndex(MongoTemplate mongoTemplate,
+                           @Value("${co-purchases.load-on-startup:true}") boolean loadOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (loadOnStartup) {
+            loadInBackground();
+        }
+    }
+
+    /** Paid orders that count as bought together: refunded ones do not, as for recommendations. */
+    static boolean counts(Order order) {
+        return !"Refunded".equalsIgnoreCase(order.getStatus());
+    }
+
+    /**
+     * Ids of the products most often bought together with this one, most
+     * frequent first; empty while the matrix is still loading.
+     */
+    public List<String> related(String productId, int limit) {
+        Matrix current = matrix;
+        if (current == null) {
+            loadInBackground();
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return current.related(productId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Counts the products of an order paid at paidAt as bought together. */
+    public void recordOrder(Collection<String> productIds, LocalDateTime paidAt) {
+        lock.writeLock().lock();
+        try {
+            // not loaded yet: the first load reads the order from Mongo
+            if (matrix != null) {
+                matrix.addOrder(productIds);
+            }
+            // paid after the rebuild's scan cut-off: the new matrix gets it at the swap
+            if (rebuild != null && (paidAt == null || !paidAt.isBefore(rebuild.startedAt()))) {
+                if (rebuild.pending().size() < MAX_PENDING_ORDERS) {
+                    rebuild.pending().add(productIds);
+                } else {
+                    System.err.println("Co-purchase rebuild fell too far behind; keeping the live matrix");
+                    rebuild = null;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Matrix current = matrix;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", current != null);
+        if (current != null) {
+            lock.readLock().lock();
+            try {
+                stats.put("products", current.idBySlot.size());
+                stats.put("orders", current.orders);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Starts keeping aside the orders recorded from now on; returns the
+     * cut-off, the rebuild scans the orders paid before it.
+     */
+    LocalDateTime startRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuild = new Rebuild(LocalDateTime.now(), new ArrayList<>());
+            return rebuild.startedAt();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Swaps in a matrix built by the rebuild job that started at startedAt,
+     * after replaying the orders recorded since. Returns false (and keeps the
+     * live matrix) if that rebuild is no longer the running one.
+     */
+    boolean replace(Matrix rebuilt, LocalDateTime startedAt) {
+        lock.writeLock().lock();
+        try {
+            if (rebuild == null || !rebuild.startedAt().equals(startedAt)) {
+                return false;
+            }
+            rebuild.pending().forEach(rebuilt::addOrder);
+            matrix = rebuilt;
+            rebuild = null;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // one load at a time; a failed one is retried by the next lookup
+    private void loadInBackground() {
+        if (matrix != null || !loading.compareAndSet(false, true)) {
+            return;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                System.err.println("Could not load co-purchases: " + e.getMessage());
+            } finally {
+                loading.set(false);
+            }
+        }, "co-purchase-load");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Builds the matrix from the paid orders unless it is loaded already. */
+    synchronized Matrix load() {
+        if (matrix == null) {
+            Matrix loaded = new Matrix();
+            Query paid = new Query(Criteria.where("paid").is(true));
+            paid.fields().include("productIds", "status");
+            try (Stream<Order> orders = mongoTemplate.stream(paid, Order.class)) {
+                orders.filter(CoPurchaseIndex::counts).forEach(order -> loaded.addOrder(order.getProductIds()));
+            }
+            matrix = loaded;
+        }
+        return matrix;
+    }
+
+    /** The co-purchase counts and top-K lists. Not thread-safe on its own. */
+    static final class Matrix {
+        private final Map<String, Integer> slotById = new HashMap<>();
+        private final List<String> idBySlot = new ArrayList<>();
+        private final List<IntCountMap> rows = new ArrayList<>();
+        // neighbour slots of every product, highest count first
+        private final List<int[]> top = new ArrayList<>();
+        private long orders;
+
+        void addOrder(Collection<String> productIds) {
+            if (productIds == null) {
+                return;
+            }
+            int[] slots = productIds.stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .limit(MAX_PRODUCTS_PER_ORDER)
+                    .mapToInt(this::slotOf)
+                    .toArray();
+            if (slots.length < 2) {
+                return;
+            }
+            orders++;
+            for (int a : slots) {
+                for (int b : slots) {
+                    if (a != b) {
+                        promote(a, b, rows.get(a).add(b, 1));
+                    }
+                }
+            }
+        }
+
+        List<String> related(String productId, int limit) {
+            Integer slot = slotById.get(productId);
+            if (slot == null || limit <= 0) {
+                return List.of();
+            }
+            int[] neighbours = top.get(slot);
+            List<String> ids = new ArrayList<>(Math.min(limit, neighbours.length));
+            for (int i = 0; i < neighbours.length && i < limit; i++) {
+                ids.add(idBySlot.get(neighbours[i]));
+            }
+            return ids;
+        }
+
+        int count(String productId, String otherId) {
+            Integer a = slotById.get(productId);
+            Integer b = slotById.get(otherId);
+            return a == null || b == null ? 0 : rows.get(a).get(b);
+        }
+
+        private int slotOf(String productId) {
+            return slotById.computeIfAbsent(productId, id -> {
+                idBySlot.add(id);
+                rows.add(new IntCountMap());
+                top.add(new int[0]);
+                return idBySlot.size() - 1;
+            });
+        }
+
+        // counts only grow, so b can only move up in a's top list (or enter it)
+        private void promote(int a, int b, int count) {
+            IntCountMap row = rows.get(a);
+            int[] neighbours = top.get(a);
+            int pos = -1;
+            for (int i = 0; i < neighbours.length; i++) {
+                if (neighbours[i] == b) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) {
+                if (neighbours.length < TOP_K) {
+                    neighbours = Arrays.copyOf(neighbours, neighbours.length + 1);
+                    top.set(a, neighbours);
+                } else if (count <= row.get(neighbours[neighbours.length - 1])) {
+                    return;
+                }
+                pos = neighbours.length - 1;
+                neighbours[pos] = b;
+            }
+            while (pos > 0 && row.get(neighbours[pos - 1]) < count) {
+                neighbours[pos] = neighbours[pos - 1];
+                neighbours[pos - 1] = b;
+                pos--;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Order;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recomputes the co-purchase matrix from all paid orders (refunded ones
+ * skipped, like the index's own load), reading them in chunks into a fresh
+ * matrix that replaces the live one at the end. Orders
+ * paid after the job started are left to the index, which replays them into
+ * the new matrix at the swap. Nothing is written to Mongo. A run resumed
+ * after a restart has lost its partial matrix and only finishes the job:
+ * the restarted node loads its matrix from the orders after startup anyway.
+ */
+@Component
+public class CoPurchaseRebuildTask implements JobTask<Order> {
+    public static final String TYPE = "rebuild-co-purchases";
+
+    private final CoPurchaseIndex coPurchaseIndex;
+    private volatile CoPurchaseIndex.Matrix building;
+    private volatile LocalDateTime startedAt;
+
+    public CoPurchaseRebuildTask(CoPurchaseIndex coPurchaseIndex) {
+        this.coPurchaseIndex = coPurchaseIndex;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Order> entityType() {
+        return Order.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        Criteria paid = Criteria.where("paid").is(true);
+        LocalDateTime cutOff = startedAt;
+        if (cutOff == null) {
+            return paid;
+        }
+        // orders without paidAt were paid before it existed or by hand, and are never recorded live
+        return paid.orOperator(Criteria.where("paidAt").lt(cutOff), Criteria.where("paidAt").is(null));
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id", "productIds", "status");
+    }
+
+    @Override
+    public String idOf(Order order) {
+        return order.getOrderId();
+    }
+
+    @Override
+    public void onStart(Map<String, String> params) {
+        building = new CoPurchaseIndex.Matrix();
+        startedAt = coPurchaseIndex.startRebuild();
+    }
+
+    @Override
+    public int apply(List<Order> chunk, Map<String, String> params, BulkOperations ops) {
+        CoPurchaseIndex.Matrix matrix = building;
+        if (matrix != null) {
+            chunk.stream().filter(CoPurchaseIndex::counts).forEach(order -> matrix.addOrder(order.getProductIds()));
+        }
+        return 0;
+    }
+
+    @Override
+    public void onComplete(Map<String, String> params) {
+        CoPurchaseIndex.Matrix matrix = building;
+        if (matrix != null) {
+            if (!coPurchaseIndex.replace(matrix, startedAt)) {
+                System.err.println("Co-purchase rebuild was abandoned; the live matrix stays in place");
+            }
+            building = null;
+            startedAt = null;
+        }
+    }
+}
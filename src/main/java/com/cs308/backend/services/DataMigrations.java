@@ -0,0 +1,75 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.BackgroundJob;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings documents written by older versions up to date without anyone
+ * having to start a job by hand: after startup every migration job that
+ * still has documents to fix is queued. JobService runs them one at a time
+ * in the background, resumes them after a restart and never queues the same
+ * job twice, so every node can do this on boot. Until a migration has run,
+ * the code reading those documents copes with the old shape; a migration
+ * found with nothing left to do tells that code it can stop.
+ */
+@Component
+public class DataMigrations {
+
+    record Migration(String type, Map<String, String> params, Runnable upToDate) {
+    }
+
+    private final JobService jobService;
+    private final List<Migration> migrations;
+    private final boolean enabled;
+
+    public DataMigrations(JobService jobService,
+                          ReviewService reviewService,
+                          @Value("${migrations.run-on-startup:true}") boolean enabled) {
+        this.jobService = jobService;
+        this.migrations = List.of(
+                // products rated before ratingSum / ratingCount / ratingHistogram existed
+                new Migration(RatingAggregatesTask.TYPE, RatingAggregatesTask.MISSING_ONLY, () -> { }),
+                // categories stored with an embedded productIds array instead of productCount
+                new Migration(CategoryRecountTask.TYPE, CategoryRecountTask.MISSING_ONLY, () -> { }),
+                // reviews posted before the review feed
+                new Migration(ReviewFeedFieldsTask.TYPE, Map.of(), reviewService::markFeedFieldsBackfilled));
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::run, "data-migrations");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Queues every migration with work left; returns how many were queued. */
+    public int run() {
+        int queued = 0;
+        for (Migration migration : migrations) {
+            try {
+                BackgroundJob job = jobService.submitIfPending(migration.type(), migration.params());
+                if (job == null) {
+                    migration.upToDate().run();
+                } else {
+                    System.out.println("Data migration queued: " + migration.type() + " (job " + job.getJobId() + ")");
+                    queued++;
+                }
+            } catch (RuntimeException e) {
+                // e.g. the cluster is unreachable; the next start tries again
+                System.err.println("Could not queue data migration " + migration.type() + ": " + e.getMessage());
+            }
+        }
+        return queued;
+    }
+}
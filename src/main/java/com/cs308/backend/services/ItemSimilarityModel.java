@@ -0,0 +1,166 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.util.IntCountMap;
+
+import java.util.*;
+
+/**
+ * Item-to-item cosine similarity over what users bought (weight 2) and put
+ * on their wishlist (weight 1), and the recommendations derived from it: a
+ * user's candidates are the nearest neighbours of their own products, scored
+ * by weight x similarity, minus the products they already have.
+ *
+ * Weights are small ints so the co-occurrence dot products fit in
+ * {@link IntCountMap} rows. Read-only once built, so many threads can
+ * compute recommendations from one model.
+ */
+final class ItemSimilarityModel {
+    static final int PURCHASE_WEIGHT = 2;
+    static final int WISHLIST_WEIGHT = 1;
+    // bounds the pairs one very active user adds
+    static final int MAX_ITEMS_PER_USER = 200;
+    // most similar items kept per item
+    static final int NEIGHBOURS = 50;
+
+    private final Map<String, Integer> slotById;
+    private final List<String> idBySlot;
+    private final Map<String, IntCountMap> itemsByUser;
+    private final int[][] neighbours;
+    private final float[][] similarities;
+
+    private ItemSimilarityModel(Map<String, Integer> slotById, List<String> idBySlot, Map<String, IntCountMap> itemsByUser,
+                                int[][] neighbours, float[][] similarities) {
+        this.slotById = slotById;
+        this.idBySlot = idBySlot;
+        this.itemsByUser = itemsByUser;
+        this.neighbours = neighbours;
+        this.similarities = similarities;
+    }
+
+    /** Up to n product ids for the user, best first; empty for users without purchases or wishlist. */
+    List<String> recommend(String userId, int n) {
+        IntCountMap own = itemsByUser.get(userId);
+        if (own == null) {
+            return List.of();
+        }
+        Map<Integer, Double> scores = new HashMap<>();
+        own.forEach((item, weight) -> {
+            int[] near = neighbours[item];
+            for (int k = 0; k < near.length; k++) {
+                if (own.get(near[k]) == 0) {
+                    scores.merge(near[k], weight * (double) similarities[item][k], Double::sum);
+                }
+            }
+        });
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(e -> idBySlot.get(e.getKey())))
+                .limit(n)
+                .map(e -> idBySlot.get(e.getKey()))
+                .toList();
+    }
+
+    double similarity(String productId, String otherId) {
+        Integer a = slotById.get(productId);
+        Integer b = slotById.get(otherId);
+        if (a == null || b == null) {
+            return 0;
+        }
+        for (int k = 0; k < neighbours[a].length; k++) {
+            if (neighbours[a][k] == b) {
+                return similarities[a][k];
+            }
+        }
+        return 0;
+    }
+
+    static final class Builder {
+        private final Map<String, Integer> slotById = new HashMap<>();
+        private final List<String> idBySlot = new ArrayList<>();
+        private final Map<String, IntCountMap> itemsByUser = new HashMap<>();
+
+        Builder addPurchases(String userId, Collection<String> productIds) {
+            return add(userId, productIds, PURCHASE_WEIGHT);
+        }
+
+        Builder addWishlist(String userId, Collection<String> productIds) {
+            return add(userId, productIds, WISHLIST_WEIGHT);
+        }
+
+        // a product counts once per user, with its strongest weight
+        private Builder add(String userId, Collection<String> productIds, int weight) {
+            if (userId == null || productIds == null) {
+                return this;
+            }
+            IntCountMap items = itemsByUser.computeIfAbsent(userId, id -> new IntCountMap());
+            for (String productId : productIds) {
+                if (productId == null) {
+                    continue;
+                }
+                int slot = slotById.computeIfAbsent(productId, id -> {
+                    idBySlot.add(id);
+                    return idBySlot.size() - 1;
+                });
+                int current = items.get(slot);
+                if (current == 0 && items.size() >= MAX_ITEMS_PER_USER) {
+                    continue;
+                }
+                if (weight > current) {
+                    items.add(slot, weight - current);
+                }
+            }
+            return this;
+        }
+
+        ItemSimilarityModel build() {
+            int n = idBySlot.size();
+            long[] normSquared = new long[n];
+            IntCountMap[] dots = new IntCountMap[n];
+            for (int i = 0; i < n; i++) {
+                dots[i] = new IntCountMap();
+            }
+            for (IntCountMap items : itemsByUser.values()) {
+                int[] slots = new int[items.size()];
+                int[] weights = new int[items.size()];
+                int[] next = {0};
+                items.forEach((slot, weight) -> {
+                    slots[next[0]] = slot;
+                    weights[next[0]++] = weight;
+                });
+                for (int a = 0; a < slots.length; a++) {
+                    normSquared[slots[a]] += (long) weights[a] * weights[a];
+                    for (int b = 0; b < slots.length; b++) {
+                        if (a != b) {
+                            dots[slots[a]].add(slots[b], weights[a] * weights[b]);
+                        }
+                    }
+                }
+            }
+
+            int[][] neighbours = new int[n][];
+            float[][] similarities = new float[n][];
+            for (int a = 0; a < n; a++) {
+                List<int[]> row = new ArrayList<>(dots[a].size());
+                dots[a].forEach((b, dot) -> row.add(new int[]{b, dot}));
+                double normA = Math.sqrt(normSquared[a]);
+                double[] cosine = new double[row.size()];
+                for (int k = 0; k < row.size(); k++) {
+                    cosine[k] = row.get(k)[1] / (normA * Math.sqrt(normSquared[row.get(k)[0]]));
+                }
+                Integer[] order = new Integer[row.size()];
+                for (int k = 0; k < order.length; k++) {
+                    order[k] = k;
+                }
+                Arrays.sort(order, (x, y) -> Double.compare(cosine[y], cosine[x]));
+                int keep = Math.min(NEIGHBOURS, order.length);
+                neighbours[a] = new int[keep];
+                similarities[a] = new float[keep];
+                for (int k = 0; k < keep; k++) {
+                    neighbours[a][k] = row.get(order[k])[0];
+                    similarities[a][k] = (float) cosine[order[k]];
+                }
+            }
+            return new ItemSimilarityModel(slotById, idBySlot, itemsByUser, neighbours, similarities);
+        }
+    }
+}
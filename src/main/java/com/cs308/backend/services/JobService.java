@@ -0,0 +1,229 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.BackgroundJob;
+import com.mongodb.bulk.BulkWriteResult;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs {@link JobTask}s in the background, one job at a time.
+ *
+ * Jobs live in the jobs collection. A runner claims a job atomically
+ * (findAndModify), walks the matching documents in chunks of
+ * {@link #CHUNK_SIZE} and records the checkpoint, counters and a heartbeat
+ * after every chunk. A RUNNING job whose heartbeat is older than
+ * {@link #LEASE} is treated as orphaned (the node died or restarted) and is
+ * claimed again, continuing from its checkpoint. Queued and orphaned jobs
+ * are picked up on submit and by a periodic poll.
+ */
+@Service
+public class JobService {
+    public static final int CHUNK_SIZE = 500;
+    static final Duration LEASE = Duration.ofMinutes(2);
+
+    private static final List<BackgroundJob.Status> ACTIVE =
+            List.of(BackgroundJob.Status.QUEUED, BackgroundJob.Status.RUNNING);
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, JobTask<?>> tasks = new LinkedHashMap<>();
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "background-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JobService(MongoTemplate mongoTemplate,
+                      List<JobTask<?>> tasks,
+                      @Value("${jobs.runner.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        for (JobTask<?> task : tasks) {
+            this.tasks.put(task.type(), task);
+        }
+        this.enabled = enabled;
+    }
+
+    public BackgroundJob submit(String type) {
+        return submit(type, Map.of());
+    }
+
+    /**
+     * Queues a job of the given type, or returns the one with the same
+     * params already queued or running so repeated clicks do not start the
+     * same work twice.
+     */
+    public BackgroundJob submit(String type, Map<String, String> params) {
+        if (!tasks.containsKey(type)) {
+            throw new IllegalArgumentException("Unknown job type: " + type);
+        }
+        // sorted, so equal params are stored (and matched) as the same document
+        Map<String, String> sortedParams = new TreeMap<>(params);
+        BackgroundJob active = mongoTemplate.findOne(new Query(Criteria.where("type").is(type)
+                .and("status").in(ACTIVE)
+                .and("params").is(sortedParams)), BackgroundJob.class);
+        if (active != null) {
+            return active;
+        }
+        BackgroundJob job = new BackgroundJob();
+        job.setType(type);
+        job.setParams(sortedParams);
+        job.setStatus(BackgroundJob.Status.QUEUED);
+        job.setCreatedAt(LocalDateTime.now());
+        BackgroundJob saved = mongoTemplate.insert(job);
+        wakeUp();
+        return saved;
+    }
+
+    /**
+     * Like {@link #submit(String, Map)}, but only if some document still
+     * matches the job's criteria; returns null when there is nothing to do.
+     */
+    public BackgroundJob submitIfPending(String type, Map<String, String> params) {
+        JobTask<?> task = tasks.get(type);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown job type: " + type);
+        }
+        if (!mongoTemplate.exists(new Query(task.criteria(params)), task.entityType())) {
+            return null;
+        }
+        return submit(type, params);
+    }
+
+    public Optional<BackgroundJob> getJob(String jobId) {
+        return Optional.ofNullable(mongoTemplate.findById(jobId, BackgroundJob.class));
+    }
+
+    public List<BackgroundJob> recentJobs(int limit) {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "createdAt")).limit(Math.max(1, Math.min(limit, 100)));
+        return mongoTemplate.find(query, BackgroundJob.class);
+    }
+
+    /** Resumes jobs left behind by a restart and runs anything still queued. */
+    @Scheduled(initialDelayString = "${jobs.poll-interval-ms:30000}", fixedDelayString = "${jobs.poll-interval-ms:30000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void wakeUp() {
+        if (enabled) {
+            executor.execute(this::drain);
+        }
+    }
+
+    void drain() {
+        try {
+            BackgroundJob job;
+            while ((job = claimNext()) != null) {
+                run(job);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Background job runner: " + e.getMessage());
+        }
+    }
+
+    BackgroundJob claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(BackgroundJob.Status.QUEUED),
+                Criteria.where("status").is(BackgroundJob.Status.RUNNING).and("heartbeatAt").lt(now.minus(LEASE))))
+                .with(Sort.by("createdAt"));
+        Update claim = new Update()
+                .set("status", BackgroundJob.Status.RUNNING)
+                .set("owner", nodeId)
+                .set("heartbeatAt", now);
+        return mongoTemplate.findAndModify(claimable, claim, FindAndModifyOptions.options().returnNew(true), BackgroundJob.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> void run(BackgroundJob job) {
+        JobTask<T> task = (JobTask<T>) tasks.get(job.getType());
+        if (task == null) {
+            finish(job, BackgroundJob.Status.FAILED, "Unknown job type: " + job.getType());
+            return;
+        }
+        Map<String, String> params = job.getParams() != null ? job.getParams() : Map.of();
+        try {
+            if (job.getStartedAt() == null) {
+                long total = mongoTemplate.count(new Query(task.criteria(params)), task.entityType());
+                if (!updateOwned(job, new Update().set("startedAt", LocalDateTime.now()).set("total", total))) {
+                    return;
+                }
+                task.onStart(params);
+            }
+            String checkpoint = job.getCheckpoint();
+            while (true) {
+                List<T> chunk = mongoTemplate.find(chunkQuery(task, params, checkpoint), task.entityType());
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, task.entityType());
+                int modified = 0;
+                if (task.apply(chunk, params, ops) > 0) {
+                    BulkWriteResult result = ops.execute();
+                    modified = result.getModifiedCount() + result.getDeletedCount();
+                }
+                task.afterChunk(chunk, params);
+
+                checkpoint = task.idOf(chunk.get(chunk.size() - 1));
+                Update progress = new Update()
+                        .set("checkpoint", checkpoint)
+                        .inc("processed", chunk.size())
+                        .inc("modified", modified)
+                        .set("heartbeatAt", LocalDateTime.now());
+                if (!updateOwned(job, progress)) {
+                    System.err.println("Job " + job.getJobId() + " was taken over by another runner; stopping here.");
+                    return;
+                }
+            }
+            task.onComplete(params);
+            finish(job, BackgroundJob.Status.COMPLETED, null);
+        } catch (RuntimeException e) {
+            System.err.println("Job " + job.getJobId() + " (" + job.getType() + ") failed: " + e.getMessage());
+            finish(job, BackgroundJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    private static <T> Query chunkQuery(JobTask<T> task, Map<String, String> params, String checkpoint) {
+        Criteria criteria = checkpoint == null
+                ? task.criteria(params)
+                : new Criteria().andOperator(task.criteria(params), Criteria.where("_id").gt(checkpoint));
+        Query query = new Query(criteria).with(Sort.by("_id")).limit(CHUNK_SIZE);
+        task.fields().forEach(query.fields()::include);
+        return query;
+    }
+
+    // only the runner that owns the job may write to it
+    private boolean updateOwned(BackgroundJob job, Update update) {
+        Query owned = new Query(Criteria.where("_id").is(job.getJobId()).and("owner").is(nodeId));
+        return mongoTemplate.updateFirst(owned, update, BackgroundJob.class).getMatchedCount() > 0;
+    }
+
+    private void finish(BackgroundJob job, BackgroundJob.Status status, String error) {
+        updateOwned(job, new Update()
+                .set("status", status)
+                .set("error", error)
+                .set("finishedAt", LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.cs308.backend.services;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One kind of background maintenance job, run by {@link JobService}.
+ *
+ * The runner reads the documents matching {@link #criteria} in _id order,
+ * one chunk at a time, lets the task queue its updates and executes them as
+ * one unordered bulk write, then checkpoints the last _id. A chunk can be
+ * replayed after a crash, so updates must be idempotent (guard them with the
+ * same criteria). {@code params} are the parameters the job was submitted with.
+ */
+public interface JobTask<T> {
+
+    /** Job type used in the API and stored on the job. */
+    String type();
+
+    Class<T> entityType();
+
+    /** Documents that still need work. Called for every chunk, so return a new instance. */
+    Criteria criteria(Map<String, String> params);
+
+    /** Fields to load; empty loads the whole document. */
+    default List<String> fields() {
+        return List.of();
+    }
+
+    String idOf(T entity);
+
+    /** Called once before the first chunk of a new job (not when a job is resumed). */
+    default void onStart(Map<String, String> params) {
+    }
+
+    /** Queues the updates for one chunk and returns how many were queued. */
+    int apply(List<T> chunk, Map<String, String> params, BulkOperations ops);
+
+    /** Called after the chunk's bulk write succeeded. */
+    default void afterChunk(List<T> chunk, Map<String, String> params) {
+    }
+
+    /** Called once every matching document has been processed; may run again if the job is resumed. */
+    default void onComplete(Map<String, String> params) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Order;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/** Masks the stored card number (all but the last 4 digits) and CVV of old orders. */
+@Component
+public class OrderCardSanitizeTask implements JobTask<Order> {
+    public static final String TYPE = "sanitize-order-cards";
+
+    static final String MASKED_CVV = "***";
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Order> entityType() {
+        return Order.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        // a masked number starts with '*' once it is longer than 4 characters
+        return new Criteria().orOperator(
+                Criteria.where("cvv").ne(MASKED_CVV),
+                Criteria.where("cardNumber").regex("^[^*]{5}"));
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id", "cardNumber", "cvv");
+    }
+
+    @Override
+    public String idOf(Order order) {
+        return order.getOrderId();
+    }
+
+    @Override
+    public int apply(List<Order> chunk, Map<String, String> params, BulkOperations ops) {
+        for (Order order : chunk) {
+            Update update = new Update().set("cvv", MASKED_CVV);
+            String rawCard = order.getCardNumber();
+            if (rawCard != null && rawCard.length() >= 4) {
+                update.set("cardNumber", maskCardNumber(rawCard));
+            }
+            ops.updateOne(new Query(Criteria.where("_id").is(order.getOrderId())), update);
+        }
+        return chunk.size();
+    }
+
+    static String maskCardNumber(String cardNumber) {
+        return "*".repeat(cardNumber.length() - 4) + cardNumber.substring(cardNumber.length() - 4);
+    }
+}
@@ -27,10 +27,11 @@ public class OrderService {
     private RefundRequestRepository refundRequestRepository = null;
     private final UserService userService;
     private final JavaMailSender mailSender;
+    private final ProductCatalogCache catalogCache;
 
     public OrderService(OrderRepository orderRepository, CartRepository cartRepository, UserRepository userRepository, ProductRepository productRepository, OrderHistoryRepository orderHistoryRepositoryRefundRequestRepository,
                         RefundRequestRepository refundRequestRepository, UserService userService,
-                        JavaMailSender mailSender) {
+                        JavaMailSender mailSender, ProductCatalogCache catalogCache) {
         this.orderRepository = orderRepository;
         this.cartRepository = cartRepository;
         this.userRepository = userRepository;
@@ -39,6 +40,7 @@ public class OrderService {
         this.userService = userService;
         this.orderHistoryRepository = orderHistoryRepository;
         this.mailSender = mailSender;
+        this.catalogCache = catalogCache;
     }
 
 
@@ -146,7 +148,7 @@ public class OrderService {
 
             productRepository.findById(productId).ifPresent(product -> {
                 product.setStockCount(product.getStockCount() + qty);
-                productRepository.save(product);
+                catalogCache.put(productRepository.save(product));
             });
         }
 
@@ -206,7 +208,7 @@ public class OrderService {
                     .orElseThrow(() -> new IllegalStateException(
                             "Product not found: " + item.getProductId()));
             p.setStockCount(p.getStockCount() + item.getQuantity());  // ✅ correct setter
-            productRepository.save(p);
+            catalogCache.put(productRepository.save(p));
             totalAmount += item.getPrice() * item.getQuantity();
         }
 
@@ -27,8 +27,11 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final InvoiceService invoiceService;
     private final OrderService orderService;
+    private final ProductCatalogCache catalogCache;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final TrendingProducts trendingProducts;
 
-    public PaymentService(OrderRepository orderRepository, CartRepository cartRepository, UserRepository userRepository, ProductRepository productRepository, PaymentRepository paymentRepository, InvoiceService invoiceService, OrderService orderService) {
+    public PaymentService(OrderRepository orderRepository, CartRepository cartRepository, UserRepository userRepository, ProductRepository productRepository, PaymentRepository paymentRepository, InvoiceService invoiceService, OrderService orderService, ProductCatalogCache catalogCache, CoPurchaseIndex coPurchaseIndex, TrendingProducts trendingProducts) {
         this.orderRepository = orderRepository;
         this.cartRepository = cartRepository;
         this.userRepository = userRepository;
@@ -36,6 +39,9 @@ public class PaymentService {
         this.paymentRepository = paymentRepository;
         this.invoiceService = invoiceService;
         this.orderService = orderService;
+        this.catalogCache = catalogCache;
+        this.coPurchaseIndex = coPurchaseIndex;
+        this.trendingProducts = trendingProducts;
     }
 
     private boolean isCardExpired(String expiryDate) {
@@ -103,7 +109,11 @@ public class PaymentService {
         }
 
         // Update order fields
+        boolean newlyPaid = !order.isPaid();
         order.setPaid(true);
+        if (newlyPaid) {
+            order.setPaidAt(LocalDateTime.now());
+        }
         order.setStatus("Processing");
         String maskedCard = "*".repeat(cardNumber.length() - 4) + cardNumber.substring(cardNumber.length() - 4);
         order.setCardNumber(maskedCard);
@@ -118,7 +128,7 @@ public class PaymentService {
             int qty = quantities.get(i);
             productRepository.findById(pid).ifPresent(prod -> {
                 prod.setStockCount(prod.getStockCount() - qty);
-                productRepository.save(prod);
+                catalogCache.put(productRepository.save(prod));
             });
         }
 
@@ -128,6 +138,11 @@ public class PaymentService {
 
         // Save order before email generation
         orderRepository.save(order);
+        if (newlyPaid) {
+            // feeds "frequently bought together" and the trending products
+            coPurchaseIndex.recordOrder(productIds, order.getPaidAt());
+            trendingProducts.recordPurchase(productIds, quantities);
+        }
 
         try {
             // Send email
@@ -0,0 +1,61 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.PricePoint;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only price history, one document per price. ProductService
+ * records every price it sets, together with the list price discounts are
+ * taken from, so a discount can be reverted and past prices looked up. A
+ * lookup reads a single entry off the {productId, t} index.
+ */
+@Service
+public class PriceHistoryService {
+    private final MongoTemplate mongoTemplate;
+
+    public PriceHistoryService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Appends the product's new price. */
+    public PricePoint record(String productId, double price, double listPrice) {
+        return mongoTemplate.insert(new PricePoint(productId, LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS), price, listPrice));
+    }
+
+    /** The product's current entry. */
+    public Optional<PricePoint> latest(String productId) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                new Query(Criteria.where("productId").is(productId)).with(Sort.by(Sort.Direction.DESC, "t")).limit(1),
+                PricePoint.class));
+    }
+
+    /** Every entry of the product, oldest first. */
+    public List<PricePoint> getHistory(String productId) {
+        return mongoTemplate.find(
+                new Query(Criteria.where("productId").is(productId)).with(Sort.by(Sort.Direction.ASC, "t")),
+                PricePoint.class);
+    }
+
+    /** The entry in effect at the given time; empty if it is before the first recorded price. */
+    public Optional<PricePoint> priceAt(String productId, LocalDateTime at) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                new Query(Criteria.where("productId").is(productId).and("t").lte(at))
+                        .with(Sort.by(Sort.Direction.DESC, "t")).limit(1),
+                PricePoint.class));
+    }
+
+    /** Prices are doubles computed from percentages; a cent apart counts as different. */
+    public static boolean samePrice(double a, double b) {
+        return Math.abs(a - b) < 0.005;
+    }
+}
@@ -0,0 +1,235 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.repositories.ProductRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory snapshot of every product, used by the catalog read paths
+ * (sorting, category listings, new arrivals) instead of calling findAll()
+ * on every request.
+ *
+ * Writes that go through the services must call {@link #put(Product)} or
+ * {@link #evict(String)} after saving. Changes made by other nodes are picked
+ * up when the snapshot gets older than {@code catalog.snapshot.max-age-seconds}.
+ * Every change is forwarded to the registered {@link CatalogListener}s and
+ * bumps the {@link CatalogVersions} used for ETags.
+ *
+ * At startup {@link CatalogSnapshotFile} can fill the snapshot from disk
+ * ({@link #warmStart}) and then bring it up to date ({@link #catchUp})
+ * instead of the first findAll().
+ */
+@Component
+public class ProductCatalogCache {
+    /** The products as of syncedAt: every change made in Mongo before that time is in them. */
+    public record SyncedProducts(long syncedAt, Collection<Product> products) {
+    }
+
+    private final ProductRepository productRepository;
+    private final List<CatalogListener> listeners;
+    private final CatalogVersions versions;
+    private final long maxAgeMillis;
+
+    private volatile Map<String, Product> products = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    private volatile long loadedAt = 0L;
+    // when the last full read (or catch-up) of Mongo began
+    private volatile long syncedAt = 0L;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ProductCatalogCache(ProductRepository productRepository,
+                               List<CatalogListener> listeners,
+                               CatalogVersions versions,
+                               @Value("${catalog.snapshot.max-age-seconds:300}") long maxAgeSeconds) {
+        this.productRepository = productRepository;
+        this.listeners = listeners;
+        this.versions = versions;
+        this.maxAgeMillis = maxAgeSeconds * 1000;
+    }
+
+    /** All products in the snapshot, loading or refreshing it first if needed. */
+    public Collection<Product> getAll() {
+        refreshIfStale();
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    /**
+     * Makes sure the snapshot (and therefore every listener index) is loaded
+     * and recent enough. Call before reading from a derived index.
+     */
+    public void refreshIfStale() {
+        (ensureFresh() ? misses : hits).incrementAndGet();
+    }
+
+    public List<Product> getByCategory(String categoryId) {
+        return getAll().stream()
+                .filter(p -> Objects.equals(p.getCategoryId(), categoryId))
+                .toList();
+    }
+
+    /**
+     * Looks a product up in the snapshot. A product missing from the snapshot
+     * (e.g. added by another node) is read from Mongo and remembered.
+     */
+    public Optional<Product> get(String productId) {
+        ensureFresh();
+        Product cached = products.get(productId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        Optional<Product> fromDb = productRepository.findById(productId);
+        fromDb.ifPresent(this::put);
+        return fromDb;
+    }
+
+    /** Write-through hook: call with the saved entity after every product save. */
+    public synchronized void put(Product product) {
+        if (product == null || product.getProductId() == null) {
+            return;
+        }
+        writes.incrementAndGet();
+        if (!loaded) {
+            // we cannot tell what changed without the old version
+            versions.changedAll();
+            return;
+        }
+        Product previous = products.put(product.getProductId(), product);
+        String previousCategory = previous == null ? null : previous.getCategoryId();
+        versions.productChanged(product.getProductId(), previousCategory, product.getCategoryId(),
+                previous == null || !Objects.equals(previousCategory, product.getCategoryId()));
+        for (CatalogListener listener : listeners) {
+            listener.onProductUpdated(previous, product);
+        }
+    }
+
+    /** Write-through hook for deletions. */
+    public synchronized void evict(String productId) {
+        if (productId == null) {
+            return;
+        }
+        evictions.incrementAndGet();
+        Product previous = products.remove(productId);
+        if (previous == null) {
+            versions.changedAll();
+            return;
+        }
+        versions.productChanged(productId, previous.getCategoryId(), null, true);
+        for (CatalogListener listener : listeners) {
+            listener.onProductRemoved(previous);
+        }
+    }
+
+    /** The loaded products for the snapshot file, without refreshing them; empty if nothing is loaded. */
+    public Optional<SyncedProducts> synced() {
+        // read before the products: a reload in between only makes them newer than claimed
+        long since = syncedAt;
+        if (!loaded) {
+            return Optional.empty();
+        }
+        return Optional.of(new SyncedProducts(since, List.copyOf(products.values())));
+    }
+
+    /**
+     * Loads products saved earlier (e.g. the snapshot file), unless the
+     * snapshot is already loaded. They count as fresh until the usual max age.
+     *
+     * @return false if the snapshot was already loaded
+     */
+    public synchronized boolean warmStart(SyncedProducts saved) {
+        if (loaded) {
+            return false;
+        }
+        Map<String, Product> fresh = new ConcurrentHashMap<>();
+        for (Product p : saved.products()) {
+            fresh.put(p.getProductId(), p);
+        }
+        install(fresh, saved.syncedAt());
+        return true;
+    }
+
+    /**
+     * Applies what changed in Mongo since {@link #synced()}: the products
+     * written since then, and the removal of every product no longer in
+     * {@code existingIds}.
+     */
+    public synchronized void catchUp(Collection<Product> changed, Set<String> existingIds, long syncedAt) {
+        if (!loaded) {
+            return;
+        }
+        changed.forEach(this::put);
+        for (String productId : new ArrayList<>(products.keySet())) {
+            if (!existingIds.contains(productId)) {
+                evict(productId);
+            }
+        }
+        this.syncedAt = Math.max(this.syncedAt, syncedAt);
+    }
+
+    /** Drops the whole snapshot; the next read reloads it from Mongo. */
+    public synchronized void invalidate() {
+        loaded = false;
+        products = new ConcurrentHashMap<>();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("version", versions.globalVersion());
+        stats.put("size", products.size());
+        stats.put("loadedAt", loadedAt);
+        stats.put("syncedAt", syncedAt);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("refreshes", refreshes.get());
+        stats.put("writes", writes.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    /** @return true if the snapshot had to be (re)loaded for this read */
+    private boolean ensureFresh() {
+        if (loaded && System.currentTimeMillis() - loadedAt < maxAgeMillis) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    private synchronized void reload() {
+        // another thread may have refreshed while we were waiting for the lock
+        if (loaded && System.currentTimeMillis() - loadedAt < maxAgeMillis) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Map<String, Product> fresh = new ConcurrentHashMap<>();
+        for (Product p : productRepository.findAll()) {
+            fresh.put(p.getProductId(), p);
+        }
+        install(fresh, started);
+        refreshes.incrementAndGet();
+    }
+
+    private void install(Map<String, Product> fresh, long since) {
+        products = fresh;
+        versions.changedAll();
+        for (CatalogListener listener : listeners) {
+            listener.onCatalogReload(fresh.values());
+        }
+        syncedAt = since;
+        loadedAt = System.currentTimeMillis();
+        loaded = true;
+    }
+}
@@ -0,0 +1,328 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitset index for faceted filtering (category, price range, minimum rating,
+ * availability) over the priced products of the catalog snapshot.
+ *
+ * Every product gets a dense slot. Each facet value keeps a {@link BitSet} of
+ * slots, so a filter is a few ANDs and a facet count is a cardinality. Counts
+ * are disjunctive: a facet is counted under all the other filters but not its
+ * own, so the client can still show the alternatives of a selected value.
+ * Price and rating bounds that fall inside a bucket are checked against
+ * primitive arrays.
+ */
+@Component
+public class ProductFacetIndex implements CatalogListener {
+    // lower bounds; the last bucket is open-ended
+    static final double[] PRICE_BOUNDS = {0, 50, 100, 250, 500, 1000, 2500};
+    static final int RATING_BUCKETS = 5;
+
+    /** Filter of a query; null fields are not applied. */
+    public record Filter(Set<String> categoryIds, Double minPrice, Double maxPrice, Double minRating, Boolean inStock) {}
+
+    /** One page of matches (in productId order) plus the facet counts for the whole match. */
+    public record Result(List<Product> products, int total, String lastProductId, Map<String, Map<String, Integer>> facets) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    @Override
+    public void onCatalogReload(Collection<Product> products) {
+        State fresh = new State();
+        for (Product p : products) {
+            fresh.add(p);
+        }
+        lock.writeLock().lock();
+        try {
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductUpdated(Product previous, Product current) {
+        lock.writeLock().lock();
+        try {
+            state.remove(current.getProductId());
+            state.add(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Product previous) {
+        lock.writeLock().lock();
+        try {
+            state.remove(previous.getProductId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Matches in productId order, starting after {@code afterProductId} (exclusive, may be null). */
+    public Result filter(Filter filter, String afterProductId, int limit) {
+        lock.readLock().lock();
+        try {
+            return state.query(filter, afterProductId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String priceLabel(int bucket) {
+        if (bucket == PRICE_BOUNDS.length - 1) {
+            return (int) PRICE_BOUNDS[bucket] + "+";
+        }
+        return (int) PRICE_BOUNDS[bucket] + "-" + (int) PRICE_BOUNDS[bucket + 1];
+    }
+
+    static int priceBucket(double price) {
+        int bucket = 0;
+        while (bucket + 1 < PRICE_BOUNDS.length && price >= PRICE_BOUNDS[bucket + 1]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    static int ratingBucket(double rating) {
+        return Math.max(0, Math.min(RATING_BUCKETS - 1, (int) Math.floor(rating)));
+    }
+
+    private static final class State {
+        private final TreeMap<String, Integer> slotById = new TreeMap<>();
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+        private Product[] products = new Product[1024];
+        private double[] prices = new double[1024];
+        private double[] ratings = new double[1024];
+        private int nextSlot = 0;
+
+        private final BitSet live = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final Map<String, BitSet> byCategory = new HashMap<>();
+        private final BitSet[] byPrice = newBitSets(PRICE_BOUNDS.length);
+        private final BitSet[] byRating = newBitSets(RATING_BUCKETS);
+
+        void add(Product p) {
+            if (p.getProductId() == null || p.getPrice() <= 0) {
+                return;
+            }
+            int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+            ensureCapacity(slot);
+            slotById.put(p.getProductId(), slot);
+            products[slot] = p;
+            prices[slot] = p.getPrice();
+            ratings[slot] = p.getRating();
+            live.set(slot);
+            if (p.getStockCount() > 0) {
+                inStock.set(slot);
+            }
+            if (p.getCategoryId() != null) {
+                byCategory.computeIfAbsent(p.getCategoryId(), k -> new BitSet()).set(slot);
+            }
+            byPrice[priceBucket(p.getPrice())].set(slot);
+            byRating[ratingBucket(p.getRating())].set(slot);
+        }
+
+        void remove(String productId) {
+            Integer slot = slotById.remove(productId);
+            if (slot == null) {
+                return;
+            }
+            Product old = products[slot];
+            products[slot] = null;
+            live.clear(slot);
+            inStock.clear(slot);
+            BitSet category = old.getCategoryId() == null ? null : byCategory.get(old.getCategoryId());
+            if (category != null) {
+                category.clear(slot);
+                if (category.isEmpty()) {
+                    byCategory.remove(old.getCategoryId());
+                }
+            }
+            byPrice[priceBucket(prices[slot])].clear(slot);
+            byRating[ratingBucket(ratings[slot])].clear(slot);
+            freeSlots.push(slot);
+        }
+
+        Result query(Filter filter, String afterProductId, int limit) {
+            BitSet categoryMask = categoryMask(filter.categoryIds());
+            BitSet priceMask = priceMask(filter.minPrice(), filter.maxPrice());
+            BitSet ratingMask = ratingMask(filter.minRating());
+            BitSet stockMask = stockMask(filter.inStock());
+
+            BitSet match = and(live, categoryMask, priceMask, ratingMask, stockMask);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            BitSet forCategories = and(live, priceMask, ratingMask, stockMask);
+            Map<String, Integer> categoryCounts = new TreeMap<>();
+            byCategory.forEach((categoryId, slots) -> {
+                int count = intersectionSize(forCategories, slots);
+                if (count > 0) {
+                    categoryCounts.put(categoryId, count);
+                }
+            });
+            facets.put("categories", categoryCounts);
+
+            BitSet forPrice = and(live, categoryMask, ratingMask, stockMask);
+            Map<String, Integer> priceCounts = new LinkedHashMap<>();
+            for (int b = 0; b < byPrice.length; b++) {
+                priceCounts.put(priceLabel(b), intersectionSize(forPrice, byPrice[b]));
+            }
+            facets.put("price", priceCounts);
+
+            BitSet forRating = and(live, categoryMask, priceMask, stockMask);
+            Map<String, Integer> ratingCounts = new LinkedHashMap<>();
+            for (int b = 0; b < byRating.length; b++) {
+                ratingCounts.put(b + "-" + (b + 1), intersectionSize(forRating, byRating[b]));
+            }
+            facets.put("rating", ratingCounts);
+
+            BitSet forStock = and(live, categoryMask, priceMask, ratingMask);
+            Map<String, Integer> availability = new LinkedHashMap<>();
+            int available = intersectionSize(forStock, inStock);
+            availability.put("inStock", available);
+            availability.put("outOfStock", forStock.cardinality() - available);
+            facets.put("availability", availability);
+
+            List<Product> page = new ArrayList<>(Math.min(limit, 128));
+            String last = null;
+            SortedMap<String, Integer> ids = afterProductId == null ? slotById : slotById.tailMap(afterProductId, false);
+            for (Map.Entry<String, Integer> e : ids.entrySet()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                if (match.get(e.getValue())) {
+                    page.add(products[e.getValue()]);
+                    last = e.getKey();
+                }
+            }
+            return new Result(page, match.cardinality(), last, facets);
+        }
+
+        private BitSet categoryMask(Set<String> categoryIds) {
+            if (categoryIds == null || categoryIds.isEmpty()) {
+                return null;
+            }
+            BitSet mask = new BitSet();
+            for (String categoryId : categoryIds) {
+                BitSet slots = byCategory.get(categoryId);
+                if (slots != null) {
+                    mask.or(slots);
+                }
+            }
+            return mask;
+        }
+
+        private BitSet priceMask(Double min, Double max) {
+            if (min == null && max == null) {
+                return null;
+            }
+            double low = min == null ? Double.NEGATIVE_INFINITY : min;
+            double high = max == null ? Double.POSITIVE_INFINITY : max;
+            BitSet mask = new BitSet();
+            for (int b = 0; b < byPrice.length; b++) {
+                double bucketLow = PRICE_BOUNDS[b];
+                double bucketHigh = b + 1 < PRICE_BOUNDS.length ? PRICE_BOUNDS[b + 1] : Double.POSITIVE_INFINITY;
+                if (bucketHigh <= low || bucketLow > high) {
+                    continue;
+                }
+                if (bucketLow >= low && bucketHigh <= high) {
+                    mask.or(byPrice[b]);
+                } else {
+                    BitSet slots = byPrice[b];
+                    for (int s = slots.nextSetBit(0); s >= 0; s = slots.nextSetBit(s + 1)) {
+                        if (prices[s] >= low && prices[s] <= high) {
+                            mask.set(s);
+                        }
+                    }
+                }
+            }
+            return mask;
+        }
+
+        private BitSet ratingMask(Double minRating) {
+            if (minRating == null) {
+                return null;
+            }
+            BitSet mask = new BitSet();
+            for (int b = 0; b < byRating.length; b++) {
+                if (b >= minRating) {
+                    mask.or(byRating[b]);
+                } else if (b + 1 > minRating) {
+                    BitSet slots = byRating[b];
+                    for (int s = slots.nextSetBit(0); s >= 0; s = slots.nextSetBit(s + 1)) {
+                        if (ratings[s] >= minRating) {
+                            mask.set(s);
+                        }
+                    }
+                }
+            }
+            return mask;
+        }
+
+        private BitSet stockMask(Boolean wantInStock) {
+            if (wantInStock == null) {
+                return null;
+            }
+            if (wantInStock) {
+                return inStock;
+            }
+            BitSet mask = (BitSet) live.clone();
+            mask.andNot(inStock);
+            return mask;
+        }
+
+        private void ensureCapacity(int slot) {
+            if (slot < products.length) {
+                return;
+            }
+            int size = Math.max(products.length * 2, slot + 1);
+            products = Arrays.copyOf(products, size);
+            prices = Arrays.copyOf(prices, size);
+            ratings = Arrays.copyOf(ratings, size);
+        }
+    }
+
+    private static BitSet and(BitSet base, BitSet... masks) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet mask : masks) {
+            if (mask != null) {
+                result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] sets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            sets[i] = new BitSet();
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,285 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Category;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.ProductImportReport;
+import com.cs308.backend.repositories.CategoryRepository;
+import com.cs308.backend.util.CsvReader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bulk product import from CSV (with a header row) or NDJSON (one JSON
+ * object per line), using the field names of {@link Product} plus
+ * categoryName.
+ *
+ * Rows are read one at a time, checked with the same rules as
+ * {@link ProductService#addProduct}, and inserted in unordered bulk writes
+ * of {@link #BATCH_SIZE}. Each batch then increments the product count of
+ * its categories with one update per category. Name uniqueness is checked
+ * against the catalog snapshot and the rows imported so far, instead of one
+ * query per row.
+ */
+@Service
+public class ProductImportService {
+    public static final int BATCH_SIZE = 1000;
+
+    static final List<String> COLUMNS = List.of("productName", "productInfo", "categoryName", "stockCount",
+            "price", "serialNumber", "warrantyStatus", "distributorInfo", "productionCost");
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /** Picks the format from a request Content-Type, or null if it is neither. */
+        public static Format fromContentType(String contentType) {
+            if (contentType == null) {
+                return null;
+            }
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (type.startsWith("application/x-ndjson")) {
+                return NDJSON;
+            }
+            return null;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ProductCatalogCache catalogCache;
+    // the application's mapper, so JSON lines parse with the same settings as request bodies
+    private final ObjectMapper objectMapper;
+
+    public ProductImportService(MongoTemplate mongoTemplate, CategoryRepository categoryRepository, ProductCatalogCache catalogCache, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.categoryRepository = categoryRepository;
+        this.catalogCache = catalogCache;
+        this.objectMapper = objectMapper;
+    }
+
+    public ProductImportReport importProducts(InputStream body, Format format) {
+        long started = System.nanoTime();
+        ProductImportReport report = new ProductImportReport();
+        ImportState state = new ImportState(report);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int row = 0;
+        try {
+            if (format == Format.CSV) {
+                CsvReader csv = new CsvReader(reader);
+                List<String> header = csv.readRecord();
+                if (header == null || header.stream().map(String::trim).noneMatch(COLUMNS::contains)) {
+                    report.addError(0, "Missing CSV header; expected columns " + COLUMNS);
+                    return finish(report, started);
+                }
+                List<String> record;
+                while ((record = csv.readRecord()) != null) {
+                    row++;
+                    Map<String, String> values = new HashMap<>();
+                    for (int i = 0; i < header.size() && i < record.size(); i++) {
+                        values.put(header.get(i).trim(), record.get(i));
+                    }
+                    state.accept(row, values);
+                }
+            } else {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    row++;
+                    Map<String, String> values = parseJsonLine(line);
+                    if (values == null) {
+                        report.addError(row, "Invalid JSON object");
+                        continue;
+                    }
+                    state.accept(row, values);
+                }
+            }
+        } catch (IOException e) {
+            report.addError(row + 1, "Malformed input, import stopped: " + e.getMessage());
+        }
+        state.flush();
+        report.setTotalRows(row);
+        return finish(report, started);
+    }
+
+    private static ProductImportReport finish(ProductImportReport report, long started) {
+        report.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    private Map<String, String> parseJsonLine(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node == null || !node.isObject()) {
+                return null;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (String column : COLUMNS) {
+                JsonNode value = node.get(column);
+                if (value != null && !value.isNull()) {
+                    values.put(column, value.asText());
+                }
+            }
+            return values;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Rows of the current batch plus everything needed to validate the next ones. */
+    private class ImportState {
+        private final ProductImportReport report;
+        private final Map<String, Category> categoriesByName = new HashMap<>();
+        private final Set<String> takenNames = new HashSet<>();
+        private final List<Product> batch = new ArrayList<>(BATCH_SIZE);
+        private final List<Integer> batchRows = new ArrayList<>(BATCH_SIZE);
+
+        ImportState(ProductImportReport report) {
+            this.report = report;
+            for (Category c : categoryRepository.findAll()) {
+                if (c.getCategoryName() != null) {
+                    categoriesByName.putIfAbsent(nameKey(c.getCategoryName()), c);
+                }
+            }
+            catalogCache.refreshIfStale();
+            for (Product p : catalogCache.getAll()) {
+                if (p.getProductName() != null) {
+                    takenNames.add(nameKey(p.getProductName()));
+                }
+            }
+        }
+
+        void accept(int row, Map<String, String> values) {
+            Product product = new Product();
+            String error = fill(product, values);
+            if (error == null && takenNames.contains(nameKey(product.getProductName()))) {
+                error = "Product with this name already exists!";
+            }
+            if (error != null) {
+                report.addError(row, error);
+                return;
+            }
+            takenNames.add(nameKey(product.getProductName()));
+            batch.add(product);
+            batchRows.add(row);
+            if (batch.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private String fill(Product product, Map<String, String> values) {
+            int stock;
+            double price;
+            Double productionCost;
+            try {
+                stock = parseInt(values.get("stockCount"));
+                price = parseDouble(values.get("price"), 0.0);
+                productionCost = values.get("productionCost") == null || values.get("productionCost").isBlank()
+                        ? null : parseDouble(values.get("productionCost"), 0.0);
+            } catch (NumberFormatException e) {
+                return "Invalid number: " + e.getMessage();
+            }
+            if (price < 0) {
+                return "Price cannot be negative!";
+            }
+
+            String name = trimmed(values.get("productName"));
+            String categoryName = trimmed(values.get("categoryName"));
+            Category category = categoryName == null ? null : categoriesByName.get(nameKey(categoryName));
+            String error = ProductService.validateNewProduct(name, trimmed(values.get("productInfo")), categoryName, category,
+                    stock, trimmed(values.get("serialNumber")), trimmed(values.get("warrantyStatus")),
+                    trimmed(values.get("distributorInfo")));
+            if (error != null) {
+                return error;
+            }
+
+            product.setProductId(UUID.randomUUID().toString());
+            product.setProductName(name);
+            product.setProductInfo(trimmed(values.get("productInfo")));
+            product.setCategoryId(category.getCategoryId());
+            product.setStockCount(stock);
+            product.setPrice(price);
+            product.setSerialNumber(trimmed(values.get("serialNumber")));
+            product.setWarrantyStatus(trimmed(values.get("warrantyStatus")));
+            product.setDistributorInfo(trimmed(values.get("distributorInfo")));
+            product.setListedAt(ProductService.listingTime());
+            // same default as addProduct
+            product.setProductionCost(productionCost != null ? productionCost : price * 0.5);
+            return null;
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Set<Integer> failed = new HashSet<>();
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)
+                        .insert(batch)
+                        .execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    failed.add(error.getIndex());
+                    report.addError(batchRows.get(error.getIndex()), "Insert failed: " + error.getMessage());
+                }
+            }
+
+            Map<String, Integer> addedByCategory = new LinkedHashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (failed.contains(i)) {
+                    continue;
+                }
+                Product product = batch.get(i);
+                addedByCategory.merge(product.getCategoryId(), 1, Integer::sum);
+                catalogCache.put(product);
+                report.setImported(report.getImported() + 1);
+            }
+            if (!addedByCategory.isEmpty()) {
+                BulkOperations categoryOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Category.class);
+                addedByCategory.forEach((categoryId, added) -> categoryOps.updateOne(
+                        new Query(Criteria.where("_id").is(categoryId).and("productCount").exists(true)),
+                        new Update().inc("productCount", added)));
+                categoryOps.execute();
+            }
+
+            batch.clear();
+            batchRows.clear();
+        }
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimmed(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static int parseInt(String value) {
+        return value == null || value.isBlank() ? 0 : Integer.parseInt(value.trim());
+    }
+
+    private static double parseDouble(String value, double fallback) {
+        return value == null || value.isBlank() ? fallback : Double.parseDouble(value.trim());
+    }
+}
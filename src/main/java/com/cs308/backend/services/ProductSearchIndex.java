@@ -0,0 +1,204 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.util.PageCursor;
+import com.cs308.backend.util.TextNormalizer;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inverted index over productName and productInfo, ranked with BM25.
+ *
+ * Terms are folded with {@link TextNormalizer} (Turkish-aware). Every query
+ * term must match (as a whole term or as a prefix of one, so typing "lapt"
+ * already finds "laptop"); name terms weigh more than info terms. A prefix
+ * is expanded to every indexed term it starts, however short, so results
+ * and totals are complete; at worst that reads every posting once, no more
+ * than listing the whole catalog. Like the old regex search, only products
+ * with a price are returned.
+ *
+ * Fed by {@link ProductCatalogCache}, so product writes update it incrementally.
+ */
+@Component
+public class ProductSearchIndex implements CatalogListener {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // a term in the name counts as much as this many occurrences in the info text
+    private static final int NAME_WEIGHT = 3;
+
+    public record Hit(Product product, double score) {}
+
+    private record Doc(Product product, Map<String, Integer> termFreqs, int length) {}
+
+    private static final Comparator<Hit> RELEVANCE = Comparator
+            .comparingDouble(Hit::score).reversed()
+            .thenComparing(h -> h.product().getProductId());
+
+    private volatile State state = new State();
+
+    @Override
+    public void onCatalogReload(Collection<Product> products) {
+        State fresh = new State();
+        for (Product p : products) {
+            fresh.add(p);
+        }
+        state = fresh;
+    }
+
+    @Override
+    public void onProductUpdated(Product previous, Product current) {
+        State s = state;
+        s.remove(current.getProductId());
+        s.add(current);
+    }
+
+    @Override
+    public void onProductRemoved(Product previous) {
+        state.remove(previous.getProductId());
+    }
+
+    /**
+     * Returns up to {@code limit} hits ordered by relevance (then productId),
+     * starting strictly after {@code after} when a cursor is given.
+     * A query without any terms matches every priced product with score 0.
+     */
+    public List<Hit> search(String query, PageCursor after, int limit) {
+        State s = state;
+        List<String> terms = TextNormalizer.tokenize(query).stream().distinct().toList();
+
+        List<Hit> hits = new ArrayList<>();
+        if (terms.isEmpty()) {
+            for (Doc doc : s.docs.values()) {
+                hits.add(new Hit(doc.product(), 0.0));
+            }
+        } else {
+            hits = score(s, terms);
+        }
+
+        Hit cursorHit = null;
+        if (after != null && after.sortKey() != null) {
+            Product marker = new Product();
+            marker.setProductId(after.id());
+            cursorHit = new Hit(marker, after.sortKey());
+        }
+
+        hits.sort(RELEVANCE);
+        List<Hit> page = new ArrayList<>();
+        for (Hit hit : hits) {
+            if (page.size() >= limit) {
+                break;
+            }
+            if (hit.product().getPrice() <= 0) {
+                continue;
+            }
+            if (cursorHit != null && RELEVANCE.compare(hit, cursorHit) <= 0) {
+                continue;
+            }
+            page.add(hit);
+        }
+        return page;
+    }
+
+    public int size() {
+        return state.docs.size();
+    }
+
+    private List<Hit> score(State s, List<String> terms) {
+        int docCount = s.docs.size();
+        if (docCount == 0) {
+            return new ArrayList<>();
+        }
+        double avgLength = Math.max(1.0, (double) s.totalLength.get() / docCount);
+
+        // docId -> per-query-term best score; a doc must match every query term
+        Map<String, double[]> perTerm = new HashMap<>();
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            for (Map.Entry<String, Map<String, Integer>> posting
+                    : s.postings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+                Map<String, Integer> docs = posting.getValue();
+                int df = docs.size();
+                if (df == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+                for (Map.Entry<String, Integer> e : docs.entrySet()) {
+                    Doc doc = s.docs.get(e.getKey());
+                    if (doc == null) {
+                        continue;
+                    }
+                    int tf = e.getValue();
+                    double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length() / avgLength));
+                    double[] scores = perTerm.computeIfAbsent(e.getKey(), k -> {
+                        double[] arr = new double[terms.size()];
+                        Arrays.fill(arr, -1);
+                        return arr;
+                    });
+                    scores[t] = Math.max(scores[t], idf * norm);
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Map.Entry<String, double[]> e : perTerm.entrySet()) {
+            double total = 0;
+            boolean all = true;
+            for (double v : e.getValue()) {
+                if (v < 0) {
+                    all = false;
+                    break;
+                }
+                total += v;
+            }
+            if (all) {
+                hits.add(new Hit(s.docs.get(e.getKey()).product(), total));
+            }
+        }
+        return hits;
+    }
+
+    private static final class State {
+        private final Map<String, Doc> docs = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Map<String, Integer>> postings = new ConcurrentSkipListMap<>();
+        private final AtomicLong totalLength = new AtomicLong();
+
+        void add(Product p) {
+            Map<String, Integer> freqs = new HashMap<>();
+            for (String token : TextNormalizer.tokenize(p.getProductName())) {
+                freqs.merge(token, NAME_WEIGHT, Integer::sum);
+            }
+            for (String token : TextNormalizer.tokenize(p.getProductInfo())) {
+                freqs.merge(token, 1, Integer::sum);
+            }
+            int length = freqs.values().stream().mapToInt(Integer::intValue).sum();
+            for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new ConcurrentHashMap<>())
+                        .put(p.getProductId(), e.getValue());
+            }
+            docs.put(p.getProductId(), new Doc(p, freqs, length));
+            totalLength.addAndGet(length);
+        }
+
+        void remove(String productId) {
+            Doc old = docs.remove(productId);
+            if (old == null) {
+                return;
+            }
+            totalLength.addAndGet(-old.length());
+            for (String term : old.termFreqs().keySet()) {
+                Map<String, Integer> docsForTerm = postings.get(term);
+                if (docsForTerm != null) {
+                    docsForTerm.remove(productId);
+                    if (docsForTerm.isEmpty()) {
+                        postings.remove(term, docsForTerm);
+                    }
+                }
+            }
+        }
+    }
+}
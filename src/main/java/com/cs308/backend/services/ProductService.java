@@ -2,10 +2,18 @@ package com.cs308.backend.services;
 
 import com.cs308.backend.models.*;
 import com.cs308.backend.repositories.*;
+import com.cs308.backend.util.PageCursor;
+
+import org.springframework.data.domain.Limit;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
 
 import com.cs308.backend.mailing.DefaultEmailService;
 import com.cs308.backend.mailing.DiscountEmailContext;
@@ -15,19 +23,41 @@ import java.util.Date;
 
 @Service
 public class ProductService {
+    /** Upper bound for the limit parameter of paginated listings */
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    // lower bound of the dated part of the awaiting-pricing queue
+    private static final LocalDateTime QUEUE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final ReviewRepository reviewRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSortIndex sortIndex;
+    private final ProductSearchIndex searchIndex;
+    private final SearchSuggestService searchSuggestService;
+    private final ProductFacetIndex facetIndex;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final TrendingProducts trendingProducts;
+    private final PriceHistoryService priceHistory;
 
     @Autowired
     private DefaultEmailService emailService;
 
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, UserRepository userRepository, ReviewRepository reviewRepository) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, UserRepository userRepository, ReviewRepository reviewRepository, ProductCatalogCache catalogCache, ProductSortIndex sortIndex, ProductSearchIndex searchIndex, SearchSuggestService searchSuggestService, ProductFacetIndex facetIndex, CoPurchaseIndex coPurchaseIndex, TrendingProducts trendingProducts, PriceHistoryService priceHistory) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
         this.reviewRepository = reviewRepository;
+        this.catalogCache = catalogCache;
+        this.sortIndex = sortIndex;
+        this.searchIndex = searchIndex;
+        this.searchSuggestService = searchSuggestService;
+        this.facetIndex = facetIndex;
+        this.coPurchaseIndex = coPurchaseIndex;
+        this.trendingProducts = trendingProducts;
+        this.priceHistory = priceHistory;
     }
 
     public ResponseEntity<String> addProduct(Product product, String name, String info, String categoryName, int stock, String serialNumber, String warrantyStatus, String distributorInfo) {
@@ -35,48 +65,26 @@ public class ProductService {
             return ResponseEntity.badRequest().body("Product with this name already exists!");
         }
 
-        if (name == null || name.isEmpty()) {
-            return ResponseEntity.badRequest().body("Product name cannot be empty!");
+        Category category = null;
+        if (categoryName != null && !categoryName.isEmpty()) {
+            category = categoryRepository.findByCategoryNameIgnoreCase(categoryName).orElse(null);
         }
-        product.setProductName(name);
-        if (info == null || info.isEmpty()) {
-            return ResponseEntity.badRequest().body("Product info cannot be empty!");
+        String error = validateNewProduct(name, info, categoryName, category, stock, serialNumber, warrantyStatus, distributorInfo);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(error);
         }
+        product.setProductName(name);
         product.setProductInfo(info);
-
-        if (categoryName == null || categoryName.isEmpty()) {
-            return ResponseEntity.badRequest().body("Product category name cannot be empty!");
-        }
-        Optional<Category> categoryOptional = categoryRepository.findByCategoryNameIgnoreCase(categoryName);
-
-        if (!categoryOptional.isPresent()) {
-            return ResponseEntity.badRequest().body("Category does not exist!");
-        }
-        Category category = categoryOptional.get();
         product.setCategoryId(category.getCategoryId());
-
-        if (stock < 0) {
-            return ResponseEntity.badRequest().body("Stock cannot be negative!");
-        }
         product.setStockCount(stock);
-
-        if (serialNumber == null || serialNumber.isEmpty()) {
-            return ResponseEntity.badRequest().body("Serial number cannot be empty!");
-        }
         product.setSerialNumber(serialNumber);
-
-        if (warrantyStatus == null || warrantyStatus.isEmpty()) {
-            return ResponseEntity.badRequest().body("Warranty status cannot be empty!");
-        }
         product.setWarrantyStatus(warrantyStatus);
 
-        if (distributorInfo == null || distributorInfo.isEmpty()) {
-            return ResponseEntity.badRequest().body("Distributor info cannot be empty!");
-        }
         // 1) generate your own ID:
         product.setProductId(UUID.randomUUID().toString());
 
         product.setDistributorInfo(distributorInfo);
+        product.setListedAt(listingTime());
 
         // Set default production cost if not manually specified
         if (product.getProductionCost() == null) {
@@ -84,22 +92,61 @@ public class ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
-        category.getProductIds().add(savedProduct.getProductId()); // Add the newly created product's ID
-        categoryRepository.save(category);  // Save the updated category
+        catalogCache.put(savedProduct);
+        categoryRepository.incrementProductCount(category.getCategoryId(), 1);
 
         return ResponseEntity.ok("Product added successfully!");
     }
 
+    /** listedAt for a new product, at the millisecond precision Mongo stores. */
+    static LocalDateTime listingTime() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Field rules for a new product, shared by addProduct and the bulk import.
+     * {@code category} is the category resolved from {@code categoryName}, or null.
+     * Returns the first violation, or null when the product is valid.
+     */
+    public static String validateNewProduct(String name, String info, String categoryName, Category category, int stock,
+                                            String serialNumber, String warrantyStatus, String distributorInfo) {
+        if (name == null || name.isEmpty()) {
+            return "Product name cannot be empty!";
+        }
+        if (info == null || info.isEmpty()) {
+            return "Product info cannot be empty!";
+        }
+        if (categoryName == null || categoryName.isEmpty()) {
+            return "Product category name cannot be empty!";
+        }
+        if (category == null) {
+            return "Category does not exist!";
+        }
+        if (stock < 0) {
+            return "Stock cannot be negative!";
+        }
+        if (serialNumber == null || serialNumber.isEmpty()) {
+            return "Serial number cannot be empty!";
+        }
+        if (warrantyStatus == null || warrantyStatus.isEmpty()) {
+            return "Warranty status cannot be empty!";
+        }
+        if (distributorInfo == null || distributorInfo.isEmpty()) {
+            return "Distributor info cannot be empty!";
+        }
+        return null;
+    }
+
     public Optional<Product> getProductById(String productId) {
-        return productRepository.findById(productId);
+        return catalogCache.get(productId);
     }
 
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return new ArrayList<>(catalogCache.getAll());
     }
 
     public List<Product> getProductsByCategory(String categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+        return catalogCache.getByCategory(categoryId);
     }
 
     public Product searchProductByName(String productName) {
@@ -111,7 +158,7 @@ public class ProductService {
         if (productOptional.isPresent()) {
             Product product = productOptional.get();
             product.setStockCount(newStock);
-            return productRepository.save(product);
+            return saveAndCache(product);
         } else {
             throw new NoSuchElementException("Product not found!");
         }
@@ -131,14 +178,15 @@ public class ProductService {
                 product.setProductionCost(price * 0.5);
             }
 
-            return productRepository.save(product);
+            return saveAndRecordPrice(product, price);
         } else {
             Product newProduct = new Product();
             newProduct.setProductId(productId);
             newProduct.setPrice(price);
+            newProduct.setListedAt(listingTime());
             // Set default production cost for new product
             newProduct.setProductionCost(price * 0.5);
-            return productRepository.save(newProduct);
+            return saveAndRecordPrice(newProduct, price);
         }
     }
 
@@ -154,7 +202,7 @@ public class ProductService {
             }
 
             product.setProductionCost(productionCost);
-            return productRepository.save(product);
+            return saveAndCache(product);
         } else {
             throw new NoSuchElementException("Product not found with ID: " + productId);
         }
@@ -166,7 +214,7 @@ public class ProductService {
         if (optionalProduct.isPresent()) {
             Product product = optionalProduct.get();
             product.setProductionCost(product.getPrice() * 0.5);
-            return productRepository.save(product);
+            return saveAndCache(product);
         } else {
             throw new NoSuchElementException("Product not found with ID: " + productId);
         }
@@ -192,7 +240,7 @@ public class ProductService {
         if (productOptional.isPresent()) {
             Product product = productOptional.get();
             product.setProductName(productName);
-            return productRepository.save(product);
+            return saveAndCache(product);
         }
         else {
             throw new NoSuchElementException("Product not found!");
@@ -256,94 +304,247 @@ public class ProductService {
                 product.setDistributorInfo((String) updates.get("distributorInfo"));
             }
 
-            return productRepository.save(product);
+            if (updates.containsKey("price")) {
+                return saveAndRecordPrice(product, product.getPrice());
+            }
+            return saveAndCache(product);
         } else {
             throw new NoSuchElementException("Product not found with ID: " + productId);
         }
     }
 
+    /**
+     * Paginated listing of one category ordered by productId; deep pages are a
+     * range query on (categoryId, _id) just like the first one.
+     */
+    public ProductPage<Product> getProductsByCategoryPage(String categoryId, boolean pricedOnly, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        String after = afterId(cursor);
+        List<Product> products = pricedOnly
+                ? productRepository.findByCategoryIdAndPriceGreaterThanAndProductIdGreaterThanOrderByProductIdAsc(
+                        categoryId, 0, after, Limit.of(pageSize))
+                : productRepository.findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(
+                        categoryId, after, Limit.of(pageSize));
+        return idOrderedPage(products, pageSize, Product::getProductId);
+    }
+
+    /** Same page as getProductsByCategoryPage, reading only the summary fields from Mongo. */
+    public ProductPage<ProductSummary> getProductSummariesByCategoryPage(String categoryId, boolean pricedOnly, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        String after = afterId(cursor);
+        List<ProductSummary> products = pricedOnly
+                ? productRepository.findByCategoryIdAndPriceGreaterThanAndProductIdGreaterThanOrderByProductIdAsc(
+                        categoryId, 0, after, Limit.of(pageSize), ProductSummary.class)
+                : productRepository.findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(
+                        categoryId, after, Limit.of(pageSize), ProductSummary.class);
+        return idOrderedPage(products, pageSize, ProductSummary::getProductId);
+    }
+
+    /** Relevance-ordered search page; the cursor is (score, productId) of the last hit. */
+    public ProductPage<Product> searchProductsPage(String query, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        catalogCache.refreshIfStale();
+        List<ProductSearchIndex.Hit> hits = searchIndex.search(query, PageCursor.decode(cursor), pageSize);
+        String next = null;
+        if (hits.size() == pageSize) {
+            ProductSearchIndex.Hit last = hits.get(hits.size() - 1);
+            next = new PageCursor(last.score(), last.product().getProductId()).encode();
+        }
+        return new ProductPage<>(hits.stream().map(ProductSearchIndex.Hit::product).toList(), next);
+    }
+
+    public ProductPage<Product> getNewProductsPage(String cursor, int limit) {
+        return awaitingPricingPage(cursor, limit, Product.class, Product::getProductId, Product::getListedAt);
+    }
+
+    public ProductPage<ProductSummary> getNewProductSummariesPage(String cursor, int limit) {
+        return awaitingPricingPage(cursor, limit, ProductSummary.class, ProductSummary::getProductId, ProductSummary::getListedAt);
+    }
+
+    /**
+     * Awaiting-pricing queue (price == 0), oldest listing first. The cursor is
+     * (listedAt, productId) of the last product; products without listedAt come
+     * first with a null sort key. Every query is a range on the partial
+     * awaiting_pricing index, and a product leaves the queue as soon as a
+     * price is saved.
+     */
+    private <T> ProductPage<T> awaitingPricingPage(String cursor, int limit, Class<T> type,
+                                                   Function<T, String> idOf, Function<T, LocalDateTime> listedAtOf) {
+        int pageSize = clampPageSize(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        List<T> products = new ArrayList<>(pageSize);
+        LocalDateTime listedAfter;
+        if (after == null || after.sortKey() == null) {
+            products.addAll(productRepository.findByPriceAndListedAtIsNullAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+                    0.0, after == null ? "" : after.id(), Limit.of(pageSize), type));
+            listedAfter = QUEUE_START;
+        } else {
+            listedAfter = fromEpochMillis(after.sortKey().longValue());
+            products.addAll(productRepository.findByPriceAndListedAtAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+                    0.0, listedAfter, after.id(), Limit.of(pageSize), type));
+        }
+        if (products.size() < pageSize) {
+            products.addAll(productRepository.findByPriceAndListedAtGreaterThanOrderByListedAtAscProductIdAsc(
+                    0.0, listedAfter, Limit.of(pageSize - products.size()), type));
+        }
+
+        String next = null;
+        if (products.size() == pageSize) {
+            T last = products.get(products.size() - 1);
+            LocalDateTime listedAt = listedAtOf.apply(last);
+            Double sortKey = listedAt == null ? null : (double) listedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+            next = new PageCursor(sortKey, idOf.apply(last)).encode();
+        }
+        return new ProductPage<>(products, next);
+    }
+
+    private static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /** Keyset page of a sorted listing, served from the sort index. */
+    public ProductPage<Product> getSortedProductsPage(ProductSortIndex.SortKey key, boolean descending, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        catalogCache.refreshIfStale();
+        List<Product> products = sortIndex.page(key, descending, null, PageCursor.decode(cursor), pageSize);
+        String next = null;
+        if (products.size() == pageSize) {
+            Product last = products.get(products.size() - 1);
+            next = new PageCursor(key.valueOf(last), last.getProductId()).encode();
+        }
+        return new ProductPage<>(products, next);
+    }
+
+    /**
+     * Faceted filter over the priced catalog: one page of matches in productId
+     * order plus the total and the facet counts of the whole match.
+     */
+    public Map<String, Object> filterProducts(ProductFacetIndex.Filter filter, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        catalogCache.refreshIfStale();
+        PageCursor after = PageCursor.decode(cursor);
+        ProductFacetIndex.Result result = facetIndex.filter(filter, after == null ? null : after.id(), pageSize);
+        String next = null;
+        if (result.products().size() == pageSize) {
+            next = new PageCursor(null, result.lastProductId()).encode();
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("total", result.total());
+        response.put("facets", result.facets());
+        response.put("products", result.products());
+        response.put("nextCursor", next);
+        return response;
+    }
+
+    private static int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private static String afterId(String cursor) {
+        PageCursor after = PageCursor.decode(cursor);
+        return after == null ? "" : after.id();
+    }
+
+    private static <T> ProductPage<T> idOrderedPage(List<T> products, int pageSize, Function<T, String> idOf) {
+        String next = null;
+        if (products.size() == pageSize) {
+            next = new PageCursor(null, idOf.apply(products.get(products.size() - 1))).encode();
+        }
+        return new ProductPage<>(products, next);
+    }
+
     public List<Product> searchProducts(String query) {
-        return productRepository.findByProductNameContainingIgnoreCaseOrProductInfoContainingIgnoreCase(query, query)
+        catalogCache.refreshIfStale();
+        return searchIndex.search(query, null, Integer.MAX_VALUE)
                 .stream()
-                .filter(p -> p.getPrice() > 0)
+                .map(ProductSearchIndex.Hit::product)
                 .toList();
     }
 
+    public Map<String, Object> suggest(String prefix, int limit) {
+        catalogCache.refreshIfStale();
+        return searchSuggestService.suggest(prefix, limit);
+    }
+
     public List<Product> sortProductsByPriceAsc() {
-        List<Product> products = getAllProducts();
-        products.sort(Comparator.comparing(Product::getPrice));
-        return products;
+        return getSortedProducts(ProductSortIndex.SortKey.PRICE, false, null, Integer.MAX_VALUE);
     }
 
     public List<Product> sortProductsByPriceDesc() {
-        List<Product> products = getAllProducts();
-        products.sort(Comparator.comparing(Product::getPrice).reversed());
-        return products;
+        return getSortedProducts(ProductSortIndex.SortKey.PRICE, true, null, Integer.MAX_VALUE);
     }
 
     public List<Product> sortProductsByRatingAsc() {
-        List<Product> products = getAllProducts();
-        products.sort(Comparator.comparing(Product::getRating));
-        return products;
+        return getSortedProducts(ProductSortIndex.SortKey.RATING, false, null, Integer.MAX_VALUE);
     }
 
     public List<Product> sortProductsByRatingDesc() {
-        List<Product> products = getAllProducts();
-        products.sort(Comparator.comparing(Product::getRating).reversed());
-        return products;
+        return getSortedProducts(ProductSortIndex.SortKey.RATING, true, null, Integer.MAX_VALUE);
     }
 
 
     // New method to sort products by profit margin (price - production cost)
     public List<Product> sortProductsByProfitMargin() {
-        List<Product> products = getAllProducts();
-        products.sort(Comparator.comparing((Product p) -> {
-            double productionCost = p.getProductionCost() != null ? p.getProductionCost() : p.getPrice() * 0.5;
-            return p.getPrice() - productionCost;
-        }).reversed());
-        return products;
+        return getSortedProducts(ProductSortIndex.SortKey.PROFIT_MARGIN, true, null, Integer.MAX_VALUE);
     }
 
     // New method to sort products by profit margin percentage
     public List<Product> sortProductsByProfitMarginPercentage() {
-        List<Product> products = getAllProducts();
-        products.sort(Comparator.comparing((Product p) -> {
-            double productionCost = p.getProductionCost() != null ? p.getProductionCost() : p.getPrice() * 0.5;
-            if (productionCost == 0) return Double.MAX_VALUE; // Avoid division by zero
-            return (p.getPrice() - productionCost) / productionCost;
-        }).reversed());
-        return products;
+        return getSortedProducts(ProductSortIndex.SortKey.PROFIT_MARGIN_PERCENTAGE, true, null, Integer.MAX_VALUE);
     }
 
+    /** Hottest products of the window, from the in-memory counters (no Mongo query). */
+    public List<Product> getTrendingProducts(TrendingProducts.Window window, int limit) {
+        catalogCache.refreshIfStale();
+        return trendingProducts.top(window, Math.max(1, Math.min(limit, TrendingProducts.MAX_K))).stream()
+                .map(catalogCache::get)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /** Products most often bought together with this one, at most {@link CoPurchaseIndex#TOP_K}. */
+    public List<Product> getRelatedProducts(String productId, int limit) {
+        catalogCache.refreshIfStale();
+        return coPurchaseIndex.related(productId, Math.max(1, Math.min(limit, CoPurchaseIndex.TOP_K))).stream()
+                .map(catalogCache::get)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /**
+     * Reads a sorted page straight from the sort index (no per-request sort).
+     * Pass a categoryId to sort within a single category, or null for all products.
+     */
+    public List<Product> getSortedProducts(ProductSortIndex.SortKey key, boolean descending, String categoryId, int limit) {
+        catalogCache.refreshIfStale();
+        return sortIndex.page(key, descending, categoryId, limit);
+    }
+
+    /**
+     * Deletes a product together with its reviews and wishlist entries, using one
+     * server-side write per collection. The product document goes last and the
+     * category count only changes when this call removed it, so a delete that
+     * failed halfway can simply be retried.
+     */
     public void deleteProductWithCleanup(String productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new NoSuchElementException("Product not found: " + productId));
+        Optional<Product> product = productRepository.findById(productId);
 
-        // 1. Remove the product ID from its category
-        Category category = categoryRepository.findById(product.getCategoryId())
-                .orElseThrow(() -> new NoSuchElementException("Category not found for product"));
-        if (category.getProductIds() != null) {
-            category.getProductIds().remove(productId);
-            categoryRepository.save(category);
-        }
+        // 1. Delete all associated reviews
+        reviewRepository.deleteByProductId(productId);
 
-        // 2. Delete all associated reviews
-        List<Review> reviews = reviewRepository.findByProductId(productId);
-        for (Review r : reviews) {
-            reviewRepository.deleteById(r.getReviewId());
-        }
+        // 2. Remove from all user wishlists
+        userRepository.removeFromWishLists(productId);
 
-        // 3. Remove from all user wishlists
-        List<User> users = userRepository.findAll();
-        for (User u : users) {
-            if (u.getWishList() != null && u.getWishList().contains(productId)) {
-                u.getWishList().remove(productId);
-                userRepository.save(u);
-            }
+        if (product.isEmpty()) {
+            // nothing left to delete; the steps above still clear leftovers of an interrupted delete
+            throw new NoSuchElementException("Product not found: " + productId);
         }
 
-        // 4. Delete the product itself
-        productRepository.deleteById(productId);
+        // 3. Delete the product itself and update the product count of its category
+        if (productRepository.deleteByProductId(productId) > 0 && product.get().getCategoryId() != null) {
+            categoryRepository.incrementProductCount(product.get().getCategoryId(), -1);
+        }
+        catalogCache.evict(productId);
     }
 
     public Product setDiscount(String productId, double discountPercentage) {
@@ -355,10 +556,11 @@ public class ProductService {
                 throw new IllegalArgumentException("Discount percentage must be between 1 and 99");
             }
 
+            double listPrice = listPriceOf(product);
             double discountedPrice = product.getPrice() * (1 - discountPercentage / 100);
             product.setPrice(discountedPrice);
 
-            return productRepository.save(product);
+            return saveAndRecordPrice(product, listPrice);
         } else {
             throw new NoSuchElementException("Product not found with ID: " + productId);
         }
@@ -370,11 +572,12 @@ public class ProductService {
                 .orElseThrow(() -> new NoSuchElementException("Product not found with ID: " + productId));
 
         double originalPrice = product.getPrice();
+        double listPrice = listPriceOf(product);
         double discountedPrice = originalPrice * (1 - discountPercentage / 100);
 
         // Step 2: Update and save discounted product
         product.setPrice(discountedPrice);
-        Product updated = productRepository.save(product);
+        Product updated = saveAndRecordPrice(product, listPrice);
 
         // Step 3: Pass the original price manually
         int notifiedUsers = notifyUsersAboutDiscount(product, discountPercentage, originalPrice);
@@ -386,63 +589,58 @@ public class ProductService {
     public int notifyUsersAboutDiscount(Product product, double discountPercentage, double originalPrice) {
         List<User> users = userRepository.findByWishListContains(product.getProductId());
 
-        double discountedPrice = product.getPrice();
         int notified = 0;
-
         for (User user : users) {
-            try {
-                DiscountEmailContext emailContext = new DiscountEmailContext();
-                emailContext.initWithDetails(
-                        user.getName(),
-                        product.getProductName(),
-                        discountPercentage,
-                        originalPrice,
-                        discountedPrice,
-                        product.getProductId()
-                );
-                emailContext.setFrom("noreply@yourstore.com");
-                emailContext.setTo(user.getEmail());
-
-                emailService.sendMail(emailContext);
+            if (sendDiscountEmail(user, product, discountPercentage, originalPrice)) {
                 notified++;
-            } catch (Exception e) {
-                System.err.println("❌ Failed to notify " + user.getEmail() + ": " + e.getMessage());
-                e.printStackTrace();
             }
         }
 
         return notified;
     }
 
+    /** Tells one user that a product on their wishlist is now at its current (discounted) price. */
+    public boolean sendDiscountEmail(User user, Product product, double discountPercentage, double originalPrice) {
+        try {
+            DiscountEmailContext emailContext = new DiscountEmailContext();
+            emailContext.initWithDetails(
+                    user.getName(),
+                    product.getProductName(),
+                    discountPercentage,
+                    originalPrice,
+                    product.getPrice(),
+                    product.getProductId()
+            );
+            emailContext.setFrom("noreply@yourstore.com");
+            emailContext.setTo(user.getEmail());
+
+            emailService.sendMail(emailContext);
+            return true;
+        } catch (Exception e) {
+            System.err.println("❌ Failed to notify " + user.getEmail() + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
 
+    /**
+     * Restores the list price recorded before the product's discounts.
+     * Fails if the product is not discounted, or if its price was changed
+     * without going through the price history.
+     */
     public Product removeDiscount(String productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new NoSuchElementException("Product not found with ID: " + productId));
 
-        throw new UnsupportedOperationException("Original price tracking has been removed. Cannot 'remove' discount without restoring original.");
-    }
-
-
-    public List<Product> getNewProducts() {
-        return productRepository.findAll()
-                .stream()
-                .filter(p -> p.getPrice() == 0.0)
-                .toList();
-    }
-
-    public int patchMissingProductionCosts() {
-        List<Product> all = productRepository.findAll();
-        int patched = 0;
-
-        for (Product p : all) {
-            if (p.getProductionCost() == null) {
-                p.setProductionCost(p.getPrice() * 0.5);
-                productRepository.save(p);
-                patched++;
-            }
+        PricePoint current = priceHistory.latest(productId)
+                .filter(point -> PriceHistoryService.samePrice(point.getPrice(), product.getPrice()))
+                .orElseThrow(() -> new IllegalStateException("No recorded list price for the current price of product " + productId));
+        if (!current.isDiscounted()) {
+            throw new IllegalStateException("Product " + productId + " is not discounted");
         }
-
-        return patched;
+        product.setPrice(current.getListPrice());
+        return saveAndRecordPrice(product, current.getListPrice());
     }
 
 
@@ -452,10 +650,27 @@ public class ProductService {
 
         product.setPrice(price);
         product.setProductionCost(price * 0.5); // Always reset to 50%
-        return productRepository.save(product);
+        return saveAndRecordPrice(product, price);
     }
 
+    // the price before a new discount is applied: the recorded list price if the
+    // current price is the recorded one, else the current price itself
+    private double listPriceOf(Product product) {
+        return priceHistory.latest(product.getProductId())
+                .filter(point -> PriceHistoryService.samePrice(point.getPrice(), product.getPrice()))
+                .map(PricePoint::getListPrice)
+                .orElse(product.getPrice());
+    }
 
+    private Product saveAndRecordPrice(Product product, double listPrice) {
+        Product saved = saveAndCache(product);
+        priceHistory.record(saved.getProductId(), saved.getPrice(), listPrice);
+        return saved;
+    }
 
-
-}
\ No newline at end of file
+    private Product saveAndCache(Product product) {
+        Product saved = productRepository.save(product);
+        catalogCache.put(saved);
+        return saved;
+    }
+}
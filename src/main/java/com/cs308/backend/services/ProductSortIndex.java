@@ -0,0 +1,168 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.util.PageCursor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sorted views of the catalog, one per {@link SortKey}, each partitioned by
+ * categoryId plus one partition holding every product.
+ *
+ * The index is fed by {@link ProductCatalogCache}: a price, rating or cost
+ * change removes and re-inserts the product's entries, which is O(log n) per
+ * partition, so a sorted page can be read straight off the skip lists.
+ */
+@Component
+public class ProductSortIndex implements CatalogListener {
+
+    public enum SortKey {
+        PRICE(Product::getPrice),
+        RATING(Product::getRating),
+        // price - production cost
+        PROFIT_MARGIN(p -> p.getPrice() - productionCostOf(p)),
+        // (price - production cost) / production cost
+        PROFIT_MARGIN_PERCENTAGE(p -> {
+            double productionCost = productionCostOf(p);
+            if (productionCost == 0) return Double.MAX_VALUE; // Avoid division by zero
+            return (p.getPrice() - productionCost) / productionCost;
+        });
+
+        private final ToDoubleFunction<Product> extractor;
+
+        SortKey(ToDoubleFunction<Product> extractor) {
+            this.extractor = extractor;
+        }
+
+        public double valueOf(Product product) {
+            return extractor.applyAsDouble(product);
+        }
+
+        private static double productionCostOf(Product p) {
+            return p.getProductionCost() != null ? p.getProductionCost() : p.getPrice() * 0.5;
+        }
+    }
+
+    /** One position in a sorted partition; ties are broken by productId. */
+    record Entry(double key, String productId, Product product) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = Double.compare(key, other.key);
+            return byKey != 0 ? byKey : productId.compareTo(other.productId);
+        }
+    }
+
+    /** What was inserted for a product, so it can be removed again even if the entity changed. */
+    private record Indexed(String categoryId, Entry[] entries) {}
+
+    private static final String ALL = "";
+
+    private volatile State state = new State();
+
+    @Override
+    public void onCatalogReload(Collection<Product> products) {
+        State fresh = new State();
+        for (Product p : products) {
+            fresh.add(p);
+        }
+        state = fresh;
+    }
+
+    @Override
+    public void onProductUpdated(Product previous, Product current) {
+        State s = state;
+        s.remove(current.getProductId());
+        s.add(current);
+    }
+
+    @Override
+    public void onProductRemoved(Product previous) {
+        state.remove(previous.getProductId());
+    }
+
+    /**
+     * Returns up to {@code limit} products in sort order.
+     *
+     * @param categoryId restrict to one category, or null for the whole catalog
+     */
+    public List<Product> page(SortKey key, boolean descending, String categoryId, int limit) {
+        return page(key, descending, categoryId, null, limit);
+    }
+
+    /**
+     * Keyset variant: returns the products that come strictly after {@code after}
+     * in sort order (a cursor built from the last product of the previous page).
+     */
+    public List<Product> page(SortKey key, boolean descending, String categoryId, PageCursor after, int limit) {
+        NavigableSet<Entry> partition = state.partition(key, categoryId);
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+        if (after != null && after.sortKey() != null) {
+            Entry probe = new Entry(after.sortKey(), after.id(), null);
+            partition = descending ? partition.headSet(probe, false) : partition.tailSet(probe, false);
+        }
+        Iterator<Entry> it = descending ? partition.descendingIterator() : partition.iterator();
+        List<Product> result = new ArrayList<>(Math.min(limit, 256));
+        while (it.hasNext() && result.size() < limit) {
+            result.add(it.next().product());
+        }
+        return result;
+    }
+
+    public int size() {
+        return state.indexed.size();
+    }
+
+    private static final class State {
+        private final Map<String, Indexed> indexed = new ConcurrentHashMap<>();
+        private final EnumMap<SortKey, Map<String, ConcurrentSkipListSet<Entry>>> partitions =
+                new EnumMap<>(SortKey.class);
+
+        State() {
+            for (SortKey key : SortKey.values()) {
+                partitions.put(key, new ConcurrentHashMap<>());
+            }
+        }
+
+        NavigableSet<Entry> partition(SortKey key, String categoryId) {
+            return partitions.get(key).get(categoryId == null ? ALL : categoryId);
+        }
+
+        void add(Product p) {
+            SortKey[] keys = SortKey.values();
+            Entry[] entries = new Entry[keys.length];
+            String categoryId = p.getCategoryId();
+            for (int i = 0; i < keys.length; i++) {
+                Entry e = new Entry(keys[i].valueOf(p), p.getProductId(), p);
+                entries[i] = e;
+                Map<String, ConcurrentSkipListSet<Entry>> byCategory = partitions.get(keys[i]);
+                byCategory.computeIfAbsent(ALL, k -> new ConcurrentSkipListSet<>()).add(e);
+                if (categoryId != null) {
+                    byCategory.computeIfAbsent(categoryId, k -> new ConcurrentSkipListSet<>()).add(e);
+                }
+            }
+            indexed.put(p.getProductId(), new Indexed(categoryId, entries));
+        }
+
+        void remove(String productId) {
+            Indexed old = indexed.remove(productId);
+            if (old == null) {
+                return;
+            }
+            SortKey[] keys = SortKey.values();
+            for (int i = 0; i < keys.length; i++) {
+                Map<String, ConcurrentSkipListSet<Entry>> byCategory = partitions.get(keys[i]);
+                byCategory.get(ALL).remove(old.entries()[i]);
+                if (old.categoryId() != null) {
+                    byCategory.get(old.categoryId()).remove(old.entries()[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets productionCost to the 50%-of-price default where it is missing. The
+ * cost is computed on the server from the current price, and the patched
+ * products are re-read into the catalog snapshot.
+ */
+@Component
+public class ProductionCostPatchTask implements JobTask<Product> {
+    public static final String TYPE = "patch-production-costs";
+
+    private static final AggregationUpdate DEFAULT_COST = AggregationUpdate.update()
+            .set("productionCost").toValue(new Document("$multiply", List.of("$price", 0.5)))
+            .set("updatedAt").toValue("$$NOW");
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalogCache catalogCache;
+
+    public ProductionCostPatchTask(MongoTemplate mongoTemplate, ProductCatalogCache catalogCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Product> entityType() {
+        return Product.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        return Criteria.where("productionCost").is(null);
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id");
+    }
+
+    @Override
+    public String idOf(Product product) {
+        return product.getProductId();
+    }
+
+    @Override
+    public int apply(List<Product> chunk, Map<String, String> params, BulkOperations ops) {
+        ops.updateMulti(new Query(new Criteria().andOperator(criteria(params), Criteria.where("_id").in(ids(chunk)))), DEFAULT_COST);
+        return 1;
+    }
+
+    @Override
+    public void afterChunk(List<Product> chunk, Map<String, String> params) {
+        mongoTemplate.find(new Query(Criteria.where("_id").in(ids(chunk))), Product.class)
+                .forEach(catalogCache::put);
+    }
+
+    private static List<String> ids(List<Product> chunk) {
+        return chunk.stream().map(Product::getProductId).toList();
+    }
+}
@@ -0,0 +1,94 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.Review;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Recomputes rating, ratingSum, ratingCount and ratingHistogram of every
+ * product from its reviews that were not declined (one indexed read of the
+ * reviews per chunk). With {@link #MISSING_ONLY} it only seeds the products
+ * rated before the aggregates existed; {@link DataMigrations} runs that on
+ * startup, and ReviewService seeds a product itself if it gets there first.
+ */
+@Component
+public class RatingAggregatesTask implements JobTask<Product> {
+    public static final String TYPE = "rebuild-rating-aggregates";
+    public static final Map<String, String> MISSING_ONLY = Map.of("missingOnly", "true");
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalogCache catalogCache;
+
+    public RatingAggregatesTask(MongoTemplate mongoTemplate, ProductCatalogCache catalogCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Product> entityType() {
+        return Product.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        if (missingOnly(params)) {
+            return Criteria.where("ratingCount").exists(false);
+        }
+        return Criteria.where("_id").exists(true);
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id");
+    }
+
+    @Override
+    public String idOf(Product product) {
+        return product.getProductId();
+    }
+
+    @Override
+    public int apply(List<Product> chunk, Map<String, String> params, BulkOperations ops) {
+        List<String> ids = ids(chunk);
+        Map<String, List<Review>> byProduct = new HashMap<>();
+        for (Review review : mongoTemplate.find(ReviewService.countedReviews(ids), Review.class)) {
+            byProduct.computeIfAbsent(review.getProductId(), k -> new ArrayList<>()).add(review);
+        }
+
+        for (String productId : ids) {
+            // when seeding, a product ReviewService seeded meanwhile already counts on from there
+            Criteria target = Criteria.where("_id").is(productId);
+            ops.updateOne(new Query(missingOnly(params) ? target.and("ratingCount").exists(false) : target),
+                    ReviewService.setRatingAggregates(new Update(), byProduct.getOrDefault(productId, List.of()))
+                            .currentDate("updatedAt"));
+        }
+        return ids.size();
+    }
+
+    @Override
+    public void afterChunk(List<Product> chunk, Map<String, String> params) {
+        mongoTemplate.find(new Query(Criteria.where("_id").in(ids(chunk))), Product.class)
+                .forEach(catalogCache::put);
+    }
+
+    private static boolean missingOnly(Map<String, String> params) {
+        return "true".equals(params.get("missingOnly"));
+    }
+
+    private static List<String> ids(List<Product> chunk) {
+        return chunk.stream().map(Product::getProductId).toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.BackgroundJob;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.UserRecommendations;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves the recommendations precomputed by {@link RecommendationTask}: one
+ * read by user id plus catalog cache lookups, no orders are touched. The
+ * lists are recomputed in the background on a fixed interval.
+ */
+@Service
+public class RecommendationService {
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalogCache catalogCache;
+    private final JobService jobService;
+
+    public RecommendationService(MongoTemplate mongoTemplate,
+                                 ProductCatalogCache catalogCache,
+                                 JobService jobService) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogCache = catalogCache;
+        this.jobService = jobService;
+    }
+
+    /** Empty if the user's recommendations were never computed. */
+    public Optional<List<Product>> getRecommendations(String userId, int limit) {
+        UserRecommendations stored = mongoTemplate.findById(userId, UserRecommendations.class);
+        if (stored == null || stored.getProductIds() == null) {
+            return Optional.empty();
+        }
+        catalogCache.refreshIfStale();
+        // products deleted since the last run simply drop out
+        return Optional.of(stored.getProductIds().stream()
+                .limit(Math.max(1, Math.min(limit, RecommendationTask.TOP_N)))
+                .map(catalogCache::get)
+                .flatMap(Optional::stream)
+                .toList());
+    }
+
+    @Scheduled(initialDelayString = "${recommendations.refresh-interval-ms:21600000}",
+            fixedDelayString = "${recommendations.refresh-interval-ms:21600000}")
+    public BackgroundJob refresh() {
+        return jobService.submit(RecommendationTask.TYPE);
+    }
+}
@@ -0,0 +1,122 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Order;
+import com.cs308.backend.models.User;
+import com.cs308.backend.models.UserRecommendations;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Precomputes the top {@link #TOP_N} recommendations of every user into
+ * user_recommendations. The item similarity model is built once per run from
+ * the paid, non-refunded orders and the wishlists; each chunk of users is
+ * then scored in parallel on the fork-join pool and upserted in one bulk
+ * write. A resumed run rebuilds the model before its first chunk.
+ */
+@Component
+public class RecommendationTask implements JobTask<User> {
+    public static final String TYPE = "compute-recommendations";
+    public static final int TOP_N = 20;
+
+    private final MongoTemplate mongoTemplate;
+    private volatile ItemSimilarityModel model;
+
+    public RecommendationTask(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<User> entityType() {
+        return User.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        return Criteria.where("_id").exists(true);
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id");
+    }
+
+    @Override
+    public String idOf(User user) {
+        return user.getUserId();
+    }
+
+    @Override
+    public void onStart(Map<String, String> params) {
+        model = buildModel();
+    }
+
+    @Override
+    public int apply(List<User> chunk, Map<String, String> params, BulkOperations ops) {
+        ItemSimilarityModel scoring = currentModel();
+        LocalDateTime now = LocalDateTime.now();
+        List<UserRecommendations> results = chunk.parallelStream()
+                .map(user -> new UserRecommendations(user.getUserId(), scoring.recommend(user.getUserId(), TOP_N), now))
+                .toList();
+
+        // the lists live in their own collection, so they get their own bulk write
+        BulkOperations upserts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserRecommendations.class);
+        for (UserRecommendations result : results) {
+            upserts.upsert(new Query(Criteria.where("_id").is(result.getUserId())), new Update()
+                    .set("productIds", result.getProductIds())
+                    .set("computedAt", result.getComputedAt()));
+        }
+        if (!results.isEmpty()) {
+            upserts.execute();
+        }
+        return 0;
+    }
+
+    @Override
+    public void onComplete(Map<String, String> params) {
+        model = null;
+    }
+
+    // a resumed job skipped onStart, so its first chunk builds the model
+    private ItemSimilarityModel currentModel() {
+        ItemSimilarityModel current = model;
+        if (current == null) {
+            current = buildModel();
+            model = current;
+        }
+        return current;
+    }
+
+    ItemSimilarityModel buildModel() {
+        ItemSimilarityModel.Builder builder = new ItemSimilarityModel.Builder();
+
+        Query paid = new Query(Criteria.where("paid").is(true));
+        paid.fields().include("userId", "productIds", "status");
+        try (Stream<Order> orders = mongoTemplate.stream(paid, Order.class)) {
+            // same rule as the previous-products list: refunded orders do not count
+            orders.filter(order -> !"Refunded".equalsIgnoreCase(order.getStatus()))
+                    .forEach(order -> builder.addPurchases(order.getUserId(), order.getProductIds()));
+        }
+
+        Query wishing = new Query(Criteria.where("wishList.0").exists(true));
+        wishing.fields().include("wishList");
+        try (Stream<User> users = mongoTemplate.stream(wishing, User.class)) {
+            users.forEach(user -> builder.addWishlist(user.getUserId(), user.getWishList()));
+        }
+        return builder.build();
+    }
+}
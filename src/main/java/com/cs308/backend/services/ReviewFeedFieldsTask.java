@@ -0,0 +1,82 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Review;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills hasComment, createdAt and helpfulCount on reviews posted before the
+ * review feed existed, so they show up in (and page through) the feed.
+ * createdAt is taken from the ObjectId timestamp of the review, or the epoch
+ * for ids that are not ObjectIds. Everything is computed on the server.
+ * {@link DataMigrations} queues it on startup; until it has finished,
+ * ReviewService fills the fields in per product before reading a feed.
+ */
+@Component
+public class ReviewFeedFieldsTask implements JobTask<Review> {
+    public static final String TYPE = "backfill-review-feed-fields";
+
+    static final AggregationUpdate FEED_FIELDS = AggregationUpdate.update()
+            .set("hasComment").toValue(new Document("$gt", List.of(
+                    new Document("$strLenCP", new Document("$trim",
+                            new Document("input", new Document("$ifNull", List.of("$comment", ""))))),
+                    0)))
+            .set("createdAt").toValue(new Document("$ifNull", List.of("$createdAt",
+                    new Document("$convert", new Document("input", "$_id").append("to", "date")
+                            .append("onError", new Date(0)).append("onNull", new Date(0))))))
+            .set("helpfulCount").toValue(new Document("$ifNull", List.of("$helpfulCount", 0)));
+
+    private final ReviewService reviewService;
+
+    public ReviewFeedFieldsTask(ReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Review> entityType() {
+        return Review.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        return Criteria.where("hasComment").exists(false);
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id");
+    }
+
+    @Override
+    public String idOf(Review review) {
+        return review.getReviewId();
+    }
+
+    @Override
+    public int apply(List<Review> chunk, Map<String, String> params, BulkOperations ops) {
+        List<String> ids = chunk.stream().map(Review::getReviewId).toList();
+        ops.updateMulti(new Query(new Criteria().andOperator(criteria(params), Criteria.where("_id").in(ids))), FEED_FIELDS);
+        return 1;
+    }
+
+    @Override
+    public void onComplete(Map<String, String> params) {
+        reviewService.markFeedFieldsBackfilled();
+        reviewService.invalidateAllFeeds();
+    }
+}
@@ -5,10 +5,27 @@ import com.cs308.backend.models.*;
 import com.cs308.backend.repositories.*;
 
 
+import com.cs308.backend.util.PageCursor;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 // in com.cs308.backend.services.ReviewService.java
@@ -16,20 +33,79 @@ import java.util.*;
 
 @Service
 public class ReviewService {
+    // products whose first feed pages are kept in memory
+    static final int FEED_CACHE_SIZE = 1000;
+    public static final int MAX_MODERATION_BATCH = 1000;
+
+    /** Orders of the review feed; each one is a compound index on Review. */
+    public enum FeedOrder {
+        NEWEST("createdAt"),
+        HELPFUL("helpfulCount");
+
+        private final String field;
+
+        FeedOrder(String field) {
+            this.field = field;
+        }
+
+        // cursor sort key of a review: createdAt in UTC epoch millis, or its helpful count
+        double sortKeyOf(Review review) {
+            if (this == HELPFUL) {
+                return review.getHelpfulCount();
+            }
+            return review.getCreatedAt() == null ? 0 : review.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+
+        Object fieldValue(double sortKey) {
+            if (this == HELPFUL) {
+                return (int) sortKey;
+            }
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli((long) sortKey), ZoneOffset.UTC);
+        }
+
+        /** Parses a sort parameter; null means newest first. */
+        public static FeedOrder parse(String sort) {
+            if (sort == null || sort.isBlank()) {
+                return NEWEST;
+            }
+            try {
+                return valueOf(sort.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown review order: " + sort);
+            }
+        }
+    }
+
     private final ReviewRepository reviewRepository;
-    private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final MongoTemplate mongoTemplate;
+
+    // First feed page per product (keyed by order and page size), least recently used product dropped first
+    private final Map<String, Map<String, ReviewPage>> firstPages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, ReviewPage>> eldest) {
+            return size() > FEED_CACHE_SIZE;
+        }
+    };
+    // bumped on every invalidation, so a page read before it is not cached after it
+    private final AtomicLong feedGeneration = new AtomicLong();
+    // false until every review has hasComment, createdAt and helpfulCount (ReviewFeedFieldsTask)
+    private volatile boolean feedFieldsBackfilled;
 
 
     public ReviewService(ReviewRepository reviewRepository,
-                         ProductRepository productRepository) {
+                         ProductCatalogCache catalogCache,
+                         MongoTemplate mongoTemplate) {
         this.reviewRepository = reviewRepository;
-        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.mongoTemplate = mongoTemplate;
     }
 
 
     public Review postReview(Review review) {
         // If user leaves a comment, set it as unverified
-        if (review.getComment() != null && !review.getComment().isBlank()) {
+        boolean hasComment = review.getComment() != null && !review.getComment().isBlank();
+        if (hasComment) {
             review.setVerified(false);   // comment must be approved
         } else {
             review.setVerified(true);    // no comment = auto-verified
@@ -37,39 +113,19 @@ public class ReviewService {
 
 
         review.setDeclined(false);
+        review.setHasComment(hasComment);
+        review.setHelpfulCount(0);
+        // millisecond precision, as stored by Mongo, so feed cursors compare exactly
+        review.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
         Review saved = reviewRepository.save(review);
 
 
-        // 1) Link into product.reviewIds
-        Product product = productRepository.findById(saved.getProductId())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Product not found: " + saved.getProductId()));
-
-
-        if (product.getReviewIds() == null) {
-            product.setReviewIds(new ArrayList<>());
+        // Link into product.reviewIds and add the rating to the product's aggregates in one update
+        Product product = updateRatings(saved.getProductId(), List.of(saved), 1,
+                new Update().push("reviewIds", saved.getReviewId()));
+        if (product == null) {
+            throw new IllegalArgumentException("Product not found: " + saved.getProductId());
         }
-        product.getReviewIds().add(saved.getReviewId());
-        productRepository.save(product);
-
-
-        // 2) Always immediately recompute the rating using ONLY real ratings
-        List<Review> allReviews = reviewRepository.findByProductId(product.getProductId());
-
-
-        List<Review> ratedReviews = allReviews.stream()
-                .filter(r -> r.getRating() > 0)
-                .toList();
-
-
-        double avg = ratedReviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-
-        product.setRating(avg);
-        productRepository.save(product);
 
 
         return saved;
@@ -80,32 +136,228 @@ public class ReviewService {
 
         return pending.stream()
                 .filter(r -> r.getComment() != null && !r.getComment().isBlank())
-                .map(r -> {
-                    Map<String, String> result = new HashMap<>();
-                    result.put("userId", r.getUserId());
-                    result.put("comment", r.getComment());
-                    result.put("productId", r.getProductId());  // add product ID
-                    result.put("reviewId", r.getReviewId());  // ✅ restore this
-                    return result;
-                })
+                .map(ReviewService::pendingComment)
                 .toList();
     }
 
 
+    /**
+     * Keyset page of the moderation queue (unverified, undeclined reviews),
+     * oldest first by id, served by the moderation_queue index.
+     */
+    public ReviewPage getPendingCommentsPage(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, ProductService.MAX_PAGE_SIZE));
+        PageCursor after = PageCursor.decode(cursor);
+        Criteria criteria = Criteria.where("verified").is(false).and("declined").is(false);
+        if (after != null) {
+            criteria = criteria.and("_id").gt(after.id());
+        }
+        Query query = new Query(criteria).with(Sort.by("_id")).limit(pageSize);
+        query.fields().include("userId", "comment", "productId");
+        List<Review> reviews = mongoTemplate.find(query, Review.class);
+
+        String next = reviews.size() == pageSize
+                ? new PageCursor(null, reviews.get(reviews.size() - 1).getReviewId()).encode()
+                : null;
+        return new ReviewPage(reviews.stream()
+                .filter(r -> r.getComment() != null && !r.getComment().isBlank())
+                .toList(), next);
+    }
+
+
+    public static Map<String, String> pendingComment(Review r) {
+        Map<String, String> result = new HashMap<>();
+        result.put("userId", r.getUserId());
+        result.put("comment", r.getComment());
+        result.put("productId", r.getProductId());  // add product ID
+        result.put("reviewId", r.getReviewId());  // ✅ restore this
+        return result;
+    }
+
+
 
     public Review approveReview(String reviewId) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new IllegalArgumentException("Review not found"));
         review.setVerified(true);
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        invalidateFeed(saved.getProductId());
+        return saved;
     }
 
 
     public Review declineReview(String reviewId) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new IllegalArgumentException("Review not found"));
+        // Conditional, so a review declined twice (or by a batch meanwhile) gives its rating back only once
+        long declined = mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(reviewId).and("declined").is(false)),
+                new Update().set("declined", true).set("verified", false), Review.class).getModifiedCount();
         review.setDeclined(true);
-        return reviewRepository.save(review);
+        review.setVerified(false);
+        if (declined > 0) {
+            updateRatings(review.getProductId(), List.of(review), -1, new Update());
+        }
+        invalidateFeed(review.getProductId());
+        return review;
+    }
+
+
+    /**
+     * Approves and declines up to {@link #MAX_MODERATION_BATCH} queued reviews in
+     * one bulk write. Only reviews still in the queue are changed; they are
+     * stamped with the batch id and read back, so the ratings taken back for
+     * declined reviews (one update per product) match exactly what this batch did.
+     */
+    public Map<String, Object> moderate(ReviewModeration request) {
+        Set<String> approve = new LinkedHashSet<>(request.getApprove() != null ? request.getApprove() : List.of());
+        Set<String> decline = new LinkedHashSet<>(request.getDecline() != null ? request.getDecline() : List.of());
+        if (approve.isEmpty() && decline.isEmpty()) {
+            throw new IllegalArgumentException("No reviews to moderate");
+        }
+        if (approve.size() + decline.size() > MAX_MODERATION_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_MODERATION_BATCH + " reviews per batch");
+        }
+        for (String reviewId : approve) {
+            if (decline.contains(reviewId)) {
+                throw new IllegalArgumentException("Review both approved and declined: " + reviewId);
+            }
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        if (!approve.isEmpty()) {
+            ops.updateMulti(pendingQuery(approve), new Update().set("verified", true).set("moderationBatch", batchId));
+        }
+        if (!decline.isEmpty()) {
+            ops.updateMulti(pendingQuery(decline), new Update().set("declined", true).set("moderationBatch", batchId));
+        }
+        BulkWriteResult result = ops.execute();
+
+        List<Review> moderated = List.of();
+        if (result.getModifiedCount() > 0) {
+            Query changed = new Query(Criteria.where("moderationBatch").is(batchId));
+            changed.fields().include("productId", "rating", "declined");
+            moderated = mongoTemplate.find(changed, Review.class);
+        }
+        Map<String, List<Review>> declinedByProduct = new HashMap<>();
+        Set<String> products = new HashSet<>();
+        for (Review review : moderated) {
+            products.add(review.getProductId());
+            if (review.isDeclined() && review.getRating() > 0) {
+                declinedByProduct.computeIfAbsent(review.getProductId(), k -> new ArrayList<>()).add(review);
+            }
+        }
+        declinedByProduct.forEach((productId, reviews) -> updateRatings(productId, reviews, -1, new Update()));
+        products.forEach(this::invalidateFeed);
+
+        long declinedCount = moderated.stream().filter(Review::isDeclined).count();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("approved", moderated.size() - declinedCount);
+        summary.put("declined", declinedCount);
+        // ids that were not in the queue (unknown or already moderated)
+        summary.put("skipped", approve.size() + decline.size() - moderated.size());
+        summary.put("productsUpdated", declinedByProduct.size());
+        return summary;
+    }
+
+
+    private static Query pendingQuery(Collection<String> reviewIds) {
+        return new Query(Criteria.where("_id").in(reviewIds).and("verified").is(false).and("declined").is(false));
+    }
+
+
+    /** Counts a "helpful" vote; the review moves up in the most-helpful feed. */
+    public Review markHelpful(String reviewId) {
+        Review review = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(reviewId)),
+                new Update().inc("helpfulCount", 1), FindAndModifyOptions.options().returnNew(true), Review.class);
+        if (review == null) {
+            throw new IllegalArgumentException("Review not found");
+        }
+        invalidateFeed(review.getProductId());
+        return review;
+    }
+
+
+    /**
+     * Keyset page of a product's verified reviews with a comment, newest or
+     * most helpful first. The cursor is (createdAt in epoch millis or
+     * helpfulCount, reviewId) of the last review. First pages come from a
+     * bounded LRU cache that moderation, votes and deletes invalidate.
+     */
+    public ReviewPage getReviewFeed(String productId, FeedOrder order, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, ProductService.MAX_PAGE_SIZE));
+        PageCursor after = PageCursor.decode(cursor);
+        if (after != null) {
+            return readFeed(productId, order, after, pageSize);
+        }
+
+        String key = order + ":" + pageSize;
+        long generation = feedGeneration.get();
+        synchronized (firstPages) {
+            Map<String, ReviewPage> pages = firstPages.get(productId);
+            if (pages != null && pages.containsKey(key)) {
+                return pages.get(key);
+            }
+        }
+        ReviewPage page = readFeed(productId, order, null, pageSize);
+        synchronized (firstPages) {
+            if (feedGeneration.get() == generation) {
+                firstPages.computeIfAbsent(productId, id -> new HashMap<>()).put(key, page);
+            }
+        }
+        return page;
+    }
+
+
+    /** Drops the cached first feed pages of a product. */
+    public void invalidateFeed(String productId) {
+        synchronized (firstPages) {
+            feedGeneration.incrementAndGet();
+            firstPages.remove(productId);
+        }
+    }
+
+
+    /** Called once no review lacks the feed fields; feeds stop filling them in on read. */
+    public void markFeedFieldsBackfilled() {
+        feedFieldsBackfilled = true;
+    }
+
+
+    /** Drops every cached feed page, e.g. after reviews were changed in bulk. */
+    public void invalidateAllFeeds() {
+        synchronized (firstPages) {
+            feedGeneration.incrementAndGet();
+            firstPages.clear();
+        }
+    }
+
+
+    private ReviewPage readFeed(String productId, FeedOrder order, PageCursor after, int pageSize) {
+        if (!feedFieldsBackfilled) {
+            // reviews posted before the feed would not match it; one indexed no-op once they are done
+            mongoTemplate.updateMulti(new Query(Criteria.where("productId").is(productId).and("hasComment").exists(false)),
+                    ReviewFeedFieldsTask.FEED_FIELDS, Review.class);
+        }
+        Criteria criteria = Criteria.where("productId").is(productId).and("verified").is(true).and("hasComment").is(true);
+        if (after != null) {
+            Object key = order.fieldValue(after.sortKey() == null ? 0 : after.sortKey());
+            criteria = criteria.orOperator(
+                    Criteria.where(order.field).lt(key),
+                    Criteria.where(order.field).is(key).and("_id").lt(after.id()));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, order.field, "_id"))
+                .limit(pageSize);
+        List<Review> reviews = List.copyOf(mongoTemplate.find(query, Review.class));
+
+        String next = null;
+        if (reviews.size() == pageSize) {
+            Review last = reviews.get(reviews.size() - 1);
+            next = new PageCursor(order.sortKeyOf(last), last.getReviewId()).encode();
+        }
+        return new ReviewPage(reviews, next);
     }
 
 
@@ -123,41 +375,148 @@ public class ReviewService {
 
 
     public void deleteReview(String reviewId) {
-        // 1) Fetch the review first
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
+        // Removed and read in one step, so a concurrent delete or decline cannot take the rating back twice
+        Review review = mongoTemplate.findAndRemove(new Query(Criteria.where("_id").is(reviewId)), Review.class);
+        if (review == null) {
+            throw new IllegalArgumentException("Review not found: " + reviewId);
+        }
 
+        // a declined review's rating was already taken back when it was declined
+        updateRatings(review.getProductId(), review.isDeclined() ? List.of() : List.of(review), -1,
+                new Update().pull("reviewIds", reviewId));
+        invalidateFeed(review.getProductId());
+    }
 
-        // 2) Fetch the associated product
-        Product product = productRepository.findById(review.getProductId())
-                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + review.getProductId()));
 
+    /**
+     * Average, number of ratings and the 1-5 star histogram of a product,
+     * answered from the catalog snapshot without reading any reviews.
+     */
+    public Optional<Map<String, Object>> getRatingSummary(String productId) {
+        return catalogCache.get(productId).map(product -> {
+            Map<String, Integer> histogram = new LinkedHashMap<>();
+            for (int star = 1; star <= 5; star++) {
+                Integer count = product.getRatingHistogram() == null
+                        ? null : product.getRatingHistogram().get(String.valueOf(star));
+                histogram.put(String.valueOf(star), count == null ? 0 : count);
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("productId", product.getProductId());
+            summary.put("average", product.getRating());
+            summary.put("count", product.getRatingCount());
+            summary.put("histogram", histogram);
+            return summary;
+        });
+    }
+
+
+    /** Histogram bucket of a rating: rounded to the nearest whole star. */
+    static int star(double rating) {
+        return (int) Math.max(1, Math.min(5, Math.round(rating)));
+    }
 
-        // 3) Remove the review ID from the product's reviewIds list
-        if (product.getReviewIds() != null) {
-            product.getReviewIds().removeIf(id -> id.equals(reviewId));
-        }
+
+    /** The reviews a product's rating is computed from: rated and not declined. */
+    static Query countedReviews(Collection<String> productIds) {
+        Query query = new Query(Criteria.where("productId").in(productIds).and("rating").gt(0).and("declined").ne(true));
+        query.fields().include("productId", "rating");
+        return query;
+    }
 
 
-        // 4) Save the updated product
-        productRepository.save(product);
+    /** Sets rating, ratingSum, ratingCount and ratingHistogram from all of a product's counted reviews. */
+    static Update setRatingAggregates(Update update, Collection<Review> reviews) {
+        double sum = 0;
+        Map<String, Integer> histogram = new HashMap<>();
+        for (Review review : reviews) {
+            sum += review.getRating();
+            histogram.merge(String.valueOf(star(review.getRating())), 1, Integer::sum);
+        }
+        return update
+                .set("ratingSum", sum)
+                .set("ratingCount", reviews.size())
+                .set("ratingHistogram", histogram)
+                .set("rating", reviews.isEmpty() ? 0.0 : sum / reviews.size());
+    }
 
 
-        // 5) Delete the review
-        reviewRepository.deleteById(reviewId);
+    // Adds (delta 1) or removes (delta -1) the ratings of the reviews with one $inc and returns the
+    // updated product, or null when it does not exist. Reviews without a rating (0) are not counted.
+    private Product updateRatings(String productId, Collection<Review> reviews, int delta, Update update) {
+        double sum = 0;
+        int count = 0;
+        Map<String, Integer> histogram = new TreeMap<>();
+        for (Review review : reviews) {
+            if (review.getRating() > 0) {
+                sum += review.getRating();
+                count++;
+                histogram.merge(String.valueOf(star(review.getRating())), 1, Integer::sum);
+            }
+        }
+        boolean rated = count > 0;
+        Update counted = rated ? copyOf(update) : update;
+        if (rated) {
+            counted.inc("ratingSum", delta * sum).inc("ratingCount", delta * count);
+            histogram.forEach((star, n) -> counted.inc("ratingHistogram." + star, delta * n));
+        }
+        if (counted.getUpdateObject().isEmpty()) {
+            return null;
+        }
+        counted.currentDate("updatedAt");
+        // counting on top of counters that do not exist yet would start them from zero
+        Criteria byId = rated
+                ? Criteria.where("_id").is(productId).and("ratingCount").exists(true)
+                : Criteria.where("_id").is(productId);
+        Product product = mongoTemplate.findAndModify(new Query(byId), counted,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null && rated) {
+            product = seedRatings(productId, update);
+            if (product != null) {
+                catalogCache.put(product);
+                return product;
+            }
+            // seeded by someone else in between, or the product does not exist
+            product = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(productId)), counted,
+                    FindAndModifyOptions.options().returnNew(true), Product.class);
+        }
+        if (product == null) {
+            return null;
+        }
+        if (rated) {
+            double average = product.getRatingCount() > 0 ? product.getRatingSum() / product.getRatingCount() : 0.0;
+            product.setRating(average);
+            // Only while the counters are still the ones we produced; a review that landed
+            // in between writes the newer average (and refreshes the cache) itself.
+            Query unchanged = new Query(Criteria.where("_id").is(productId)
+                    .and("ratingSum").is(product.getRatingSum())
+                    .and("ratingCount").is(product.getRatingCount()));
+            if (mongoTemplate.updateFirst(unchanged, new Update().set("rating", average).currentDate("updatedAt"), Product.class)
+                    .getMatchedCount() == 0) {
+                return product;
+            }
+        }
+        catalogCache.put(product);
+        return product;
+    }
 
 
-        // 6) Recompute the average rating
-        List<Review> remainingReviews = reviewRepository.findByProductId(product.getProductId());
-        double newAvg = remainingReviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-        product.setRating(newAvg);
+    // A product rated before the aggregates existed: computes them from its reviews, which already
+    // include the change being recorded, together with the rest of the update. Null if the
+    // counters were seeded meanwhile (or the product does not exist).
+    private Product seedRatings(String productId, Update update) {
+        List<Review> reviews = mongoTemplate.find(countedReviews(List.of(productId)), Review.class);
+        Update seeded = setRatingAggregates(copyOf(update), reviews).currentDate("updatedAt");
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(productId).and("ratingCount").exists(false)), seeded,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
 
 
-        // 7) Save product again after rating update
-        productRepository.save(product);
+    private static Update copyOf(Update update) {
+        Document copy = new Document();
+        update.getUpdateObject().forEach((operator, fields) ->
+                copy.put(operator, fields instanceof Document d ? new Document(d) : fields));
+        return Update.fromDocument(copy);
     }
 
 
@@ -0,0 +1,169 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Category;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.repositories.CategoryRepository;
+import com.cs308.backend.util.SuggestionTrie;
+import com.cs308.backend.util.TextNormalizer;
+
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typeahead over product and category names.
+ *
+ * Product names come from the catalog snapshot (this is a
+ * {@link CatalogListener}), ranked by rating; unpriced products are left out
+ * like in search. Category names are loaded from Mongo on first use and kept
+ * current by {@link CategoryService}; they are ranked by how many products
+ * of the snapshot they hold.
+ * Every word of a name is a key, so "lap" suggests "Gaming Laptop".
+ */
+@Service
+public class SearchSuggestService implements CatalogListener {
+    private static final int TOP_K = 10;
+
+    private final CategoryRepository categoryRepository;
+    private final SuggestionTrie productTrie = new SuggestionTrie(TOP_K);
+    private final SuggestionTrie categoryTrie = new SuggestionTrie(TOP_K);
+    private final Map<String, Integer> productCounts = new ConcurrentHashMap<>();
+    private final Map<String, String> categoryNames = new ConcurrentHashMap<>();
+    private volatile boolean categoriesLoaded = false;
+
+    public SearchSuggestService(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    public Map<String, Object> suggest(String prefix, int limit) {
+        int max = Math.max(1, Math.min(limit, TOP_K));
+        String key = TextNormalizer.fold(prefix).strip();
+        ensureCategoriesLoaded();
+
+        List<Map<String, Object>> products = productTrie.suggest(key, max).stream()
+                .map(s -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("productId", s.id());
+                    m.put("productName", s.text());
+                    m.put("rating", s.score());
+                    return m;
+                })
+                .toList();
+        List<Map<String, Object>> categories = categoryTrie.suggest(key, max).stream()
+                .map(s -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("categoryId", s.id());
+                    m.put("categoryName", s.text());
+                    return m;
+                })
+                .toList();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("products", products);
+        response.put("categories", categories);
+        return response;
+    }
+
+    // --- product updates (through ProductCatalogCache) ---
+
+    @Override
+    public void onCatalogReload(Collection<Product> products) {
+        productTrie.clear();
+        productCounts.clear();
+        for (Product p : products) {
+            indexProduct(p);
+            if (p.getCategoryId() != null) {
+                productCounts.merge(p.getCategoryId(), 1, Integer::sum);
+            }
+        }
+        categoryNames.keySet().forEach(this::reindexCategory);
+    }
+
+    @Override
+    public void onProductUpdated(Product previous, Product current) {
+        indexProduct(current);
+        String before = previous == null ? null : previous.getCategoryId();
+        if (!Objects.equals(before, current.getCategoryId())) {
+            adjustCount(before, -1);
+            adjustCount(current.getCategoryId(), 1);
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Product previous) {
+        productTrie.remove(previous.getProductId());
+        adjustCount(previous.getCategoryId(), -1);
+    }
+
+    // --- category updates (called by CategoryService) ---
+
+    public void onCategorySaved(Category category) {
+        if (categoriesLoaded) {
+            indexCategory(category);
+        }
+    }
+
+    public void onCategoryRemoved(String categoryId) {
+        categoryNames.remove(categoryId);
+        categoryTrie.remove(categoryId);
+    }
+
+    private void ensureCategoriesLoaded() {
+        if (categoriesLoaded) {
+            return;
+        }
+        synchronized (categoryTrie) {
+            if (!categoriesLoaded) {
+                for (Category c : categoryRepository.findAll()) {
+                    indexCategory(c);
+                }
+                categoriesLoaded = true;
+            }
+        }
+    }
+
+    private void indexProduct(Product p) {
+        if (p.getPrice() <= 0 || p.getProductName() == null || p.getProductName().isBlank()) {
+            productTrie.remove(p.getProductId());
+            return;
+        }
+        productTrie.put(new SuggestionTrie.Suggestion(p.getProductId(), p.getProductName(), p.getRating()),
+                keysFor(p.getProductName()));
+    }
+
+    private void indexCategory(Category c) {
+        if (c.getCategoryName() == null || c.getCategoryName().isBlank()) {
+            return;
+        }
+        categoryNames.put(c.getCategoryId(), c.getCategoryName());
+        reindexCategory(c.getCategoryId());
+    }
+
+    private void reindexCategory(String categoryId) {
+        String name = categoryNames.get(categoryId);
+        if (name == null) {
+            return;
+        }
+        int count = productCounts.getOrDefault(categoryId, 0);
+        categoryTrie.put(new SuggestionTrie.Suggestion(categoryId, name, count), keysFor(name));
+    }
+
+    private void adjustCount(String categoryId, int delta) {
+        if (categoryId == null) {
+            return;
+        }
+        productCounts.merge(categoryId, Math.max(0, delta), (a, b) -> Math.max(0, a + delta));
+        reindexCategory(categoryId);
+    }
+
+    /** The whole folded name plus the suffix starting at each later word. */
+    private static List<String> keysFor(String name) {
+        List<String> tokens = TextNormalizer.tokenize(name);
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return keys;
+    }
+}
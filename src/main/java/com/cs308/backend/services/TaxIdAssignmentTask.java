@@ -0,0 +1,55 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.User;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/** Gives every user without a tax id a random one. */
+@Component
+public class TaxIdAssignmentTask implements JobTask<User> {
+    public static final String TYPE = "assign-tax-ids";
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<User> entityType() {
+        return User.class;
+    }
+
+    @Override
+    public Criteria criteria(Map<String, String> params) {
+        // null also matches a missing field
+        return new Criteria().orOperator(
+                Criteria.where("taxId").is(null),
+                Criteria.where("taxId").regex("^\\s*$"));
+    }
+
+    @Override
+    public List<String> fields() {
+        return List.of("_id");
+    }
+
+    @Override
+    public String idOf(User user) {
+        return user.getUserId();
+    }
+
+    @Override
+    public int apply(List<User> chunk, Map<String, String> params, BulkOperations ops) {
+        for (User user : chunk) {
+            Query stillMissing = new Query(new Criteria().andOperator(Criteria.where("_id").is(user.getUserId()), criteria(params)));
+            ops.updateOne(stillMissing, new Update().set("taxId", UserService.generateRandomTaxId()));
+        }
+        return chunk.size();
+    }
+}
@@ -0,0 +1,341 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.TrendingCounter;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * What is hot right now: cart adds (weight 1) and purchased units (weight 3)
+ * per product over the last hour, day and week.
+ *
+ * Every product has one ring of time buckets per window; a bucket is a
+ * {@link LongAdder}, so concurrent events never block each other. When a
+ * slot is reused for a new bucket it is reset, and an increment racing with
+ * that reset can be lost, which is fine for a ranking. Rankings are computed
+ * from memory and reused for {@link #RANKING_TTL_MS}.
+ *
+ * The counters are checkpointed to trending_counters on a fixed interval,
+ * one document per product and node so nodes never overwrite each other.
+ * On first use after a restart the checkpoints of all nodes are added up
+ * into read-only rings next to the node's own, which are the only counts it
+ * writes back. Past that, like the co-purchase matrix, every node keeps its
+ * own counters.
+ */
+@Component
+public class TrendingProducts {
+    public static final int MAX_K = 100;
+    static final long CART_WEIGHT = 1;
+    static final long PURCHASE_WEIGHT = 3;
+    static final long RANKING_TTL_MS = 5_000;
+
+    public enum Window {
+        HOUR("1h", 60_000L, 60),
+        DAY("24h", 3_600_000L, 24),
+        WEEK("7d", 6 * 3_600_000L, 28);
+
+        private final String label;
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(String label, long bucketMillis, int buckets) {
+            this.label = label;
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        long bucketOf(long millis) {
+            return millis / bucketMillis;
+        }
+
+        /** Parses a window parameter ("1h", "24h", "7d" or the enum name); null means the last 24 hours. */
+        public static Window parse(String window) {
+            if (window == null || window.isBlank()) {
+                return DAY;
+            }
+            for (Window w : values()) {
+                if (w.label.equalsIgnoreCase(window.trim()) || w.name().equalsIgnoreCase(window.trim())) {
+                    return w;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown trending window: " + window);
+        }
+    }
+
+    private record Ranking(long computedAt, List<String> productIds) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<Window, Ranking> rankings = new ConcurrentHashMap<>();
+    private volatile boolean restored;
+
+    public TrendingProducts(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void recordCartAdd(String productId) {
+        record(productId, CART_WEIGHT, System.currentTimeMillis());
+    }
+
+    /** Counts every unit of a newly paid order. */
+    public void recordPurchase(List<String> productIds, List<Integer> quantities) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < productIds.size(); i++) {
+            int quantity = quantities != null && i < quantities.size() && quantities.get(i) != null ? quantities.get(i) : 1;
+            record(productIds.get(i), PURCHASE_WEIGHT * Math.max(1, quantity), now);
+        }
+    }
+
+    /** Ids of the up to limit hottest products in the window, hottest first. */
+    public List<String> top(Window window, int limit) {
+        return top(window, limit, System.currentTimeMillis());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("restored", restored);
+        stats.put("products", counters.size());
+        return stats;
+    }
+
+    @Scheduled(initialDelayString = "${trending.checkpoint-interval-ms:60000}", fixedDelayString = "${trending.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        try {
+            checkpoint(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            System.err.println("Trending checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    void record(String productId, long weight, long now) {
+        if (productId != null) {
+            counters.computeIfAbsent(productId, id -> new Counter()).add(now, weight);
+        }
+    }
+
+    List<String> top(Window window, int limit, long now) {
+        restoreIfNeeded(now);
+        Ranking ranking = rankings.get(window);
+        if (ranking == null || now - ranking.computedAt() >= RANKING_TTL_MS || now < ranking.computedAt()) {
+            ranking = new Ranking(now, rank(window, now));
+            rankings.put(window, ranking);
+        }
+        List<String> ids = ranking.productIds();
+        return ids.subList(0, Math.max(0, Math.min(limit, ids.size())));
+    }
+
+    /** Writes this node's changed counters and drops the ones that aged out of every window; returns the writes. */
+    int checkpoint(long now) {
+        if (!restoreIfNeeded(now)) {
+            // writing now would overwrite checkpoints we have not merged yet
+            return 0;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingCounter.class);
+        int writes = 0;
+        LocalDateTime checkpointedAt = LocalDateTime.now();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            Query byId = new Query(Criteria.where("_id").is(entry.getKey() + ":" + nodeId));
+            Counter counter = entry.getValue();
+            if (counter.total(Window.WEEK, now) == 0) {
+                counters.remove(entry.getKey(), counter);
+                ops.remove(byId);
+                writes++;
+            } else if (counter.dirty.getAndSet(false)) {
+                ops.upsert(byId, new Update()
+                        .set("productId", entry.getKey())
+                        .set("nodeId", nodeId)
+                        .set("buckets", counter.liveBuckets(now))
+                        .set("checkpointedAt", checkpointedAt));
+                writes++;
+            }
+        }
+        if (writes > 0) {
+            ops.execute();
+        }
+        return writes;
+    }
+
+    private List<String> rank(Window window, long now) {
+        Comparator<Map.Entry<String, Long>> hotter = Map.Entry.<String, Long>comparingByValue()
+                .thenComparing(Map.Entry.<String, Long>comparingByKey().reversed());
+        // min-heap of the best MAX_K so far
+        PriorityQueue<Map.Entry<String, Long>> best = new PriorityQueue<>(MAX_K + 1, hotter);
+        counters.forEach((productId, counter) -> {
+            long total = counter.total(window, now);
+            if (total > 0) {
+                best.add(Map.entry(productId, total));
+                if (best.size() > MAX_K) {
+                    best.poll();
+                }
+            }
+        });
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(best);
+        sorted.sort(hotter.reversed());
+        return sorted.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private boolean restoreIfNeeded(long now) {
+        if (restored) {
+            return true;
+        }
+        synchronized (this) {
+            if (!restored) {
+                try (Stream<TrendingCounter> saved = mongoTemplate.stream(new Query(), TrendingCounter.class)) {
+                    // every node's counts, added next to what was counted since startup
+                    saved.forEach(doc -> counters.computeIfAbsent(doc.getProductId(), id -> new Counter()).restore(doc, now));
+                    restored = true;
+                } catch (RuntimeException e) {
+                    System.err.println("Could not restore trending counters: " + e.getMessage());
+                }
+                if (restored) {
+                    removeAbandoned();
+                }
+            }
+            return restored;
+        }
+    }
+
+    /**
+     * Checkpoints not written for a whole week hold no live bucket: left by
+     * nodes that stopped or restarted under a new id.
+     */
+    private void removeAbandoned() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(Window.WEEK.bucketMillis * Window.WEEK.buckets));
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("checkpointedAt").lt(cutoff)), TrendingCounter.class);
+        } catch (RuntimeException e) {
+            System.err.println("Could not remove abandoned trending checkpoints: " + e.getMessage());
+        }
+    }
+
+    /** The rings of one product, one per window: this node's counts and those restored from checkpoints. */
+    static final class Counter {
+        private final Ring[] rings = newRings();
+        private final Ring[] restored = newRings();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        private static Ring[] newRings() {
+            Ring[] rings = new Ring[Window.values().length];
+            for (Window window : Window.values()) {
+                rings[window.ordinal()] = new Ring(window.buckets);
+            }
+            return rings;
+        }
+
+        void add(long now, long weight) {
+            for (Window window : Window.values()) {
+                rings[window.ordinal()].add(window.bucketOf(now), weight);
+            }
+            dirty.set(true);
+        }
+
+        long total(Window window, long now) {
+            long current = window.bucketOf(now);
+            return rings[window.ordinal()].sum(current) + restored[window.ordinal()].sum(current);
+        }
+
+        /** This node's own live buckets; the restored counts stay in the checkpoints they came from. */
+        Map<String, Map<String, Long>> liveBuckets(long now) {
+            Map<String, Map<String, Long>> buckets = new HashMap<>();
+            for (Window window : Window.values()) {
+                buckets.put(window.label, rings[window.ordinal()].live(window.bucketOf(now)));
+            }
+            return buckets;
+        }
+
+        void restore(TrendingCounter saved, long now) {
+            if (saved.getBuckets() == null) {
+                return;
+            }
+            for (Window window : Window.values()) {
+                Map<String, Long> buckets = saved.getBuckets().get(window.label);
+                if (buckets == null) {
+                    continue;
+                }
+                long current = window.bucketOf(now);
+                buckets.forEach((bucket, count) -> {
+                    long b = Long.parseLong(bucket);
+                    if (b > current - window.buckets && b <= current && count != null) {
+                        restored[window.ordinal()].add(b, count);
+                    }
+                });
+            }
+        }
+    }
+
+    /** Counts per time bucket; slot i holds the bucket stamped in stamps[i]. */
+    static final class Ring {
+        private final AtomicLongArray stamps;
+        private final LongAdder[] counts;
+
+        Ring(int size) {
+            stamps = new AtomicLongArray(size);
+            counts = new LongAdder[size];
+            for (int i = 0; i < size; i++) {
+                stamps.set(i, -1);
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void add(long bucket, long delta) {
+            int slot = (int) (bucket % counts.length);
+            long stamp = stamps.get(slot);
+            if (stamp > bucket) {
+                // the slot already moved on to a newer bucket
+                return;
+            }
+            if (stamp < bucket && stamps.compareAndSet(slot, stamp, bucket)) {
+                counts[slot].reset();
+            }
+            counts[slot].add(delta);
+        }
+
+        long sum(long current) {
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (isLive(stamps.get(i), current)) {
+                    total += counts[i].sum();
+                }
+            }
+            return total;
+        }
+
+        Map<String, Long> live(long current) {
+            Map<String, Long> live = new HashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                long stamp = stamps.get(i);
+                long count = counts[i].sum();
+                if (isLive(stamp, current) && count > 0) {
+                    live.put(Long.toString(stamp), count);
+                }
+            }
+            return live;
+        }
+
+        private boolean isLive(long stamp, long current) {
+            return stamp > current - counts.length && stamp <= current;
+        }
+    }
+}
@@ -124,7 +124,7 @@ public class UserService {
                         new UsernameNotFoundException("No user with ID " + userId));
     }
 
-    private String generateRandomTaxId() {
+    static String generateRandomTaxId() {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         Random random = new Random();
         StringBuilder sb = new StringBuilder(8);
@@ -134,19 +134,5 @@ public class UserService {
         return sb.toString();
     }
 
-    public ResponseEntity<String> assignTaxIdsToUsers() {
-        List<User> users = userRepository.findAll();
-        int updatedCount = 0;
-
-        for (User user : users) {
-            if (user.getTaxId() == null || user.getTaxId().isBlank()) {
-                user.setTaxId(generateRandomTaxId());
-                userRepository.save(user);
-                updatedCount++;
-            }
-        }
-
-        return ResponseEntity.ok("Tax IDs assigned to " + updatedCount + " users.");
-    }
 
 }
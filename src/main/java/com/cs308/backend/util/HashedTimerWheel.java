@@ -0,0 +1,162 @@
+package com.cs308.backend.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timer wheel: a ring of buckets, one per tick. A timer lands in the
+ * bucket of its deadline tick with the number of full turns still to wait,
+ * so each tick only looks at one bucket and scheduling or cancelling is
+ * O(1) no matter how many timers are pending.
+ *
+ * The wheel is passive: whoever owns it calls {@link #advance} (usually
+ * once per tick from a single thread) and expired tasks run on that thread.
+ * {@link #schedule} may be called from any thread; new timers are handed
+ * over through a queue and placed on the next advance. Cancelled timers are
+ * dropped when their bucket comes up.
+ */
+public final class HashedTimerWheel {
+
+    public interface Timeout {
+        long deadline();
+
+        boolean isExpired();
+
+        /** Returns false if the timer already fired or was cancelled. */
+        boolean cancel();
+    }
+
+    private final long tickMillis;
+    private final List<Entry>[] buckets;
+    private final int mask;
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private long nextTick;   // first tick not processed yet
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = new List[Math.max(1, size)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = buckets.length - 1;
+        this.nextTick = startMillis / tickMillis;
+    }
+
+    /** Runs task on the first advance at or after deadlineMillis. */
+    public Timeout schedule(long deadlineMillis, Runnable task) {
+        Entry entry = new Entry(deadlineMillis, task);
+        pending.incrementAndGet();
+        added.add(entry);
+        return entry;
+    }
+
+    /** Processes every tick up to nowMillis and runs what expired; returns how many tasks ran. */
+    public int advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        int fired = 0;
+        while (nextTick <= nowTick) {
+            placeAdded();
+            fired += expire(buckets[(int) (nextTick & mask)]);
+            nextTick++;
+        }
+        return fired;
+    }
+
+    /** Timers neither fired nor cancelled. */
+    public int size() {
+        return pending.get();
+    }
+
+    private void placeAdded() {
+        Entry entry;
+        while ((entry = added.poll()) != null) {
+            if (entry.state.get() != Entry.WAITING) {
+                continue;
+            }
+            // a deadline in the past goes into the current tick
+            long tick = Math.max(entry.deadline / tickMillis, nextTick);
+            entry.rounds = (tick - nextTick) / buckets.length;
+            buckets[(int) (tick & mask)].add(entry);
+        }
+    }
+
+    private int expire(List<Entry> bucket) {
+        int fired = 0;
+        List<Entry> due = null;
+        for (Iterator<Entry> it = bucket.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.state.get() != Entry.WAITING) {
+                it.remove();
+            } else if (entry.rounds > 0) {
+                entry.rounds--;
+            } else {
+                it.remove();
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.add(entry);
+            }
+        }
+        if (due != null) {
+            // run outside the iteration: a task may schedule new timers
+            for (Entry entry : due) {
+                if (entry.state.compareAndSet(Entry.WAITING, Entry.EXPIRED)) {
+                    pending.decrementAndGet();
+                    fired++;
+                    try {
+                        entry.task.run();
+                    } catch (RuntimeException e) {
+                        // one failing task must not stop the others in the bucket
+                        System.err.println("Timer task failed: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return fired;
+    }
+
+    private final class Entry implements Timeout {
+        static final int WAITING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        final long deadline;
+        final Runnable task;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        long rounds;
+
+        Entry(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        @Override
+        public long deadline() {
+            return deadline;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
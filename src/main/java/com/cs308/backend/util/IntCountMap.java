@@ -0,0 +1,98 @@
+package com.cs308.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from non-negative int keys to int counts, stored in two flat
+ * arrays (open addressing, linear probing) so neither keys nor counts are
+ * boxed. Entries are never removed. Not thread-safe.
+ */
+public final class IntCountMap {
+    private static final int FREE = -1;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int count);
+    }
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    public IntCountMap() {
+        this(4);
+    }
+
+    public IntCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /** Adds delta to the count of key and returns the new count. */
+    public int add(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key: " + key);
+        }
+        int i = slot(keys, key);
+        if (keys[i] == key) {
+            counts[i] += delta;
+            return counts[i];
+        }
+        keys[i] = key;
+        counts[i] = delta;
+        // keep the table at most 3/4 full so probe sequences stay short
+        if (++size * 4 > keys.length * 3) {
+            grow();
+        }
+        return delta;
+    }
+
+    /** @return the count of key, 0 if it was never added */
+    public int get(int key) {
+        if (key < 0) {
+            return 0;
+        }
+        int i = slot(keys, key);
+        return keys[i] == key ? counts[i] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int j = slot(keys, oldKeys[i]);
+                keys[j] = oldKeys[i];
+                counts[j] = oldCounts[i];
+            }
+        }
+    }
+
+    // index of key in the table, or of the free slot where it would go
+    private static int slot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int h = key * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        while (keys[i] != FREE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+}
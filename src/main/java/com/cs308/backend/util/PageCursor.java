@@ -0,0 +1,38 @@
+package com.cs308.backend.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort key and id of the last item on a page.
+ * The next page starts strictly after (sortKey, id), so deep pages cost the
+ * same as the first one. {@code sortKey} is null for listings ordered by id only.
+ */
+public record PageCursor(Double sortKey, String id) {
+
+    public String encode() {
+        String raw = (sortKey == null ? "" : Double.toString(sortKey)) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return the decoded cursor, or null for a missing/blank cursor (first page) */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("missing id");
+            }
+            Double sortKey = sep == 0 ? null : Double.valueOf(raw.substring(0, sep));
+            return new PageCursor(sortKey, raw.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+        }
+    }
+}
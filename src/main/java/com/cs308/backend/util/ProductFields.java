@@ -0,0 +1,101 @@
+package com.cs308.backend.util;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.ProductSummary;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Field selection for product listings ({@code ?fields=productId,price} or
+ * {@code ?fields=summary}). Selected products are rendered as maps holding
+ * only the requested fields, in the order they were asked for.
+ */
+public final class ProductFields {
+    public static final String SUMMARY = "summary";
+
+    private static final Map<String, Function<Product, Object>> PRODUCT = new LinkedHashMap<>();
+    private static final Map<String, Function<ProductSummary, Object>> SUMMARY_FIELDS = new LinkedHashMap<>();
+
+    static {
+        PRODUCT.put("productId", Product::getProductId);
+        PRODUCT.put("productName", Product::getProductName);
+        PRODUCT.put("price", Product::getPrice);
+        PRODUCT.put("rating", Product::getRating);
+        PRODUCT.put("ratingCount", Product::getRatingCount);
+        PRODUCT.put("ratingHistogram", Product::getRatingHistogram);
+        PRODUCT.put("stockCount", Product::getStockCount);
+        PRODUCT.put("categoryId", Product::getCategoryId);
+        PRODUCT.put("listedAt", Product::getListedAt);
+        PRODUCT.put("productInfo", Product::getProductInfo);
+        PRODUCT.put("serialNumber", Product::getSerialNumber);
+        PRODUCT.put("warrantyStatus", Product::getWarrantyStatus);
+        PRODUCT.put("distributorInfo", Product::getDistributorInfo);
+        PRODUCT.put("productionCost", Product::getProductionCost);
+        PRODUCT.put("reviewIds", Product::getReviewIds);
+
+        SUMMARY_FIELDS.put("productId", ProductSummary::getProductId);
+        SUMMARY_FIELDS.put("productName", ProductSummary::getProductName);
+        SUMMARY_FIELDS.put("price", ProductSummary::getPrice);
+        SUMMARY_FIELDS.put("rating", ProductSummary::getRating);
+        SUMMARY_FIELDS.put("stockCount", ProductSummary::getStockCount);
+        SUMMARY_FIELDS.put("categoryId", ProductSummary::getCategoryId);
+        SUMMARY_FIELDS.put("listedAt", ProductSummary::getListedAt);
+    }
+
+    private ProductFields() {
+    }
+
+    /**
+     * Parses a fields parameter. Returns null when no selection was asked for
+     * and throws 400 for unknown field names.
+     */
+    public static List<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        if (fields.trim().equals(SUMMARY)) {
+            return List.copyOf(SUMMARY_FIELDS.keySet());
+        }
+        List<String> selected = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || selected.contains(name)) {
+                continue;
+            }
+            if (!PRODUCT.containsKey(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown product field: " + name);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    /** Whether a {@link ProductSummary} projection is enough to answer this selection. */
+    public static boolean coveredBySummary(List<String> fields) {
+        return SUMMARY_FIELDS.keySet().containsAll(fields);
+    }
+
+    public static List<Map<String, Object>> select(List<Product> products, List<String> fields) {
+        return select(products, fields, PRODUCT);
+    }
+
+    public static List<Map<String, Object>> selectSummaries(List<ProductSummary> summaries, List<String> fields) {
+        return select(summaries, fields, SUMMARY_FIELDS);
+    }
+
+    private static <T> List<Map<String, Object>> select(List<T> items, List<String> fields, Map<String, Function<T, Object>> accessors) {
+        List<Map<String, Object>> result = new ArrayList<>(items.size());
+        for (T item : items) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, accessors.get(field).apply(item));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,180 @@
+package com.cs308.backend.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie for typeahead. Every node caches the best {@code topK}
+ * suggestions below it, so answering a prefix is a walk down the prefix
+ * followed by a copy of that node's list, independent of how many
+ * entries share the prefix.
+ *
+ * Keys are expected to be folded already (see {@link TextNormalizer}).
+ * An entry can be registered under several keys (e.g. one per word of a
+ * name); it is only ever returned once per query.
+ */
+public class SuggestionTrie {
+
+    public record Suggestion(String id, String text, double score) {}
+
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator
+            .comparingDouble(Suggestion::score).reversed()
+            .thenComparing(Suggestion::text)
+            .thenComparing(Suggestion::id);
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Suggestion> terminals = new ArrayList<>(1);
+        private List<Suggestion> top = List.of();
+    }
+
+    private final int topK;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+    // id -> keys it was inserted under, so it can be removed again
+    private final Map<String, List<String>> keysById = new HashMap<>();
+    private final Map<String, Suggestion> byId = new HashMap<>();
+
+    public SuggestionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /** Adds or replaces the entry with this id. */
+    public void put(Suggestion suggestion, Collection<String> keys) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(suggestion.id());
+            List<String> distinctKeys = keys.stream().filter(k -> !k.isEmpty()).distinct().toList();
+            for (String key : distinctKeys) {
+                List<Node> path = walk(key, true);
+                path.get(path.size() - 1).terminals.add(suggestion);
+                for (Node node : path) {
+                    node.top = offer(node.top, suggestion);
+                }
+            }
+            keysById.put(suggestion.id(), distinctKeys);
+            byId.put(suggestion.id(), suggestion);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            keysById.clear();
+            byId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            return node.top.size() <= limit ? node.top : node.top.subList(0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(String id) {
+        List<String> keys = keysById.remove(id);
+        byId.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            List<Node> path = walk(key, false);
+            if (path.size() != key.length() + 1) {
+                continue;
+            }
+            path.get(path.size() - 1).terminals.removeIf(s -> s.id().equals(id));
+            // rebuild the cached lists bottom-up along the path only
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                if (node.top.stream().anyMatch(s -> s.id().equals(id))) {
+                    node.top = recompute(node);
+                }
+                if (i > 0 && node.terminals.isEmpty() && node.children.isEmpty()) {
+                    path.get(i - 1).children.remove(key.charAt(i - 1));
+                }
+            }
+        }
+    }
+
+    private List<Node> walk(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node next = node.children.get(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return path;
+                }
+                next = new Node();
+                node.children.put(key.charAt(i), next);
+            }
+            node = next;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private List<Suggestion> offer(List<Suggestion> top, Suggestion candidate) {
+        for (Suggestion s : top) {
+            if (s.id().equals(candidate.id())) {
+                return top;
+            }
+        }
+        if (top.size() >= topK && BEST_FIRST.compare(candidate, top.get(top.size() - 1)) >= 0) {
+            return top;
+        }
+        List<Suggestion> updated = new ArrayList<>(top.size() + 1);
+        updated.addAll(top);
+        updated.add(candidate);
+        updated.sort(BEST_FIRST);
+        return List.copyOf(updated.size() > topK ? updated.subList(0, topK) : updated);
+    }
+
+    private List<Suggestion> recompute(Node node) {
+        List<Suggestion> top = List.of();
+        for (Suggestion s : node.terminals) {
+            top = offer(top, s);
+        }
+        for (Node child : node.children.values()) {
+            for (Suggestion s : child.top) {
+                top = offer(top, s);
+            }
+        }
+        return top;
+    }
+}
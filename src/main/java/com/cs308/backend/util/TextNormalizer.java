@@ -0,0 +1,42 @@
+package com.cs308.backend.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Case folding and tokenization shared by the in-memory search structures.
+ *
+ * Folding lower-cases with the Turkish locale (so "İ" becomes "i" and "I"
+ * becomes "ı"), then maps dotless ı to i and strips diacritics, so "IŞIK",
+ * "ışık" and "isik" all fold to the same term.
+ */
+public final class TextNormalizer {
+    private static final Locale TURKISH = Locale.forLanguageTag("tr");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(TURKISH).replace('ı', 'i');
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /** Folded, non-empty tokens of {@code text} in order of appearance. */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -3,7 +3,7 @@ package com.cs308.backend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"mongo.indexes.ensure-on-startup=false", "jobs.runner.enabled=false"})
 class BackEndApplicationTests {
 
 	@Test
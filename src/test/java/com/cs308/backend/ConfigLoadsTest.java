@@ -8,7 +8,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-@SpringBootTest
+@SpringBootTest(properties = {"mongo.indexes.ensure-on-startup=false", "jobs.runner.enabled=false"})
 class ConfigLoadsTest {
     @Autowired PasswordEncoder pe;
     @Autowired SecureTokenService sts;
@@ -0,0 +1,101 @@
+package com.cs308.backend.benchmarks;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.services.ProductSortIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old "copy findAll() and Comparator.comparing" sort path with
+ * reading a page from {@link ProductSortIndex}, plus the cost of moving one
+ * product after a price change.
+ *
+ * Not part of the surefire run. After mvn test-compile, run main() from the IDE
+ * or org.openjdk.jmh.Main with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSortBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int productCount;
+
+    private List<Product> catalog;
+    private ProductSortIndex sortIndex;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        random = new Random(42);
+        catalog = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            Product p = new Product();
+            p.setProductId(UUID.randomUUID().toString());
+            p.setCategoryId("category-" + (i % 25));
+            p.setPrice(1 + random.nextInt(100_000) / 100.0);
+            p.setRating(random.nextInt(50) / 10.0);
+            p.setProductionCost(p.getPrice() * (0.3 + random.nextDouble() * 0.4));
+            catalog.add(p);
+        }
+        sortIndex = new ProductSortIndex();
+        sortIndex.onCatalogReload(catalog);
+    }
+
+    @Benchmark
+    public List<Product> comparatorPriceDescFirstPage() {
+        List<Product> products = new ArrayList<>(catalog);
+        products.sort(Comparator.comparing(Product::getPrice).reversed());
+        return products.subList(0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> indexPriceDescFirstPage() {
+        return sortIndex.page(ProductSortIndex.SortKey.PRICE, true, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> comparatorCategoryRatingFirstPage() {
+        List<Product> products = new ArrayList<>();
+        for (Product p : catalog) {
+            if ("category-3".equals(p.getCategoryId())) {
+                products.add(p);
+            }
+        }
+        products.sort(Comparator.comparing(Product::getRating).reversed());
+        return products.subList(0, Math.min(PAGE_SIZE, products.size()));
+    }
+
+    @Benchmark
+    public List<Product> indexCategoryRatingFirstPage() {
+        return sortIndex.page(ProductSortIndex.SortKey.RATING, true, "category-3", PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void indexRepositionAfterPriceChange() {
+        Product old = catalog.get(random.nextInt(productCount));
+        Product updated = new Product();
+        updated.setProductId(old.getProductId());
+        updated.setCategoryId(old.getCategoryId());
+        updated.setPrice(1 + random.nextInt(100_000) / 100.0);
+        updated.setRating(old.getRating());
+        updated.setProductionCost(old.getProductionCost());
+        sortIndex.onProductUpdated(old, updated);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductSortBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
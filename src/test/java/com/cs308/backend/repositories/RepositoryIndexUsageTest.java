@@ -0,0 +1,201 @@
+package com.cs308.backend.repositories;
+
+import com.cs308.backend.config.MongoIndexInitializer;
+import com.cs308.backend.models.Product;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs every repository finder against a local mongod (mongodb://localhost:27017,
+ * override with -Dtest.mongodb.uri=...) after creating the declared indexes,
+ * and checks with explain() that none of them falls back to a collection scan.
+ * Skipped when no mongod is reachable.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RepositoryIndexUsageTest {
+    private static final Set<String> EXPLAINED_COMMANDS = Set.of("find", "count", "delete", "update", "aggregate");
+    private static final Set<String> NON_COMMAND_FIELDS = Set.of("$db", "lsid", "$clusterTime", "txnNumber", "$readPreference");
+
+    private final List<BsonDocument> captured = new CopyOnWriteArrayList<>();
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private MongoRepositoryFactory repositories;
+
+    @BeforeAll
+    public void connect() {
+        String uri = System.getProperty("test.mongodb.uri", "mongodb://localhost:27017");
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if (EXPLAINED_COMMANDS.contains(event.getCommandName())) {
+                    captured.add(event.getCommand().clone());
+                }
+            }
+        };
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(b -> b.serverSelectionTimeout(1, TimeUnit.SECONDS))
+                .addCommandListener(listener)
+                .build());
+        String database = "cs308_index_test_" + UUID.randomUUID().toString().substring(0, 8);
+        try {
+            client.getDatabase(database).runCommand(new Document("ping", 1));
+        } catch (RuntimeException e) {
+            client.close();
+            client = null;
+        }
+        assumeTrue(client != null, "no mongod reachable at " + uri);
+
+        mongoTemplate = new MongoTemplate(client, database);
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        new MongoIndexInitializer(mongoTemplate, mappingContext, false).ensureIndexes();
+        repositories = new MongoRepositoryFactory(mongoTemplate);
+    }
+
+    @AfterAll
+    public void dropDatabase() {
+        if (client != null) {
+            mongoTemplate.getDb().drop();
+            client.close();
+        }
+    }
+
+    @Test
+    public void productFinders_UseIndexes() {
+        ProductRepository products = repositories.getRepository(ProductRepository.class);
+        assertIndexed("findByCategoryId", () -> products.findByCategoryId("c1"));
+        assertIndexed("findByProductNameIgnoreCase", () -> products.findByProductNameIgnoreCase("Laptop"));
+        assertIndexed("findByStockCountGreaterThan", () -> products.findByStockCountGreaterThan(0));
+        assertIndexed("findByCategoryIdAndProductIdGreaterThan",
+                () -> products.findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc("c1", "", Limit.of(20)));
+        assertIndexed("findByCategoryIdAndPriceGreaterThanAndProductIdGreaterThan",
+                () -> products.findByCategoryIdAndPriceGreaterThanAndProductIdGreaterThanOrderByProductIdAsc("c1", 0, "", Limit.of(20)));
+        assertIndexed("findByPriceAndListedAtIsNullAndProductIdGreaterThan",
+                () -> products.findByPriceAndListedAtIsNullAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+                        0, "", Limit.of(20), Product.class));
+        assertIndexed("findByPriceAndListedAtAndProductIdGreaterThan",
+                () -> products.findByPriceAndListedAtAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+                        0, LocalDateTime.now(), "", Limit.of(20), Product.class));
+        assertIndexed("findByPriceAndListedAtGreaterThan",
+                () -> products.findByPriceAndListedAtGreaterThanOrderByListedAtAscProductIdAsc(
+                        0, LocalDateTime.now(), Limit.of(20), Product.class));
+        assertIndexed("deleteByCategoryId", () -> products.deleteByCategoryId("c1"));
+        assertIndexed("deleteByProductId", () -> products.deleteByProductId("p1"));
+    }
+
+    @Test
+    public void categoryFinders_UseIndexes() {
+        CategoryRepository categories = repositories.getRepository(CategoryRepository.class);
+        assertIndexed("findByCategoryNameIgnoreCase", () -> categories.findByCategoryNameIgnoreCase("Laptops"));
+        assertIndexed("existsByCategoryName", () -> categories.existsByCategoryName("Laptops"));
+    }
+
+    @Test
+    public void orderFinders_UseIndexes() {
+        OrderRepository orders = repositories.getRepository(OrderRepository.class);
+        assertIndexed("findByUserId", () -> orders.findByUserId("u1"));
+        assertIndexed("findByCartId", () -> orders.findByCartId("cart1"));
+        assertIndexed("findByPaymentId", () -> orders.findByPaymentId("pay1"));
+        assertIndexed("findByPaid", () -> orders.findByPaid(true));
+        assertIndexed("findByUserIdAndShippedTrue", () -> orders.findByUserIdAndShippedTrue("u1"));
+        assertIndexed("findByUserIdAndShippedFalse", () -> orders.findByUserIdAndShippedFalse("u1"));
+        assertIndexed("findByPaidIsTrueAndInvoicePathIsNotNull", orders::findByPaidIsTrueAndInvoicePathIsNotNull);
+        assertIndexed("findByStatusIgnoreCase", () -> orders.findByStatusIgnoreCase("processing"));
+
+        OrderHistoryRepository histories = repositories.getRepository(OrderHistoryRepository.class);
+        assertIndexed("OrderHistory.findByUserId", () -> histories.findByUserId("u1"));
+    }
+
+    @Test
+    public void reviewFinders_UseIndexes() {
+        ReviewRepository reviews = repositories.getRepository(ReviewRepository.class);
+        assertIndexed("findByProductIdAndVerifiedTrue", () -> reviews.findByProductIdAndVerifiedTrue("p1"));
+        assertIndexed("findByProductId", () -> reviews.findByProductId("p1"));
+        assertIndexed("findByUserId", () -> reviews.findByUserId("u1"));
+        assertIndexed("findByVerifiedFalseAndDeclinedFalse", reviews::findByVerifiedFalseAndDeclinedFalse);
+        assertIndexed("deleteByProductId", () -> reviews.deleteByProductId("p1"));
+    }
+
+    @Test
+    public void cartPaymentAndRefundFinders_UseIndexes() {
+        CartRepository carts = repositories.getRepository(CartRepository.class);
+        assertIndexed("Cart.findByUserId", () -> carts.findByUserId("u1"));
+        assertIndexed("Cart.deleteByUserId", () -> carts.deleteByUserId("u1"));
+
+        PaymentRepository payments = repositories.getRepository(PaymentRepository.class);
+        assertIndexed("findByOrderId", () -> payments.findByOrderId("o1"));
+        assertIndexed("Payment.findByUserId", () -> payments.findByUserId("u1"));
+
+        RefundRequestRepository refunds = repositories.getRepository(RefundRequestRepository.class);
+        assertIndexed("findByProcessed", () -> refunds.findByProcessed(false));
+        assertIndexed("RefundRequest.findByOrderId", () -> refunds.findByOrderId("o1"));
+        assertIndexed("RefundRequest.findByUserId", () -> refunds.findByUserId("u1"));
+    }
+
+    @Test
+    public void userAndTokenFinders_UseIndexes() {
+        UserRepository users = repositories.getRepository(UserRepository.class);
+        assertIndexed("findByEmail", () -> users.findByEmail("a@b.com"));
+        assertIndexed("findByWishListContains", () -> users.findByWishListContains("p1"));
+        assertIndexed("removeFromWishLists", () -> users.removeFromWishLists("p1"));
+
+        SecureTokenRepository tokens = repositories.getRepository(SecureTokenRepository.class);
+        assertIndexed("findByToken", () -> tokens.findByToken("t"));
+        assertIndexed("removeByToken", () -> tokens.removeByToken("t"));
+    }
+
+    private void assertIndexed(String finder, Runnable call) {
+        captured.clear();
+        call.run();
+        assertFalse(captured.isEmpty(), finder + " sent no query");
+        for (BsonDocument command : captured) {
+            BsonDocument explainable = new BsonDocument();
+            command.forEach((key, value) -> {
+                if (!NON_COMMAND_FIELDS.contains(key)) {
+                    explainable.put(key, value);
+                }
+            });
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", explainable).append("verbosity", "queryPlanner"));
+            Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+            List<String> stages = new ArrayList<>();
+            collectStages(winningPlan, stages);
+            assertFalse(stages.contains("COLLSCAN"),
+                    finder + " scans the collection: " + explainable.toJson() + " -> " + stages);
+        }
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if (stage instanceof String s) {
+                stages.add(s);
+            }
+            doc.values().forEach(v -> collectStages(v, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(v -> collectStages(v, stages));
+        }
+    }
+}
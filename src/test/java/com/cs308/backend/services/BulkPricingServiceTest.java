@@ -0,0 +1,154 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.BulkPriceUpdate;
+import com.cs308.backend.models.Product;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkPricingServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private PriceHistoryService priceHistory;
+
+    @Mock
+    private BulkOperations bulkOps;
+
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    @InjectMocks
+    private BulkPricingService bulkPricingService;
+
+    private static Product product(String id) {
+        return product(id, 0);
+    }
+
+    private static Product product(String id, double price) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setPrice(price);
+        return p;
+    }
+
+    @Test
+    public void testReprice_DiscountsMatchingProductsAndRefreshesSnapshot() {
+        BulkPriceUpdate request = new BulkPriceUpdate();
+        request.setCategoryIds(List.of("c1"));
+        request.setStockGreaterThan(50);
+        request.setDiscountPercentage(20.0);
+
+        List<Product> matched = List.of(product("p1"), product("p2"));
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(matched);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOps);
+        when(bulkOps.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(2);
+
+        Map<String, Object> result = bulkPricingService.reprice(request);
+
+        assertEquals(2, result.get("matched"));
+        assertEquals(2, result.get("modified"));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOps, times(1)).updateMulti(query.capture(), any(UpdateDefinition.class));
+        String filter = query.getValue().getQueryObject().toJson();
+        assertTrue(filter.contains("categoryId") && filter.contains("stockCount") && filter.contains("p2"));
+        verify(catalogCache, times(2)).put(any(Product.class));
+    }
+
+    @Test
+    public void testReprice_RecordsNewPricesWithListPrices() {
+        BulkPriceUpdate discount = new BulkPriceUpdate();
+        discount.setCategoryIds(List.of("c1"));
+        discount.setDiscountPercentage(20.0);
+
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("p1", 100), product("p2", 50)))
+                // p2 left the filter before the write and kept its price
+                .thenReturn(List.of(product("p1", 80), product("p2", 50)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOps);
+        when(bulkOps.execute()).thenReturn(bulkWriteResult);
+
+        bulkPricingService.reprice(discount);
+
+        verify(priceHistory).record("p1", 80.0, 100.0);
+        verifyNoMoreInteractions(priceHistory);
+
+        BulkPriceUpdate explicit = new BulkPriceUpdate();
+        explicit.setCategoryIds(List.of("c1"));
+        explicit.setPrice(30.0);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("p1", 80)))
+                .thenReturn(List.of(product("p1", 30)));
+
+        bulkPricingService.reprice(explicit);
+
+        verify(priceHistory).record("p1", 30.0, 30.0);
+    }
+
+    @Test
+    public void testToUpdate_DiscountKeepsDefaultCostRule() {
+        BulkPriceUpdate request = new BulkPriceUpdate();
+        request.setDiscountPercentage(25.0);
+
+        String pipeline = ((AggregationUpdate) BulkPricingService.toUpdate(request))
+                .toPipeline(Aggregation.DEFAULT_CONTEXT)
+                .stream().map(Document::toJson).reduce("", String::concat);
+        assertTrue(pipeline.contains("\"$multiply\": [\"$price\", 0.75]"));
+        assertTrue(pipeline.contains("\"$multiply\": [\"$price\", 0.375]"));
+        assertTrue(pipeline.contains("\"$cond\""));
+    }
+
+    @Test
+    public void testToUpdate_ExplicitPriceResetsCost() {
+        BulkPriceUpdate request = new BulkPriceUpdate();
+        request.setPrice(80.0);
+
+        Document set = ((Update) BulkPricingService.toUpdate(request)).getUpdateObject().get("$set", Document.class);
+        assertEquals(80.0, set.get("price"));
+        assertEquals(40.0, set.get("productionCost"));
+    }
+
+    @Test
+    public void testReprice_RejectsInvalidRequests() {
+        BulkPriceUpdate noFilter = new BulkPriceUpdate();
+        noFilter.setDiscountPercentage(10.0);
+        assertThrows(IllegalArgumentException.class, () -> bulkPricingService.reprice(noFilter));
+
+        BulkPriceUpdate both = new BulkPriceUpdate();
+        both.setCategoryIds(List.of("c1"));
+        both.setDiscountPercentage(10.0);
+        both.setPrice(5.0);
+        assertThrows(IllegalArgumentException.class, () -> bulkPricingService.reprice(both));
+
+        BulkPriceUpdate tooMuch = new BulkPriceUpdate();
+        tooMuch.setCategoryIds(List.of("c1"));
+        tooMuch.setDiscountPercentage(100.0);
+        assertThrows(IllegalArgumentException.class, () -> bulkPricingService.reprice(tooMuch));
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,177 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.DiscountCampaign;
+import com.cs308.backend.models.Product;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CampaignServiceTest {
+    private static final long MINUTE = 60_000L;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private JobService jobService;
+
+    private CampaignService campaignService;
+    private long now;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        campaignService = new CampaignService(mongoTemplate, jobService, true, 5 * MINUTE);
+        now = System.currentTimeMillis();
+        when(mongoTemplate.insert(any(DiscountCampaign.class))).thenAnswer(inv -> {
+            DiscountCampaign campaign = inv.getArgument(0);
+            campaign.setCampaignId("c1");
+            return campaign;
+        });
+    }
+
+    @Test
+    public void testCreate_StartsCampaignWhenItsTimerFires() {
+        when(mongoTemplate.count(any(Query.class), eq(Product.class))).thenReturn(2L);
+        DiscountCampaign created = campaignService.create(request(now + MINUTE, now + 60 * MINUTE));
+        assertEquals(DiscountCampaign.Status.SCHEDULED, created.getStatus());
+        assertEquals(List.of("p1", "p2"), created.getProductIds());
+        when(mongoTemplate.findById("c1", DiscountCampaign.class)).thenReturn(created);
+
+        assertEquals(0, campaignService.advance(now + MINUTE - 1_000));
+        verifyNoInteractions(jobService);
+        assertEquals(1, campaignService.advance(now + MINUTE));
+        verify(jobService).submit(CampaignStartTask.TYPE, Map.of(CampaignStartTask.CAMPAIGN_ID, "c1"));
+    }
+
+    @Test
+    public void testCreate_StartBeyondHorizonWaitsForSync() {
+        when(mongoTemplate.count(any(Query.class), eq(Product.class))).thenReturn(2L);
+        campaignService.create(request(now + 24 * 60 * MINUTE, now + 48 * 60 * MINUTE));
+
+        assertEquals(0, campaignService.getSchedulerStats().get("pendingTimers"));
+    }
+
+    @Test
+    public void testCreate_RejectsInvalidCampaigns() {
+        when(mongoTemplate.count(any(Query.class), eq(Product.class))).thenReturn(2L);
+        assertThrows(IllegalArgumentException.class, () -> campaignService.create(request(now - 2 * MINUTE, now - MINUTE)));
+        assertThrows(IllegalArgumentException.class, () -> campaignService.create(request(now + MINUTE, now + MINUTE)));
+
+        DiscountCampaign noDiscount = request(now + MINUTE, now + 2 * MINUTE);
+        noDiscount.setDiscountPercentage(0);
+        assertThrows(IllegalArgumentException.class, () -> campaignService.create(noDiscount));
+
+        when(mongoTemplate.count(any(Query.class), eq(Product.class))).thenReturn(1L);
+        assertThrows(IllegalArgumentException.class, () -> campaignService.create(request(now + MINUTE, now + 2 * MINUTE)));
+        verify(mongoTemplate, never()).insert(any(DiscountCampaign.class));
+    }
+
+    @Test
+    public void testSync_RecoversScheduleOnceFromMongo() {
+        DiscountCampaign starting = campaign("c1", DiscountCampaign.Status.SCHEDULED, now - MINUTE, now + 60 * MINUTE);
+        DiscountCampaign ending = campaign("c2", DiscountCampaign.Status.ACTIVE, now - 60 * MINUTE, now + 2 * MINUTE);
+        when(mongoTemplate.find(any(Query.class), eq(DiscountCampaign.class))).thenAnswer(inv -> {
+            Query query = inv.getArgument(0);
+            return query.getQueryObject().get("status") == DiscountCampaign.Status.SCHEDULED ? List.of(starting) : List.of(ending);
+        });
+        when(mongoTemplate.findById("c1", DiscountCampaign.class)).thenReturn(starting);
+        when(mongoTemplate.findById("c2", DiscountCampaign.class)).thenReturn(ending);
+
+        assertEquals(2, campaignService.sync(now));
+        // a restart, or the next sync, does not add timers twice
+        assertEquals(2, campaignService.sync(now));
+        assertEquals(2, campaignService.getSchedulerStats().get("pendingTimers"));
+
+        // the missed start fires right away
+        assertEquals(1, campaignService.advance(now));
+        verify(jobService).submit(CampaignStartTask.TYPE, Map.of(CampaignStartTask.CAMPAIGN_ID, "c1"));
+        assertEquals(1, campaignService.advance(now + 2 * MINUTE));
+        verify(jobService).submit(CampaignEndTask.TYPE, Map.of(CampaignEndTask.CAMPAIGN_ID, "c2"));
+    }
+
+    @Test
+    public void testStart_MissedWindowOnlyReverts() {
+        when(mongoTemplate.findById("c1", DiscountCampaign.class))
+                .thenReturn(campaign("c1", DiscountCampaign.Status.SCHEDULED, now - 60 * MINUTE, now - MINUTE));
+
+        campaignService.start("c1", now);
+
+        verify(jobService).submit(CampaignEndTask.TYPE, Map.of(CampaignEndTask.CAMPAIGN_ID, "c1"));
+        verify(jobService, never()).submit(eq(CampaignStartTask.TYPE), any());
+    }
+
+    @Test
+    public void testEnd_RetriedWhileStartJobRuns() {
+        DiscountCampaign campaign = campaign("c1", DiscountCampaign.Status.SCHEDULED, now - MINUTE, now);
+        when(mongoTemplate.findById("c1", DiscountCampaign.class)).thenReturn(campaign);
+
+        campaignService.end("c1", now);
+        verifyNoInteractions(jobService);
+
+        campaign.setStatus(DiscountCampaign.Status.ACTIVE);
+        assertEquals(1, campaignService.advance(now + CampaignService.RETRY_MS));
+        verify(jobService).submit(CampaignEndTask.TYPE, Map.of(CampaignEndTask.CAMPAIGN_ID, "c1"));
+    }
+
+    @Test
+    public void testCancel() {
+        DiscountCampaign future = campaign("c1", DiscountCampaign.Status.CANCELLED, now + 60 * MINUTE, now + 120 * MINUTE);
+        DiscountCampaign active = campaign("c2", DiscountCampaign.Status.ACTIVE, now - 60 * MINUTE, now + 60 * MINUTE);
+        DiscountCampaign ended = campaign("c3", DiscountCampaign.Status.ENDED, now - 60 * MINUTE, now - MINUTE);
+        when(mongoTemplate.findById("c1", DiscountCampaign.class)).thenReturn(future);
+        when(mongoTemplate.findById("c2", DiscountCampaign.class)).thenReturn(active);
+        when(mongoTemplate.findById("c3", DiscountCampaign.class)).thenReturn(ended);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DiscountCampaign.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // not started yet: nothing to revert
+        assertEquals(DiscountCampaign.Status.CANCELLED, campaignService.cancel("c1").getStatus());
+        verifyNoInteractions(jobService);
+
+        campaignService.cancel("c2");
+        verify(jobService).submit(CampaignEndTask.TYPE, Map.of(CampaignEndTask.CAMPAIGN_ID, "c2"));
+
+        assertThrows(IllegalStateException.class, () -> campaignService.cancel("c3"));
+        assertThrows(NoSuchElementException.class, () -> campaignService.cancel("missing"));
+    }
+
+    private static DiscountCampaign request(long startsAt, long endsAt) {
+        DiscountCampaign request = new DiscountCampaign();
+        request.setName("Spring sale");
+        request.setProductIds(List.of("p1", "p2", "p1"));
+        request.setDiscountPercentage(20);
+        request.setStartsAt(toDateTime(startsAt));
+        request.setEndsAt(toDateTime(endsAt));
+        return request;
+    }
+
+    private static DiscountCampaign campaign(String id, DiscountCampaign.Status status, long startsAt, long endsAt) {
+        DiscountCampaign campaign = request(startsAt, endsAt);
+        campaign.setCampaignId(id);
+        campaign.setStatus(status);
+        return campaign;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
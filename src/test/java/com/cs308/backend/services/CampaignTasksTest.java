@@ -0,0 +1,193 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.DiscountCampaign;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.User;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CampaignTasksTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private PriceHistoryService priceHistory;
+
+    @Mock
+    private ObjectProvider<JobService> jobServiceProvider;
+
+    @Mock
+    private JobService jobService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private BulkOperations ops;
+
+    private CampaignStartTask startTask;
+    private CampaignEndTask endTask;
+    private CampaignNotifyTask notifyTask;
+    private DiscountCampaign campaign;
+
+    private final Map<String, String> params = Map.of("campaignId", "c1");
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(jobServiceProvider.getObject()).thenReturn(jobService);
+        startTask = new CampaignStartTask(mongoTemplate, catalogCache, priceHistory, jobServiceProvider);
+        endTask = new CampaignEndTask(mongoTemplate, catalogCache, priceHistory);
+        notifyTask = new CampaignNotifyTask(mongoTemplate, productService);
+
+        campaign = new DiscountCampaign();
+        campaign.setCampaignId("c1");
+        campaign.setProductIds(List.of("p1", "p2"));
+        campaign.setDiscountPercentage(20);
+        campaign.setStatus(DiscountCampaign.Status.SCHEDULED);
+        when(mongoTemplate.findById("c1", DiscountCampaign.class)).thenReturn(campaign);
+    }
+
+    @Test
+    public void testStart_DiscountsGuardedOnPriceReadAndRecordsHistory() {
+        assertEquals(2, startTask.apply(List.of(product("p1", 100.0, null, null), product("p2", 50.0, null, null)), params, ops));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(ops, times(2)).updateOne(query.capture(), update.capture());
+        assertEquals(100.0, query.getAllValues().get(0).getQueryObject().get("price"));
+        Document set = (Document) update.getAllValues().get(0).getUpdateObject().get("$set");
+        assertEquals(80.0, (double) set.get("price"), 1e-9);
+        assertEquals("c1", set.get("campaignId"));
+        assertEquals(100.0, set.get("campaignListPrice"));
+
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("p1", 80.0, "c1", 100.0)));
+        startTask.afterChunk(List.of(product("p1", 100.0, null, null), product("p2", 50.0, null, null)), params);
+        verify(priceHistory).record("p1", 80.0, 100.0);
+        verify(catalogCache).put(any(Product.class));
+    }
+
+    @Test
+    public void testStart_RevertsChunkWrittenAfterCampaignWasCancelled() {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("p1", 80.0, "c1", 100.0)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(product("p1", 100.0, null, null));
+        // cancelled between the chunk's read and its write
+        campaign.setStatus(DiscountCampaign.Status.CANCELLED);
+
+        startTask.afterChunk(List.of(product("p1", 100.0, null, null)), params);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Product.class));
+        assertEquals(80.0, query.getValue().getQueryObject().get("price"));
+        assertEquals("c1", query.getValue().getQueryObject().get("campaignId"));
+        assertEquals(100.0, ((Document) update.getValue().getUpdateObject().get("$set")).get("price"));
+        assertTrue(((Document) update.getValue().getUpdateObject().get("$unset")).containsKey("campaignId"));
+        verify(catalogCache).put(argThat(p -> p.getPrice() == 100.0));
+        verifyNoInteractions(priceHistory);
+    }
+
+    @Test
+    public void testStart_OnlyActivatingRunQueuesNotifications() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DiscountCampaign.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        startTask.onComplete(params);
+        startTask.onComplete(params);
+
+        verify(jobService, times(1)).submit(CampaignNotifyTask.TYPE, Map.of(CampaignNotifyTask.CAMPAIGN_ID, "c1"));
+    }
+
+    @Test
+    public void testStart_CancelledCampaignMatchesNothing() {
+        campaign.setStatus(DiscountCampaign.Status.CANCELLED);
+
+        assertEquals(List.of(), startTask.criteria(params).getCriteriaObject().get("_id", Document.class).get("$in"));
+    }
+
+    @Test
+    public void testEnd_RestoresOnlyProductsStillAtCampaignPrice() {
+        campaign.setStatus(DiscountCampaign.Status.ACTIVE);
+        List<Product> chunk = List.of(product("p1", 80.0, "c1", 100.0), product("p2", 45.0, "c1", 50.0));
+
+        assertEquals(2, endTask.apply(chunk, params, ops));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(ops, times(2)).updateOne(any(Query.class), update.capture());
+        Document restored = update.getAllValues().get(0).getUpdateObject();
+        assertEquals(100.0, ((Document) restored.get("$set")).get("price"));
+        assertTrue(((Document) restored.get("$unset")).containsKey("campaignId"));
+        // p2 was repriced during the campaign: keeps its price
+        Document kept = update.getAllValues().get(1).getUpdateObject();
+        assertNull(kept.get("$set"));
+        assertTrue(((Document) kept.get("$unset")).containsKey("campaignListPrice"));
+
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("p1", 100.0, null, null), product("p2", 45.0, null, null)));
+        endTask.afterChunk(chunk, params);
+        verify(priceHistory).record("p1", 100.0, 100.0);
+        verify(priceHistory, never()).record(eq("p2"), anyDouble(), anyDouble());
+        verify(catalogCache, times(2)).put(any(Product.class));
+    }
+
+    @Test
+    public void testNotify_EmailsWishlistedProductsTheCampaignDiscounted() {
+        campaign.setStatus(DiscountCampaign.Status.ACTIVE);
+        User alice = user("u1", "p1", "other");
+        User bob = user("u2", "p2");
+        Product p1 = product("p1", 80.0, "c1", 100.0);
+        // p2 was already in another campaign, so this one did not discount it
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(p1));
+
+        assertEquals(0, notifyTask.apply(List.of(alice, bob), params, ops));
+
+        verify(productService).sendDiscountEmail(alice, p1, 20, 100.0);
+        verify(productService, times(1)).sendDiscountEmail(any(), any(), anyDouble(), anyDouble());
+        verifyNoInteractions(ops);
+    }
+
+    private static Product product(String id, double price, String campaignId, Double campaignListPrice) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setPrice(price);
+        p.setCampaignId(campaignId);
+        p.setCampaignListPrice(campaignListPrice);
+        return p;
+    }
+
+    private static User user(String id, String... wishList) {
+        User user = new User();
+        user.setUserId(id);
+        user.setEmail(id + "@example.com");
+        user.setWishList(List.of(wishList));
+        return user;
+    }
+}
@@ -0,0 +1,199 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Cart;
+import com.cs308.backend.models.CartItem;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.repositories.CartRepository;
+import com.cs308.backend.repositories.ProductRepository;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Hammers one cart from many threads against a local mongod
+ * (mongodb://localhost:27017, override with -Dtest.mongodb.uri=...) and
+ * checks that no add or removal is lost, and runs the cart updates the
+ * mocked CartServiceTest can only inspect against the real server. Skipped
+ * when no mongod is reachable, unless -Dtest.mongodb.required=true (set it
+ * in CI, next to a mongod service), which makes that a failure.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CartServiceConcurrencyTest {
+    private static final int THREADS = 16;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private CartService cartService;
+
+    @BeforeAll
+    public void connect() {
+        String uri = System.getProperty("test.mongodb.uri", "mongodb://localhost:27017");
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(b -> b.serverSelectionTimeout(1, TimeUnit.SECONDS))
+                .build());
+        String database = "cs308_cart_test_" + UUID.randomUUID().toString().substring(0, 8);
+        try {
+            client.getDatabase(database).runCommand(new Document("ping", 1));
+        } catch (RuntimeException e) {
+            client.close();
+            client = null;
+        }
+        if (Boolean.getBoolean("test.mongodb.required")) {
+            assertNotNull(client, "no mongod reachable at " + uri);
+        }
+        assumeTrue(client != null, "no mongod reachable at " + uri);
+
+        mongoTemplate = new MongoTemplate(client, database);
+        MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+        cartService = new CartService(repositories.getRepository(CartRepository.class),
+                repositories.getRepository(ProductRepository.class),
+                new TrendingProducts(mongoTemplate), mongoTemplate);
+    }
+
+    @AfterAll
+    public void dropDatabase() {
+        if (client != null) {
+            mongoTemplate.getDb().drop();
+            client.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentAdds_AreAllCountedUpToStock() throws Exception {
+        mongoTemplate.insert(product("plenty", 10_000));
+        mongoTemplate.insert(product("scarce", 50));
+        String cartId = "cart-" + UUID.randomUUID();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // the cart does not exist yet: the first adds also race to create it
+        runConcurrently(200, (thread, i) -> {
+            cartService.addToCart(cartId, "plenty");
+            if (cartService.addToCart(cartId, "scarce").getStatusCode().is4xxClientError()) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        Map<String, Integer> quantities = quantities(cartId);
+        assertEquals(THREADS * 200, quantities.get("plenty"));
+        assertEquals(50, quantities.get("scarce"));
+        assertEquals(THREADS * 200 - 50, rejected.get());
+        assertEquals(2, mongoTemplate.findById(cartId, Cart.class).getItems().size());
+    }
+
+    @Test
+    public void testConcurrentAddsAndRemovals_LeaveExactQuantities() throws Exception {
+        mongoTemplate.insert(product("shared", 10_000));
+        for (int t = 0; t < THREADS; t++) {
+            mongoTemplate.insert(product("item-" + t, 10_000));
+        }
+        String cartId = "cart-" + UUID.randomUUID();
+        cartService.addToCart(cartId, "shared");
+
+        // every thread adds the shared item and its own; odd threads then remove theirs
+        runConcurrently(100, (thread, i) -> {
+            cartService.addToCart(cartId, "shared");
+            cartService.addToCart(cartId, "item-" + thread);
+            if (i == 99 && thread % 2 == 1) {
+                assertEquals(200, cartService.removeFromCart(cartId, "item-" + thread).getStatusCode().value());
+            }
+        });
+
+        Map<String, Integer> quantities = quantities(cartId);
+        assertEquals(1 + THREADS * 100, quantities.get("shared"));
+        for (int t = 0; t < THREADS; t++) {
+            if (t % 2 == 1) {
+                assertFalse(quantities.containsKey("item-" + t));
+            } else {
+                assertEquals(100, quantities.get("item-" + t));
+            }
+        }
+    }
+
+    @Test
+    public void testAddToLegacyUnpricedItem_SetsPriceWithIncrement() {
+        mongoTemplate.insert(product("legacy", 100));
+        mongoTemplate.insert(product("other", 100));
+        String cartId = "cart-" + UUID.randomUUID();
+        mongoTemplate.getCollection("cart").insertOne(new Document("_id", cartId).append("items", List.of(
+                new Document("productId", "other").append("quantity", 1).append("price", 0.0),
+                new Document("productId", "legacy").append("quantity", 2).append("price", 0.0))));
+
+        assertEquals(200, cartService.addToCart(cartId, "legacy").getStatusCode().value());
+
+        Map<String, CartItem> items = new HashMap<>();
+        mongoTemplate.findById(cartId, Cart.class).getItems().forEach(item -> items.put(item.getProductId(), item));
+        assertEquals(3, items.get("legacy").getQuantity());
+        assertEquals(10.0, items.get("legacy").getPrice());
+        // only the item being added is touched
+        assertEquals(1, items.get("other").getQuantity());
+        assertEquals(0.0, items.get("other").getPrice());
+    }
+
+    @Test
+    public void testAddToCartWithNullItems_StartsTheListOver() {
+        mongoTemplate.insert(product("fresh", 100));
+        String cartId = "cart-" + UUID.randomUUID();
+        mongoTemplate.getCollection("cart").insertOne(new Document("_id", cartId).append("items", null));
+
+        assertEquals(200, cartService.addToCart(cartId, "fresh").getStatusCode().value());
+        assertEquals(Map.of("fresh", 1), quantities(cartId));
+    }
+
+    private interface Step {
+        void run(int thread, int i) throws Exception;
+    }
+
+    private static void runConcurrently(int perThread, Step step) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    step.run(thread, i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private Map<String, Integer> quantities(String cartId) {
+        Map<String, Integer> quantities = new HashMap<>();
+        for (CartItem item : mongoTemplate.findById(cartId, Cart.class).getItems()) {
+            assertNull(quantities.put(item.getProductId(), item.getQuantity()), "duplicate item " + item.getProductId());
+        }
+        return quantities;
+    }
+
+    private static Product product(String id, int stock) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setProductName(id);
+        p.setStockCount(stock);
+        p.setPrice(10.0);
+        return p;
+    }
+}
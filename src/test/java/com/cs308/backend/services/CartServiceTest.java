@@ -7,11 +7,19 @@ import com.cs308.backend.models.Product;
 import com.cs308.backend.models.AddToCartResponse;
 import com.cs308.backend.repositories.CartRepository;
 import com.cs308.backend.repositories.ProductRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 
 import java.util.ArrayList;
@@ -21,6 +29,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class CartServiceTest {
@@ -31,6 +40,12 @@ public class CartServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private TrendingProducts trendingProducts;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private CartService cartService;
 
@@ -60,9 +75,8 @@ public class CartServiceTest {
     public void testAddToCart_NewItem_Successful() {
         // Arrange
         when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
-        when(cartRepository.existsById(cartId)).thenReturn(true);
-        when(cartRepository.findById(cartId)).thenReturn(Optional.of(testCart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        // not in the cart yet: the $inc matches nothing, the $push finds the existing cart
+        stubAdd(null, testCart);
 
         // Act
         ResponseEntity<AddToCartResponse> response = cartService.addToCart(cartId, testProduct.getProductId());
@@ -72,22 +86,24 @@ public class CartServiceTest {
         assertNotNull(response.getBody());
         assertEquals(cartId, response.getBody().getCartId());
         assertTrue(response.getBody().getMessage().contains("You now have 1×"));
-        assertEquals(1, testCart.getItems().size());
-        assertEquals(testProduct.getProductId(), testCart.getItems().get(0).getProductId());
-        assertEquals(1, testCart.getItems().get(0).getQuantity());
-        verify(cartRepository, times(1)).save(testCart);
+        assertFalse(response.getBody().getMessage().contains("New cart created"));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Cart.class));
+        Document pushed = (Document) update.getAllValues().get(1).getUpdateObject().get("$push");
+        CartItem item = (CartItem) pushed.get("items");
+        assertEquals(testProduct.getProductId(), item.getProductId());
+        assertEquals(1, item.getQuantity());
+        assertEquals(testProduct.getPrice(), item.getPrice());
+        verify(cartRepository, never()).save(any(Cart.class));
+        verify(trendingProducts).recordCartAdd(testProduct.getProductId());
     }
 
     @Test
     public void testAddToCart_ExistingItem_IncreasesQuantity() {
         // Arrange
-        CartItem existingItem = new CartItem(testProduct.getProductId(), 1, testProduct.getPrice());
-        testCart.getItems().add(existingItem);
-
+        testCart.getItems().add(new CartItem(testProduct.getProductId(), 2, testProduct.getPrice()));
         when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
-        when(cartRepository.existsById(cartId)).thenReturn(true);
-        when(cartRepository.findById(cartId)).thenReturn(Optional.of(testCart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        stubAdd(testCart, null);
 
         // Act
         ResponseEntity<AddToCartResponse> response = cartService.addToCart(cartId, testProduct.getProductId());
@@ -97,17 +113,28 @@ public class CartServiceTest {
         assertNotNull(response.getBody());
         assertEquals(cartId, response.getBody().getCartId());
         assertTrue(response.getBody().getMessage().contains("You now have 2×"));
-        assertEquals(1, testCart.getItems().size());
-        assertEquals(2, testCart.getItems().get(0).getQuantity()); // Quantity increased
-        verify(cartRepository, times(1)).save(testCart);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Cart.class));
+        // one conditional $inc, guarded on the stock
+        assertEquals(new Document("items.$[item].quantity", 1), update.getValue().getUpdateObject().get("$inc"));
+        Document elemMatch = (Document) ((Document) query.getValue().getQueryObject().get("items")).get("$elemMatch");
+        assertEquals(new Document("$lt", 10), elemMatch.get("quantity"));
+        // a legacy item without a price gets it in the same write
+        assertEquals(new Document("items.$[unpriced].price", testProduct.getPrice()), update.getValue().getUpdateObject().get("$set"));
+        assertEquals(new Document("item.productId", testProduct.getProductId()),
+                update.getValue().getArrayFilters().get(0).asDocument());
+        assertEquals(new Document("unpriced.productId", testProduct.getProductId()).append("unpriced.price", 0.0),
+                update.getValue().getArrayFilters().get(1).asDocument());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Cart.class));
     }
 
     @Test
     public void testAddToCart_CreateNewCartIfNotExists() {
         // Arrange
         when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
-        when(cartRepository.existsById(cartId)).thenReturn(false);
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        // the upsert had no cart to return
+        stubAdd(null, null);
 
         // Act
         ResponseEntity<AddToCartResponse> response = cartService.addToCart(cartId, testProduct.getProductId());
@@ -117,7 +144,57 @@ public class CartServiceTest {
         assertNotNull(response.getBody());
         assertNotNull(response.getBody().getCartId()); // Just check that a cartId is assigned
         assertTrue(response.getBody().getMessage().contains("New cart created"));
-        verify(cartRepository, times(1)).save(any(Cart.class));
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Cart.class));
+    }
+
+    @Test
+    public void testAddToCart_AtStockCeiling_ReturnsBadRequest() {
+        // Arrange
+        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Cart.class)))
+                .thenAnswer(inv -> {
+                    if (((Update) inv.getArgument(1)).getUpdateObject().containsKey("$push")) {
+                        throw new DuplicateKeyException("E11000 duplicate key error");
+                    }
+                    return null;
+                });
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(mongoTemplate.exists(any(Query.class), eq(Cart.class))).thenReturn(true);
+
+        // Act
+        ResponseEntity<AddToCartResponse> response = cartService.addToCart(cartId, testProduct.getProductId());
+
+        // Assert
+        assertEquals(400, response.getStatusCodeValue());
+        assertTrue(response.getBody().getMessage().contains("Cannot add more than 10 units"));
+        verify(trendingProducts, never()).recordCartAdd(any());
+    }
+
+    @Test
+    public void testAddToCart_CartWithNullItems_IsRepairedAndAdded() {
+        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+        testCart.setItems(null);
+        // the push only matches carts whose items are missing or an array, so it runs into the cart's _id
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Cart.class)))
+                .thenReturn(null)
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"))
+                .thenReturn(null)
+                .thenReturn(testCart);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        ResponseEntity<AddToCartResponse> response = cartService.addToCart(cartId, testProduct.getProductId());
+
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(response.getBody().getMessage().contains("You now have 1×"));
+        assertFalse(response.getBody().getMessage().contains("New cart created"));
+        ArgumentCaptor<Query> pushed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(4)).findAndModify(pushed.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Cart.class));
+        assertNotNull(pushed.getAllValues().get(1).getQueryObject().get("$or"));
+        ArgumentCaptor<Update> repair = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), repair.capture(), eq(Cart.class));
+        assertEquals(new Document("items", List.of()), repair.getValue().getUpdateObject().get("$set"));
     }
 
     @Test
@@ -156,24 +233,25 @@ public class CartServiceTest {
     @Test
     public void removeFromCart_ExistingItem_Successful() {
         // Arrange
-        CartItem existing = new CartItem(testProduct.getProductId(), 2, testProduct.getPrice());
-        testCart.getItems().add(existing);
-        when(cartRepository.findById(cartId)).thenReturn(Optional.of(testCart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
 
         // Act
         ResponseEntity<Void> response = cartService.removeFromCart(cartId, testProduct.getProductId());
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
-        assertTrue(testCart.getItems().isEmpty());
-        verify(cartRepository, times(1)).save(testCart);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), update.capture(), eq(Cart.class));
+        assertTrue(update.getValue().getUpdateObject().containsKey("$pull"));
+        verify(cartRepository, never()).save(any(Cart.class));
     }
 
     @Test
     public void removeFromCart_NonexistentItem_ShouldReturnNotFound() {
         // Arrange
-        when(cartRepository.findById(cartId)).thenReturn(Optional.of(testCart));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
 
         // Act
         ResponseEntity<Void> response = cartService.removeFromCart(cartId, "missingId");
@@ -183,6 +261,29 @@ public class CartServiceTest {
         verify(cartRepository, never()).save(any(Cart.class));
     }
 
+    @Test
+    public void setQuantity_EnforcesStockAndSetsItem() {
+        // Arrange
+        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // Act + Assert
+        assertEquals(400, cartService.setQuantity(cartId, testProduct.getProductId(), 11).getStatusCodeValue());
+        ResponseEntity<AddToCartResponse> response = cartService.setQuantity(cartId, testProduct.getProductId(), 4);
+        assertEquals(200, response.getStatusCodeValue());
+        assertTrue(response.getBody().getMessage().contains("You now have 4×"));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), update.capture(), eq(Cart.class));
+        assertEquals(new Document("items.$.quantity", 4), update.getValue().getUpdateObject().get("$set"));
+    }
+
+    // answers the $inc with incremented and the $push with pushedInto (the cart before the push)
+    private void stubAdd(Cart incremented, Cart pushedInto) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Cart.class)))
+                .thenAnswer(inv -> ((Update) inv.getArgument(1)).getUpdateObject().containsKey("$inc") ? incremented : pushedInto);
+    }
+
 }
 
 // No need to define AddToCartResponse here as it's already defined in com.cs308.backend.models package
\ No newline at end of file
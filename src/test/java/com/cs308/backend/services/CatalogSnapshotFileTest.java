@@ -0,0 +1,143 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CatalogSnapshotFileTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private ProductCatalogCache catalogCache;
+    private CatalogSnapshotFile snapshotFile;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        // configured like Spring Boot's converter (java.time support)
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+
+        file = dir.resolve("catalog-snapshot.bin");
+        catalogCache = new ProductCatalogCache(productRepository, List.of(), new CatalogVersions(), 300);
+        snapshotFile = new CatalogSnapshotFile(catalogCache, mongoTemplate, file.toString());
+    }
+
+    @Test
+    public void testWriteThenRead_RoundTripsEveryField() throws Exception {
+        Product full = product("p1", "Phone");
+        full.setSerialNumber("SN-1");
+        full.setStockCount(7);
+        full.setPrice(499.5);
+        full.setReviewIds(List.of("r1", "r2"));
+        full.setRating(4.5);
+        full.setRatingSum(9);
+        full.setRatingCount(2);
+        full.setRatingHistogram(Map.of("4", 1, "5", 1));
+        full.setProductInfo("info");
+        full.setCategoryId("electronics");
+        full.setWarrantyStatus("2 years");
+        full.setDistributorInfo("dist");
+        full.setProductionCost(200.0);
+        full.setListedAt(LocalDateTime.of(2024, 5, 1, 10, 0));
+        full.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 10, 0, 0, 123_000_000));
+
+        snapshotFile.write(new ProductCatalogCache.SyncedProducts(1234L, List.of(full, product("p2", "Laptop"))), file);
+        ProductCatalogCache.SyncedProducts read = snapshotFile.read(file);
+
+        assertEquals(1234L, read.syncedAt());
+        assertEquals(List.of(full, product("p2", "Laptop")), read.products());
+        assertFalse(Files.exists(dir.resolve("catalog-snapshot.bin.tmp")));
+    }
+
+    @Test
+    public void testLoad_ServesFromFileWithoutFindAll() throws Exception {
+        snapshotFile.write(new ProductCatalogCache.SyncedProducts(1234L,
+                List.of(product("p1", "Phone"), product("p2", "Laptop"))), file);
+
+        snapshotFile.load();
+
+        assertEquals(2, catalogCache.getAll().size());
+        assertEquals("Laptop", catalogCache.get("p2").orElseThrow().getProductName());
+        assertEquals(1234L, catalogCache.synced().orElseThrow().syncedAt());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    public void testCatchUp_AppliesChangesAndDeletions() throws Exception {
+        snapshotFile.write(new ProductCatalogCache.SyncedProducts(1234L,
+                List.of(product("p1", "Phone"), product("p2", "Laptop"))), file);
+        snapshotFile.load();
+
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("p1", "Phone 2"), product("p3", "Tablet")));
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.of(product("p1", null), product("p3", null)));
+
+        assertEquals(2, snapshotFile.catchUp(1234L));
+
+        Map<String, String> names = new HashMap<>();
+        catalogCache.getAll().forEach(p -> names.put(p.getProductId(), p.getProductName()));
+        assertEquals(Map.of("p1", "Phone 2", "p3", "Tablet"), names);
+        assertTrue(catalogCache.synced().orElseThrow().syncedAt() > 1234L);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    public void testLoad_IgnoresUnreadableFile() throws Exception {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        snapshotFile.load();
+
+        assertTrue(catalogCache.synced().isEmpty());
+    }
+
+    @Test
+    public void testWrite_SkippedUntilCatalogLoaded() {
+        snapshotFile.write();
+
+        assertFalse(Files.exists(file));
+    }
+
+    private static Product product(String id, String name) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setProductName(name);
+        return p;
+    }
+}
@@ -0,0 +1,56 @@
+package com.cs308.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogVersionsTest {
+
+    @Test
+    public void testProductChange_BumpsProductAndItsCategories() {
+        CatalogVersions versions = new CatalogVersions();
+        String p1 = versions.productETag("p1");
+        String p2 = versions.productETag("p2");
+        String c1 = versions.categoryETag("c1");
+        String c2 = versions.categoryETag("c2");
+        String categories = versions.categoriesETag();
+
+        // stock change inside the same category
+        versions.productChanged("p1", "c1", "c1", false);
+        assertNotEquals(p1, versions.productETag("p1"));
+        assertEquals(p2, versions.productETag("p2"));
+        assertNotEquals(c1, versions.categoryETag("c1"));
+        assertEquals(c2, versions.categoryETag("c2"));
+        assertEquals(categories, versions.categoriesETag());
+
+        // moved to another category
+        versions.productChanged("p1", "c1", "c2", true);
+        assertNotEquals(c2, versions.categoryETag("c2"));
+        assertNotEquals(categories, versions.categoriesETag());
+    }
+
+    @Test
+    public void testChangedAll_InvalidatesEveryTag() {
+        CatalogVersions versions = new CatalogVersions();
+        String p1 = versions.productETag("p1");
+        String c1 = versions.categoryETag("c1");
+        String categories = versions.categoriesETag();
+
+        versions.changedAll();
+
+        assertNotEquals(p1, versions.productETag("p1"));
+        assertNotEquals(c1, versions.categoryETag("c1"));
+        assertNotEquals(categories, versions.categoriesETag());
+        assertEquals(1, versions.globalVersion());
+    }
+
+    @Test
+    public void testMatches_HandlesListsWeakTagsAndWildcard() {
+        String etag = "\"p-abc-3\"";
+        assertTrue(CatalogVersions.matches(etag, etag));
+        assertTrue(CatalogVersions.matches("\"x\", W/\"p-abc-3\"", etag));
+        assertTrue(CatalogVersions.matches("*", etag));
+        assertFalse(CatalogVersions.matches("\"p-abc-2\"", etag));
+        assertFalse(CatalogVersions.matches(null, etag));
+    }
+}
@@ -0,0 +1,80 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.Review;
+import com.cs308.backend.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CategoryDeleteTaskTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private BulkOperations ops;
+
+    @InjectMocks
+    private CategoryDeleteTask task;
+
+    private final Map<String, String> params = Map.of(CategoryDeleteTask.CATEGORY_ID, "c1");
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testApply_CleansUpReviewsAndWishlistsBeforeRemovingProducts() {
+        List<Product> chunk = List.of(product("p1"), product("p2"));
+
+        assertEquals(1, task.apply(chunk, params, ops));
+
+        InOrder inOrder = inOrder(mongoTemplate, ops);
+        inOrder.verify(mongoTemplate).remove(any(Query.class), eq(Review.class));
+        inOrder.verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(User.class));
+        inOrder.verify(ops).remove(any(Query.class));
+
+        task.afterChunk(chunk, params);
+        verify(catalogCache).evict("p1");
+        verify(catalogCache).evict("p2");
+    }
+
+    @Test
+    public void testOnComplete_DeletesCategoryOnce() {
+        doNothing().doThrow(new NoSuchElementException("Category not found: c1"))
+                .when(categoryService).deleteCategory("c1");
+
+        task.onComplete(params);
+        // a resumed job may complete again after the category is gone
+        assertDoesNotThrow(() -> task.onComplete(params));
+        verify(categoryService, times(2)).deleteCategory("c1");
+    }
+
+    private static Product product(String id) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setCategoryId("c1");
+        return p;
+    }
+}
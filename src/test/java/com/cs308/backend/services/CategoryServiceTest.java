@@ -3,6 +3,7 @@ package com.cs308.backend.services;
 
 import com.cs308.backend.models.Category;
 import com.cs308.backend.repositories.CategoryRepository;
+import com.cs308.backend.repositories.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -24,6 +25,15 @@ public class CategoryServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private SearchSuggestService searchSuggestService;
+
+    @Mock
+    private CatalogVersions catalogVersions;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -36,7 +46,7 @@ public class CategoryServiceTest {
         testCategory = new Category();
         testCategory.setCategoryId(UUID.randomUUID().toString());
         testCategory.setCategoryName("Electronics");
-        testCategory.setProductIds(new ArrayList<>());
+        testCategory.setProductCount(0);
     }
 
     @Test
@@ -90,4 +100,20 @@ public class CategoryServiceTest {
         assertEquals(expectedCategories, result);
         verify(categoryRepository, times(1)).findAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetAllCategories_CountsCategoriesNotRecountedYet() {
+        testCategory.setProductCount(7);
+        Category legacy = new Category();
+        legacy.setCategoryId("legacy");
+        legacy.setCategoryName("Books");
+        when(categoryRepository.findAll()).thenReturn(Arrays.asList(testCategory, legacy));
+        when(productRepository.countByCategoryId("legacy")).thenReturn(3L);
+
+        List<Category> result = categoryService.getAllCategories();
+
+        assertEquals(7, result.get(0).getProductCount());
+        assertEquals(3, result.get(1).getProductCount());
+        verify(productRepository, never()).countByCategoryId(testCategory.getCategoryId());
+    }
+}
@@ -2,6 +2,7 @@ package com.cs308.backend.services;
 
 import com.cs308.backend.models.Category;
 import com.cs308.backend.repositories.CategoryRepository;
+import com.cs308.backend.repositories.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -18,6 +19,15 @@ public class CategoryServiceTest2 {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private SearchSuggestService searchSuggestService;
+
+    @Mock
+    private CatalogVersions catalogVersions;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -30,7 +40,6 @@ public class CategoryServiceTest2 {
         testCategory = new Category();
         testCategory.setCategoryId(UUID.randomUUID().toString());
         testCategory.setCategoryName("Home");
-        testCategory.setProductIds(null);
     }
 
     @Test
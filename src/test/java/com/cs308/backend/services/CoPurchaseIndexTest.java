@@ -0,0 +1,163 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CoPurchaseIndexTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private CoPurchaseIndex index;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        index = new CoPurchaseIndex(mongoTemplate, false);
+    }
+
+    @Test
+    public void testRelated_MostFrequentFirst() {
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(
+                order("phone", "case", "charger"),
+                order("phone", "case"),
+                order("phone", "phone", "case"),
+                order("laptop")));
+
+        index.load();
+        assertEquals(List.of("case", "charger"), index.related("phone", 10));
+        assertEquals(List.of("case"), index.related("phone", 1));
+        assertEquals(List.of("phone", "charger"), index.related("case", 10));
+        assertEquals(List.of(), index.related("laptop", 10));
+        assertEquals(List.of(), index.related("unknown", 10));
+        // loaded once, then served from memory
+        verify(mongoTemplate, times(1)).stream(any(Query.class), eq(Order.class));
+
+        index.recordOrder(List.of("phone", "charger"), LocalDateTime.now());
+        index.recordOrder(List.of("phone", "charger"), LocalDateTime.now());
+        index.recordOrder(List.of("phone", "charger"), LocalDateTime.now());
+        assertEquals(List.of("charger", "case"), index.related("phone", 10));
+    }
+
+    @Test
+    public void testMatrix_KeepsOnlyTopKNeighbours() {
+        CoPurchaseIndex.Matrix matrix = new CoPurchaseIndex.Matrix();
+        for (int i = 0; i < CoPurchaseIndex.TOP_K + 5; i++) {
+            matrix.addOrder(List.of("hub", "p" + i));
+        }
+        // p24 overtakes everyone once it has the highest count
+        matrix.addOrder(List.of("hub", "p24"));
+
+        List<String> related = matrix.related("hub", 100);
+        assertEquals(CoPurchaseIndex.TOP_K, related.size());
+        assertEquals("p24", related.get(0));
+        assertEquals(2, matrix.count("hub", "p24"));
+        assertEquals(1, matrix.count("p3", "hub"));
+    }
+
+    @Test
+    public void testRebuildTask_SwapsInFreshMatrixOnComplete() {
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order("a", "b")));
+        index.load();
+        assertEquals(List.of("b"), index.related("a", 10));
+
+        CoPurchaseRebuildTask task = new CoPurchaseRebuildTask(index);
+        task.onStart(Map.of());
+        assertEquals(0, task.apply(List.of(order("a", "c"), order("a", "c")), Map.of(), null));
+        // still the old matrix until the job completes
+        assertEquals(List.of("b"), index.related("a", 10));
+
+        task.onComplete(Map.of());
+        assertEquals(List.of("c"), index.related("a", 10));
+    }
+
+    @Test
+    public void testRebuildTask_OrdersPaidDuringRebuildSurviveSwap() {
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order("a", "b")));
+        index.load();
+        assertEquals(List.of("b"), index.related("a", 10));
+
+        CoPurchaseRebuildTask task = new CoPurchaseRebuildTask(index);
+        task.onStart(Map.of());
+        // the scan skips orders paid after the rebuild started
+        assertNotNull(task.criteria(Map.of()).getCriteriaObject().get("$or"));
+        task.apply(List.of(order("a", "b")), Map.of(), null);
+        index.recordOrder(List.of("a", "d"), LocalDateTime.now());
+        index.recordOrder(List.of("a", "d"), LocalDateTime.now());
+        assertEquals(List.of("d", "b"), index.related("a", 10));
+
+        task.onComplete(Map.of());
+        assertEquals(List.of("d", "b"), index.related("a", 10));
+    }
+
+    @Test
+    public void testRebuildTask_ResumedRunLeavesMatrixAlone() {
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order("a", "b")));
+        index.load();
+        CoPurchaseRebuildTask resumed = new CoPurchaseRebuildTask(index);
+
+        resumed.apply(List.of(order("a", "c")), Map.of(), null);
+        resumed.onComplete(Map.of());
+
+        assertEquals(List.of("b"), index.related("a", 10));
+    }
+
+    @Test
+    public void testLoadAndRebuild_SkipRefundedOrders() {
+        Order refunded = order("a", "r");
+        refunded.setStatus("Refunded");
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order("a", "b"), refunded));
+        index.load();
+        assertEquals(List.of("b"), index.related("a", 10));
+
+        CoPurchaseRebuildTask task = new CoPurchaseRebuildTask(index);
+        task.onStart(Map.of());
+        task.apply(List.of(order("a", "c"), refunded), Map.of(), null);
+        task.onComplete(Map.of());
+        assertEquals(List.of("c"), index.related("a", 10));
+    }
+
+    @Test
+    public void testRelated_EmptyWhileLoadingInBackground() throws Exception {
+        CountDownLatch streamed = new CountDownLatch(1);
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenAnswer(invocation -> {
+            streamed.countDown();
+            return Stream.of(order("a", "b"));
+        });
+
+        // the first lookup does not wait for the load it starts
+        assertEquals(List.of(), index.related("a", 10));
+        assertTrue(streamed.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (index.related("a", 10).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("b"), index.related("a", 10));
+        verify(mongoTemplate, times(1)).stream(any(Query.class), eq(Order.class));
+    }
+
+    private static Order order(String... productIds) {
+        Order order = new Order();
+        order.setPaid(true);
+        order.setProductIds(new ArrayList<>(List.of(productIds)));
+        return order;
+    }
+}
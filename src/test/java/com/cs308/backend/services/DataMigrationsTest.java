@@ -0,0 +1,53 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.BackgroundJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class DataMigrationsTest {
+
+    @Mock
+    private JobService jobService;
+
+    @Mock
+    private ReviewService reviewService;
+
+    private DataMigrations migrations;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        migrations = new DataMigrations(jobService, reviewService, false);
+    }
+
+    @Test
+    public void testRun_QueuesOnlyMigrationsWithWorkLeft() {
+        when(jobService.submitIfPending(eq(RatingAggregatesTask.TYPE), any())).thenReturn(new BackgroundJob());
+        when(jobService.submitIfPending(eq(CategoryRecountTask.TYPE), any())).thenThrow(new IllegalStateException("down"));
+
+        assertEquals(1, migrations.run());
+
+        verify(jobService).submitIfPending(RatingAggregatesTask.TYPE, RatingAggregatesTask.MISSING_ONLY);
+        verify(jobService).submitIfPending(CategoryRecountTask.TYPE, CategoryRecountTask.MISSING_ONLY);
+        verify(jobService).submitIfPending(ReviewFeedFieldsTask.TYPE, Map.of());
+        // nothing left to backfill: feeds stop filling in older reviews
+        verify(reviewService).markFeedFieldsBackfilled();
+    }
+
+    @Test
+    public void testRun_PendingBackfillKeepsFeedFallback() {
+        when(jobService.submitIfPending(any(), any())).thenReturn(new BackgroundJob());
+
+        assertEquals(3, migrations.run());
+        verify(reviewService, never()).markFeedFieldsBackfilled();
+    }
+}
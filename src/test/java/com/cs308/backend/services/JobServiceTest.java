@@ -0,0 +1,138 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.BackgroundJob;
+import com.cs308.backend.models.Order;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class JobServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    private JobService jobService;
+    private BackgroundJob job;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        jobService = new JobService(mongoTemplate, List.of(new OrderCardSanitizeTask()), false);
+
+        job = new BackgroundJob();
+        job.setJobId("job1");
+        job.setType(OrderCardSanitizeTask.TYPE);
+        job.setStatus(BackgroundJob.Status.RUNNING);
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(2);
+        when(mongoTemplate.count(any(Query.class), eq(Order.class))).thenReturn(2L);
+    }
+
+    @Test
+    public void testRun_WritesChunksAndCheckpoints() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(order("o1", "4111111111111111"), order("o2", "5500000000000004")))
+                .thenReturn(Collections.emptyList());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BackgroundJob.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        jobService.run(job);
+
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), updates.capture(), eq(BackgroundJob.class));
+        Document progress = updates.getAllValues().get(1).getUpdateObject();
+        assertEquals("o2", ((Document) progress.get("$set")).get("checkpoint"));
+        assertEquals(2, ((Document) progress.get("$inc")).get("modified"));
+        Document finished = updates.getAllValues().get(2).getUpdateObject();
+        assertEquals(BackgroundJob.Status.COMPLETED, ((Document) finished.get("$set")).get("status"));
+    }
+
+    @Test
+    public void testRun_StopsWhenAnotherRunnerOwnsTheJob() {
+        job.setStartedAt(LocalDateTime.now());
+        job.setCheckpoint("o0");
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(order("o1", "4111111111111111")));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BackgroundJob.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        jobService.run(job);
+
+        // one chunk, then the progress write fails and nothing else is read or written
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Order.class));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(BackgroundJob.class));
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Order.class));
+    }
+
+    @Test
+    public void testSubmit_ReturnsTheJobAlreadyActive() {
+        when(mongoTemplate.findOne(any(Query.class), eq(BackgroundJob.class))).thenReturn(job);
+
+        assertSame(job, jobService.submit(OrderCardSanitizeTask.TYPE));
+        verify(mongoTemplate, never()).insert(any(BackgroundJob.class));
+    }
+
+    @Test
+    public void testSubmit_QueuesNewJob() {
+        when(mongoTemplate.findOne(any(Query.class), eq(BackgroundJob.class))).thenReturn(null);
+        when(mongoTemplate.insert(any(BackgroundJob.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        BackgroundJob queued = jobService.submit(OrderCardSanitizeTask.TYPE);
+
+        assertEquals(BackgroundJob.Status.QUEUED, queued.getStatus());
+        assertNotNull(queued.getCreatedAt());
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit("unknown"));
+    }
+
+    @Test
+    public void testSubmitIfPending_QueuesOnlyWithWorkLeft() {
+        when(mongoTemplate.findOne(any(Query.class), eq(BackgroundJob.class))).thenReturn(null);
+        when(mongoTemplate.insert(any(BackgroundJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(mongoTemplate.exists(any(Query.class), eq(Order.class))).thenReturn(false).thenReturn(true);
+
+        assertNull(jobService.submitIfPending(OrderCardSanitizeTask.TYPE, Map.of()));
+        verify(mongoTemplate, never()).insert(any(BackgroundJob.class));
+        assertEquals(BackgroundJob.Status.QUEUED, jobService.submitIfPending(OrderCardSanitizeTask.TYPE, Map.of()).getStatus());
+    }
+
+    @Test
+    public void testMaskCardNumber_KeepsLastFourDigits() {
+        assertEquals("************1111", OrderCardSanitizeTask.maskCardNumber("4111111111111111"));
+        assertEquals("************1111", OrderCardSanitizeTask.maskCardNumber("************1111"));
+    }
+
+    private static Order order(String id, String cardNumber) {
+        Order order = new Order();
+        order.setOrderId(id);
+        order.setCardNumber(cardNumber);
+        order.setCvv("123");
+        return order;
+    }
+}
@@ -39,6 +39,9 @@ public class OrderServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCatalogCache catalogCache;
+
     @Mock
     private OrderHistoryRepository orderHistoryRepository;
 
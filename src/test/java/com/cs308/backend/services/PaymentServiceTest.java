@@ -35,12 +35,21 @@ public class PaymentServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCatalogCache catalogCache;
+
     @Mock
     private CartRepository cartRepository;
 
     @Mock
     private InvoiceService invoiceService;
 
+    @Mock
+    private CoPurchaseIndex coPurchaseIndex;
+
+    @Mock
+    private TrendingProducts trendingProducts;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -19,6 +19,7 @@ public class PaymentServiceTestPart3 {
     @Mock private PaymentRepository paymentRepository;
     @Mock private UserRepository userRepository;
     @Mock private ProductRepository productRepository;
+    @Mock private ProductCatalogCache catalogCache;
     @Mock private CartRepository cartRepository;
     @Mock private InvoiceService invoiceService;
 
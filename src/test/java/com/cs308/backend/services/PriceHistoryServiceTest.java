@@ -0,0 +1,84 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.PricePoint;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PriceHistoryServiceTest {
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private PriceHistoryService priceHistoryService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        priceHistoryService = new PriceHistoryService(mongoTemplate);
+    }
+
+    @Test
+    public void testPriceAt_ReadsOneEntryAtOrBeforeTime() {
+        when(mongoTemplate.findOne(any(Query.class), eq(PricePoint.class)))
+                .thenReturn(new PricePoint("p1", T0.plusDays(42), 142, 142));
+
+        assertEquals(142, priceHistoryService.priceAt("p1", T0.plusDays(42).plusHours(23)).orElseThrow().getPrice());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findOne(query.capture(), eq(PricePoint.class));
+        assertEquals("p1", query.getValue().getQueryObject().get("productId"));
+        assertEquals(T0.plusDays(42).plusHours(23), ((Document) query.getValue().getQueryObject().get("t")).get("$lte"));
+        assertEquals(new Document("t", -1), query.getValue().getSortObject());
+        assertEquals(1, query.getValue().getLimit());
+    }
+
+    @Test
+    public void testPriceAt_EmptyBeforeFirstEntry() {
+        assertEquals(Optional.empty(), priceHistoryService.priceAt("unknown", T0));
+    }
+
+    @Test
+    public void testRecord_InsertsOneDocumentPerPoint() {
+        when(mongoTemplate.insert(any(PricePoint.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        PricePoint point = priceHistoryService.record("p1", 80, 100);
+
+        assertTrue(point.isDiscounted());
+        assertEquals("p1", point.getProductId());
+        verify(mongoTemplate).insert(point);
+    }
+
+    @Test
+    public void testLatest_ReadsOnlyNewestEntry() {
+        when(mongoTemplate.findOne(any(Query.class), eq(PricePoint.class))).thenReturn(new PricePoint("p1", T0, 90, 90));
+
+        assertEquals(90, priceHistoryService.latest("p1").orElseThrow().getPrice());
+        verify(mongoTemplate).findOne(argThat(q -> q.getLimit() == 1 && new Document("t", -1).equals(q.getSortObject())),
+                eq(PricePoint.class));
+    }
+
+    @Test
+    public void testGetHistory_OldestFirst() {
+        List<PricePoint> points = List.of(new PricePoint("p1", T0, 100, 100), new PricePoint("p1", T0.plusDays(1), 80, 100));
+        when(mongoTemplate.find(any(Query.class), eq(PricePoint.class))).thenReturn(points);
+
+        assertEquals(points, priceHistoryService.getHistory("p1"));
+        verify(mongoTemplate).find(argThat(q -> new Document("t", 1).equals(q.getSortObject())), eq(PricePoint.class));
+    }
+}
@@ -0,0 +1,113 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductCatalogCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalogCache catalogCache;
+    private CatalogVersions versions;
+
+    private Product phone;
+    private Product laptop;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        versions = new CatalogVersions();
+        catalogCache = new ProductCatalogCache(productRepository, List.of(), versions, 300);
+
+        phone = new Product();
+        phone.setProductId("p1");
+        phone.setProductName("Phone");
+        phone.setCategoryId("electronics");
+        phone.setPrice(500);
+
+        laptop = new Product();
+        laptop.setProductId("p2");
+        laptop.setProductName("Laptop");
+        laptop.setCategoryId("computers");
+        laptop.setPrice(1500);
+    }
+
+    @Test
+    public void testGetAll_LoadsOnceThenServesFromMemory() {
+        when(productRepository.findAll()).thenReturn(List.of(phone, laptop));
+
+        assertEquals(2, catalogCache.getAll().size());
+        assertEquals(2, catalogCache.getAll().size());
+        assertEquals(1, catalogCache.getByCategory("electronics").size());
+
+        verify(productRepository, times(1)).findAll();
+        Map<String, Object> stats = catalogCache.getStats();
+        assertEquals(1L, stats.get("refreshes"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(2L, stats.get("hits"));
+    }
+
+    @Test
+    public void testPutAndEvict_AreVisibleWithoutReload() {
+        when(productRepository.findAll()).thenReturn(List.of(phone));
+        catalogCache.getAll();
+
+        catalogCache.put(laptop);
+        assertTrue(catalogCache.get("p2").isPresent());
+
+        catalogCache.evict("p1");
+        assertEquals(1, catalogCache.getAll().size());
+        verify(productRepository, times(1)).findAll();
+        verify(productRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void testGet_MissingProductFallsBackToRepository() {
+        when(productRepository.findAll()).thenReturn(List.of(phone));
+        when(productRepository.findById("p2")).thenReturn(Optional.of(laptop));
+
+        assertEquals("Laptop", catalogCache.get("p2").orElseThrow().getProductName());
+        assertEquals("Laptop", catalogCache.get("p2").orElseThrow().getProductName());
+
+        verify(productRepository, times(1)).findById("p2");
+    }
+
+    @Test
+    public void testInvalidate_ForcesReload() {
+        when(productRepository.findAll()).thenReturn(List.of(phone));
+        catalogCache.getAll();
+
+        catalogCache.invalidate();
+        catalogCache.getAll();
+
+        verify(productRepository, times(2)).findAll();
+    }
+
+    @Test
+    public void testWrites_BumpCatalogVersions() {
+        when(productRepository.findAll()).thenReturn(List.of(phone, laptop));
+        catalogCache.getAll();
+        String phoneTag = versions.productETag("p1");
+        String laptopTag = versions.productETag("p2");
+        String computersTag = versions.categoryETag("computers");
+
+        phone.setStockCount(3);
+        catalogCache.put(phone);
+        assertNotEquals(phoneTag, versions.productETag("p1"));
+        assertEquals(laptopTag, versions.productETag("p2"));
+        assertEquals(computersTag, versions.categoryETag("computers"));
+
+        catalogCache.evict("p2");
+        assertNotEquals(computersTag, versions.categoryETag("computers"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new ProductFacetIndex();
+        index.onCatalogReload(List.of(
+                product("p1", "phones", 40, 4.5, 3),
+                product("p2", "phones", 120, 3.2, 0),
+                product("p3", "laptops", 900, 4.8, 5),
+                product("p4", "laptops", 1200, 2.0, 1),
+                product("p5", "phones", 0, 5.0, 10)));   // not priced yet
+    }
+
+    @Test
+    public void testNoFilter_CountsPricedProductsOnly() {
+        ProductFacetIndex.Result result = index.filter(filter(null, null, null, null, null), null, 20);
+
+        assertEquals(4, result.total());
+        assertEquals(List.of("p1", "p2", "p3", "p4"), ids(result));
+        assertEquals(Map.of("laptops", 2, "phones", 2), result.facets().get("categories"));
+        assertEquals(3, result.facets().get("availability").get("inStock"));
+        assertEquals(1, result.facets().get("availability").get("outOfStock"));
+        assertEquals(1, result.facets().get("price").get("0-50"));
+        assertEquals(1, result.facets().get("price").get("1000-2500"));
+        assertEquals(2, result.facets().get("rating").get("4-5"));
+    }
+
+    @Test
+    public void testFacetCounts_IgnoreTheirOwnFilter() {
+        ProductFacetIndex.Result result = index.filter(filter(Set.of("phones"), null, null, null, true), null, 20);
+
+        assertEquals(List.of("p1"), ids(result));
+        // the category facet still counts the other categories under inStock=true
+        assertEquals(Map.of("laptops", 2, "phones", 1), result.facets().get("categories"));
+        // availability is counted within phones only
+        assertEquals(1, result.facets().get("availability").get("inStock"));
+        assertEquals(1, result.facets().get("availability").get("outOfStock"));
+    }
+
+    @Test
+    public void testPriceAndRatingBounds_InsideBuckets() {
+        assertEquals(List.of("p2", "p3"), ids(index.filter(filter(null, 100.0, 1000.0, null, null), null, 20)));
+        assertEquals(List.of("p1", "p3"), ids(index.filter(filter(null, null, null, 4.5, null), null, 20)));
+        assertEquals(List.of("p3"), ids(index.filter(filter(null, 41.0, null, 4.5, null), null, 20)));
+    }
+
+    @Test
+    public void testUpdatesAndRemovals_AreIndexed() {
+        Product p5 = product("p5", "phones", 60, 5.0, 10);
+        index.onProductUpdated(null, p5);
+        Product p1 = product("p1", "laptops", 40, 4.5, 0);
+        index.onProductUpdated(null, p1);
+        index.onProductRemoved(product("p4", "laptops", 1200, 2.0, 1));
+
+        ProductFacetIndex.Result result = index.filter(filter(Set.of("laptops"), null, null, null, null), null, 20);
+        assertEquals(List.of("p1", "p3"), ids(result));
+        assertEquals(Map.of("laptops", 2, "phones", 2), result.facets().get("categories"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testPaging_ContinuesAfterLastId() {
+        ProductFacetIndex.Result first = index.filter(filter(null, null, null, null, null), null, 3);
+        assertEquals(List.of("p1", "p2", "p3"), ids(first));
+
+        ProductFacetIndex.Result second = index.filter(filter(null, null, null, null, null), first.lastProductId(), 3);
+        assertEquals(List.of("p4"), ids(second));
+        assertEquals(4, second.total());
+    }
+
+    private static ProductFacetIndex.Filter filter(Set<String> categories, Double minPrice, Double maxPrice, Double minRating, Boolean inStock) {
+        return new ProductFacetIndex.Filter(categories, minPrice, maxPrice, minRating, inStock);
+    }
+
+    private static List<String> ids(ProductFacetIndex.Result result) {
+        return result.products().stream().map(Product::getProductId).toList();
+    }
+
+    private static Product product(String id, String categoryId, double price, double rating, int stock) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setCategoryId(categoryId);
+        p.setPrice(price);
+        p.setRating(rating);
+        p.setStockCount(stock);
+        return p;
+    }
+}
@@ -0,0 +1,155 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Category;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.models.ProductImportReport;
+import com.cs308.backend.repositories.CategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ProductImportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private BulkOperations productOps;
+
+    @Mock
+    private BulkOperations categoryOps;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ProductImportService productImportService;
+
+    private final List<Product> inserted = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Category laptops = new Category();
+        laptops.setCategoryId("c1");
+        laptops.setCategoryName("Laptops");
+        when(categoryRepository.findAll()).thenReturn(List.of(laptops));
+
+        Product existing = new Product();
+        existing.setProductId("p0");
+        existing.setProductName("Old Laptop");
+        when(catalogCache.getAll()).thenReturn(List.of(existing));
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(productOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Category.class)).thenReturn(categoryOps);
+        when(productOps.insert(anyList())).thenAnswer(inv -> {
+            inserted.addAll((List<Product>) inv.getArgument(0));
+            return productOps;
+        });
+        when(categoryOps.updateOne(any(Query.class), any(Update.class))).thenReturn(categoryOps);
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testImportCsv_ValidatesRowsLikeAddProduct() {
+        String csv = "productName,productInfo,categoryName,stockCount,price,serialNumber,warrantyStatus,distributorInfo\n"
+                + "Gaming Laptop,\"Fast, light\",laptops,5,1000,SN1,2 years,Dist\n"
+                + "Old Laptop,Info,Laptops,1,10,SN2,1 year,Dist\n"
+                + "Phone,Info,Phones,1,10,SN3,1 year,Dist\n"
+                + "Cheap Laptop,Info,Laptops,-1,10,SN4,1 year,Dist\n"
+                + "Broken Laptop,Info,Laptops,x,10,SN5,1 year,Dist\n"
+                + "gaming laptop,Info,Laptops,1,10,SN6,1 year,Dist\n";
+
+        ProductImportReport report = productImportService.importProducts(stream(csv), ProductImportService.Format.CSV);
+
+        assertEquals(6, report.getTotalRows());
+        assertEquals(1, report.getImported());
+        assertEquals(5, report.getErrorCount());
+        assertEquals(List.of(2, 3, 4, 5, 6), report.getErrors().stream().map(ProductImportReport.RowError::getRow).toList());
+        assertEquals("Product with this name already exists!", report.getErrors().get(0).getMessage());
+        assertEquals("Category does not exist!", report.getErrors().get(1).getMessage());
+        assertEquals("Stock cannot be negative!", report.getErrors().get(2).getMessage());
+
+        Product product = inserted.get(0);
+        assertEquals("Fast, light", product.getProductInfo());
+        assertEquals("c1", product.getCategoryId());
+        assertEquals(500.0, product.getProductionCost());
+        verify(catalogCache).put(product);
+        verify(categoryOps, times(1)).updateOne(any(Query.class), any(Update.class));
+    }
+
+    @Test
+    public void testImportNdjson_ReportsBadLines() {
+        String ndjson = "{\"productName\":\"Tablet\",\"productInfo\":\"i\",\"categoryName\":\"Laptops\",\"stockCount\":2,"
+                + "\"price\":300,\"serialNumber\":\"S\",\"warrantyStatus\":\"W\",\"distributorInfo\":\"D\",\"productionCost\":100}\n"
+                + "\n"
+                + "not json\n";
+
+        ProductImportReport report = productImportService.importProducts(stream(ndjson), ProductImportService.Format.NDJSON);
+
+        assertEquals(2, report.getTotalRows());
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getErrors().get(0).getRow());
+        assertEquals(100.0, inserted.get(0).getProductionCost());
+    }
+
+    @Test
+    public void testImport_WritesInBatchesWithOneCategoryUpdateEach() {
+        int rows = 25_000;
+        StringBuilder csv = new StringBuilder("productName,productInfo,categoryName,stockCount,price,serialNumber,warrantyStatus,distributorInfo\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Product ").append(i).append(",Info,Laptops,1,10,SN").append(i).append(",1 year,Dist\n");
+        }
+
+        ProductImportReport report = productImportService.importProducts(stream(csv.toString()), ProductImportService.Format.CSV);
+
+        int batches = rows / ProductImportService.BATCH_SIZE;
+        assertEquals(rows, report.getImported());
+        assertEquals(0, report.getErrorCount());
+        verify(productOps, times(batches)).insert(anyList());
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(categoryOps, times(batches)).updateOne(any(Query.class), updates.capture());
+        Document inc = (Document) updates.getValue().getUpdateObject().get("$inc");
+        assertEquals(ProductImportService.BATCH_SIZE, inc.get("productCount"));
+    }
+
+    @Test
+    public void testFormat_FromContentType() {
+        assertEquals(ProductImportService.Format.CSV, ProductImportService.Format.fromContentType("text/csv; charset=UTF-8"));
+        assertEquals(ProductImportService.Format.NDJSON, ProductImportService.Format.fromContentType("application/x-ndjson"));
+        assertNull(ProductImportService.Format.fromContentType("application/json"));
+    }
+}
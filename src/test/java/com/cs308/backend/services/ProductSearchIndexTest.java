@@ -0,0 +1,102 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.util.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex searchIndex;
+
+    private static Product product(String id, String name, String info, double price) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setProductName(name);
+        p.setProductInfo(info);
+        p.setPrice(price);
+        return p;
+    }
+
+    private static List<String> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(h -> h.product().getProductId()).toList();
+    }
+
+    @BeforeEach
+    public void setup() {
+        searchIndex = new ProductSearchIndex();
+        searchIndex.onCatalogReload(List.of(
+                product("lamp", "Işık Lamba", "Masa için LED ışık", 120),
+                product("laptop", "Gaming Laptop", "16GB RAM, hızlı ekran kartı", 25000),
+                product("bag", "Laptop Çantası", "15 inç laptop ve tablet için", 400),
+                product("draft", "Laptop Stand", "Henüz fiyatlandırılmadı", 0)
+        ));
+    }
+
+    @Test
+    public void testSearch_ShortPrefixFindsTermsPastManyOthers() {
+        List<Product> catalog = new ArrayList<>();
+        // 100 "pha..." terms sort before "phone"
+        for (int i = 0; i < 100; i++) {
+            catalog.add(product("p" + i, "Pha" + (char) ('a' + i / 26) + (char) ('a' + i % 26), "", 10));
+        }
+        catalog.add(product("phone", "Phone", "", 10));
+        searchIndex.onCatalogReload(catalog);
+
+        List<String> result = ids(searchIndex.search("ph", null, 1000));
+        assertEquals(101, result.size());
+        assertTrue(result.contains("phone"));
+        assertEquals(List.of("phone"), ids(searchIndex.search("pho", null, 10)));
+    }
+
+    @Test
+    public void testSearch_FoldsTurkishCharacters() {
+        assertEquals(List.of("lamp"), ids(searchIndex.search("IŞIK", null, 10)));
+        assertEquals(List.of("lamp"), ids(searchIndex.search("isik", null, 10)));
+        assertEquals(List.of("bag"), ids(searchIndex.search("cantasi", null, 10)));
+    }
+
+    @Test
+    public void testSearch_RanksNameMatchesFirstAndSkipsUnpriced() {
+        List<String> result = ids(searchIndex.search("laptop", null, 10));
+
+        // "draft" has no price; "laptop" and "bag" both have it in the name, bag repeats it in the info
+        assertEquals(2, result.size());
+        assertFalse(result.contains("draft"));
+        assertTrue(result.containsAll(List.of("laptop", "bag")));
+    }
+
+    @Test
+    public void testSearch_RequiresEveryTermAndMatchesPrefixes() {
+        assertEquals(List.of("laptop"), ids(searchIndex.search("gam lap", null, 10)));
+        assertTrue(searchIndex.search("laptop lamba", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testSearch_PaginatesByScoreCursor() {
+        List<ProductSearchIndex.Hit> first = searchIndex.search("laptop", null, 1);
+        ProductSearchIndex.Hit last = first.get(0);
+
+        List<ProductSearchIndex.Hit> second = searchIndex.search(
+                "laptop", new PageCursor(last.score(), last.product().getProductId()), 1);
+
+        assertEquals(1, second.size());
+        assertNotEquals(last.product().getProductId(), second.get(0).product().getProductId());
+        assertTrue(second.get(0).score() <= last.score());
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        searchIndex.onProductUpdated(null, product("lamp", "Reading Lamp", "Desk light", 120));
+        assertTrue(searchIndex.search("ışık", null, 10).isEmpty());
+        assertEquals(List.of("lamp"), ids(searchIndex.search("reading", null, 10)));
+
+        searchIndex.onProductRemoved(product("lamp", "Reading Lamp", "Desk light", 120));
+        assertTrue(searchIndex.search("reading", null, 10).isEmpty());
+        assertEquals(3, searchIndex.size());
+    }
+}
@@ -2,20 +2,30 @@
 package com.cs308.backend.services;
 
 import com.cs308.backend.models.Category;
+import com.cs308.backend.models.PricePoint;
 import com.cs308.backend.models.Product;
+import com.cs308.backend.models.ProductPage;
+import com.cs308.backend.models.ProductSummary;
 import com.cs308.backend.repositories.CategoryRepository;
 import com.cs308.backend.repositories.ProductRepository;
+import com.cs308.backend.repositories.ReviewRepository;
+import com.cs308.backend.repositories.UserRepository;
+import com.cs308.backend.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class ProductServiceTest {
@@ -23,9 +33,27 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private SearchSuggestService searchSuggestService;
+
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PriceHistoryService priceHistory;
+
     @InjectMocks
     private ProductService productService;
 
@@ -39,7 +67,7 @@ public class ProductServiceTest {
         testCategory = new Category();
         testCategory.setCategoryId(UUID.randomUUID().toString());
         testCategory.setCategoryName("Electronics");
-        testCategory.setProductIds(new ArrayList<>());
+        testCategory.setProductCount(0);
 
         testProduct = new Product();
         testProduct.setProductId(UUID.randomUUID().toString());
@@ -59,7 +87,6 @@ public class ProductServiceTest {
         when(productRepository.findByProductNameIgnoreCase(testProduct.getProductName())).thenReturn(null);
         when(categoryRepository.findByCategoryNameIgnoreCase(testCategory.getCategoryName())).thenReturn(Optional.of(testCategory));
         when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(categoryRepository.save(any(Category.class))).thenReturn(testCategory);
 
         // Act
         ResponseEntity<String> response = productService.addProduct(
@@ -77,7 +104,8 @@ public class ProductServiceTest {
         assertEquals("Product added successfully!", response.getBody());
         assertEquals(200, response.getStatusCodeValue());
         verify(productRepository, times(1)).save(any(Product.class));
-        verify(categoryRepository, times(1)).save(any(Category.class));
+        verify(categoryRepository, times(1)).incrementProductCount(testCategory.getCategoryId(), 1);
+        verify(categoryRepository, never()).save(any(Category.class));
     }
 
     @Test
@@ -114,6 +142,7 @@ public class ProductServiceTest {
         assertEquals(149.99, result.getPrice());
         assertEquals(15, result.getStockCount());
         verify(productRepository, times(1)).save(testProduct);
+        verify(priceHistory).record(testProduct.getProductId(), 149.99, 149.99);
     }
 
     @Test
@@ -121,15 +150,164 @@ public class ProductServiceTest {
         // Arrange
         String query = "Test";
         List<Product> expectedProducts = Collections.singletonList(testProduct);
-        when(productRepository.findByProductNameContainingIgnoreCaseOrProductInfoContainingIgnoreCase(query, query))
-                .thenReturn(expectedProducts);
+        when(searchIndex.search(query, null, Integer.MAX_VALUE))
+                .thenReturn(List.of(new ProductSearchIndex.Hit(testProduct, 1.5)));
 
         // Act
         List<Product> result = productService.searchProducts(query);
 
         // Assert
         assertEquals(expectedProducts, result);
-        verify(productRepository, times(1))
-                .findByProductNameContainingIgnoreCaseOrProductInfoContainingIgnoreCase(query, query);
+        verify(catalogCache, times(1)).refreshIfStale();
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testGetProductsByCategoryPage_UsesKeysetCursor() {
+        // Arrange
+        Product second = new Product();
+        second.setProductId("z-last");
+        when(productRepository.findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(
+                testCategory.getCategoryId(), "", Limit.of(2)))
+                .thenReturn(List.of(testProduct, second));
+        when(productRepository.findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(
+                testCategory.getCategoryId(), "z-last", Limit.of(2)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        ProductPage<Product> first = productService.getProductsByCategoryPage(testCategory.getCategoryId(), false, null, 2);
+        ProductPage<Product> next = productService.getProductsByCategoryPage(testCategory.getCategoryId(), false, first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(2, first.getProducts().size());
+        assertNotNull(first.getNextCursor());
+        assertTrue(next.getProducts().isEmpty());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    public void testGetProductSummariesByCategoryPage_UsesProjection() {
+        // Arrange
+        ProductSummary summary = ProductSummary.from(testProduct);
+        when(productRepository.findByCategoryIdAndPriceGreaterThanAndProductIdGreaterThanOrderByProductIdAsc(
+                testCategory.getCategoryId(), 0, "", Limit.of(1), ProductSummary.class))
+                .thenReturn(List.of(summary));
+
+        // Act
+        ProductPage<ProductSummary> page = productService.getProductSummariesByCategoryPage(testCategory.getCategoryId(), true, null, 1);
+
+        // Assert
+        assertEquals(List.of(summary), page.getProducts());
+        assertEquals(testProduct.getProductId(), PageCursor.decode(page.getNextCursor()).id());
+    }
+
+    @Test
+    public void testGetNewProductsPage_OldestFirstAcrossUndatedAndDatedProducts() {
+        // Arrange: one product from before listedAt existed, then two dated ones
+        Product legacy = new Product();
+        legacy.setProductId("legacy");
+        Product older = new Product();
+        older.setProductId("b");
+        older.setListedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        Product newer = new Product();
+        newer.setProductId("a");
+        newer.setListedAt(LocalDateTime.of(2025, 1, 2, 10, 0));
+        when(productRepository.findByPriceAndListedAtIsNullAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+                0.0, "", Limit.of(2), Product.class))
+                .thenReturn(List.of(legacy));
+        when(productRepository.findByPriceAndListedAtGreaterThanOrderByListedAtAscProductIdAsc(
+                eq(0.0), any(LocalDateTime.class), eq(Limit.of(1)), eq(Product.class)))
+                .thenReturn(List.of(older));
+        when(productRepository.findByPriceAndListedAtAndProductIdGreaterThanOrderByListedAtAscProductIdAsc(
+                0.0, older.getListedAt(), "b", Limit.of(2), Product.class))
+                .thenReturn(Collections.emptyList());
+        when(productRepository.findByPriceAndListedAtGreaterThanOrderByListedAtAscProductIdAsc(
+                0.0, older.getListedAt(), Limit.of(2), Product.class))
+                .thenReturn(List.of(newer));
+
+        // Act
+        ProductPage<Product> first = productService.getNewProductsPage(null, 2);
+        ProductPage<Product> next = productService.getNewProductsPage(first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(legacy, older), first.getProducts());
+        assertEquals("b", PageCursor.decode(first.getNextCursor()).id());
+        assertEquals(List.of(newer), next.getProducts());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    public void testDeleteProductWithCleanup_CascadesServerSide() {
+        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+        when(productRepository.deleteByProductId(testProduct.getProductId())).thenReturn(1L);
+
+        productService.deleteProductWithCleanup(testProduct.getProductId());
+
+        verify(reviewRepository).deleteByProductId(testProduct.getProductId());
+        verify(userRepository).removeFromWishLists(testProduct.getProductId());
+        verify(categoryRepository).incrementProductCount(testCategory.getCategoryId(), -1);
+        verify(catalogCache).evict(testProduct.getProductId());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    public void testDeleteProductWithCleanup_RetryDoesNotDecrementTwice() {
+        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+        // removed concurrently (or by an earlier attempt) between the read and the delete
+        when(productRepository.deleteByProductId(testProduct.getProductId())).thenReturn(0L);
+
+        productService.deleteProductWithCleanup(testProduct.getProductId());
+
+        verify(categoryRepository, never()).incrementProductCount(anyString(), anyInt());
+    }
+
+    @Test
+    public void testDeleteProductWithCleanup_MissingProductStillClearsLeftovers() {
+        when(productRepository.findById("gone")).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> productService.deleteProductWithCleanup("gone"));
+
+        verify(reviewRepository).deleteByProductId("gone");
+        verify(userRepository).removeFromWishLists("gone");
+        verify(productRepository, never()).deleteByProductId(anyString());
+        verify(categoryRepository, never()).incrementProductCount(anyString(), anyInt());
+    }
+
+    @Test
+    public void testRemoveDiscount_RestoresListPriceAfterStackedDiscounts() {
+        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+        List<PricePoint> recorded = new ArrayList<>();
+        when(priceHistory.record(anyString(), anyDouble(), anyDouble())).thenAnswer(inv -> {
+            PricePoint point = new PricePoint(inv.getArgument(0), LocalDateTime.now(), inv.getArgument(1), inv.getArgument(2));
+            recorded.add(point);
+            return point;
+        });
+        when(priceHistory.latest(testProduct.getProductId()))
+                .thenAnswer(inv -> recorded.isEmpty() ? Optional.empty() : Optional.of(recorded.get(recorded.size() - 1)));
+
+        testProduct.setPrice(100.0);
+        productService.setDiscount(testProduct.getProductId(), 20);
+        productService.setDiscount(testProduct.getProductId(), 50);
+        assertEquals(40.0, testProduct.getPrice(), 1e-9);
+        assertEquals(100.0, recorded.get(1).getListPrice(), 1e-9);
+
+        Product restored = productService.removeDiscount(testProduct.getProductId());
+
+        assertEquals(100.0, restored.getPrice(), 1e-9);
+        assertFalse(recorded.get(2).isDiscounted());
+        assertThrows(IllegalStateException.class, () -> productService.removeDiscount(testProduct.getProductId()));
+    }
+
+    @Test
+    public void testRemoveDiscount_RefusesPriceChangedOutsideHistory() {
+        testProduct.setPrice(70.0);
+        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+        // e.g. repriced in bulk after the discount was recorded
+        when(priceHistory.latest(testProduct.getProductId()))
+                .thenReturn(Optional.of(new PricePoint(testProduct.getProductId(), LocalDateTime.now(), 80.0, 100.0)));
+
+        assertThrows(IllegalStateException.class, () -> productService.removeDiscount(testProduct.getProductId()));
+        verify(productRepository, never()).save(any(Product.class));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Product;
+import com.cs308.backend.util.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSortIndexTest {
+
+    private ProductSortIndex sortIndex;
+
+    private static Product product(String id, String categoryId, double price, double rating, Double productionCost) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setCategoryId(categoryId);
+        p.setPrice(price);
+        p.setRating(rating);
+        p.setProductionCost(productionCost);
+        return p;
+    }
+
+    private static List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getProductId).toList();
+    }
+
+    @BeforeEach
+    public void setup() {
+        sortIndex = new ProductSortIndex();
+        sortIndex.onCatalogReload(List.of(
+                product("a", "c1", 30, 4.0, null),
+                product("b", "c1", 10, 5.0, 9.0),
+                product("c", "c2", 20, 3.0, 1.0)
+        ));
+    }
+
+    @Test
+    public void testPage_SortsWholeCatalogAndCategories() {
+        assertEquals(List.of("b", "c", "a"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, false, null, 10)));
+        assertEquals(List.of("a", "c", "b"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, true, null, 10)));
+        assertEquals(List.of("b", "a"), ids(sortIndex.page(ProductSortIndex.SortKey.RATING, true, "c1", 10)));
+        assertEquals(List.of("b"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, false, null, 1)));
+        assertTrue(sortIndex.page(ProductSortIndex.SortKey.PRICE, false, "missing", 10).isEmpty());
+    }
+
+    @Test
+    public void testPage_ProfitMarginMatchesComparatorPath() {
+        // margins: a = 15 (default 50% cost), b = 1, c = 19
+        assertEquals(List.of("c", "a", "b"), ids(sortIndex.page(ProductSortIndex.SortKey.PROFIT_MARGIN, true, null, 10)));
+        // percentages: a = 1.0, b = 0.11, c = 19.0
+        assertEquals(List.of("c", "a", "b"), ids(sortIndex.page(ProductSortIndex.SortKey.PROFIT_MARGIN_PERCENTAGE, true, null, 10)));
+    }
+
+    @Test
+    public void testOnProductUpdated_RepositionsEntry() {
+        sortIndex.onProductUpdated(null, product("b", "c2", 50, 1.0, null));
+
+        assertEquals(List.of("c", "a", "b"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, false, null, 10)));
+        assertEquals(List.of("a"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, false, "c1", 10)));
+        assertEquals(List.of("c", "b"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, false, "c2", 10)));
+        assertEquals(3, sortIndex.size());
+    }
+
+    @Test
+    public void testOnProductRemoved_DropsEntryEverywhere() {
+        Product a = product("a", "c1", 30, 4.0, null);
+        sortIndex.onProductRemoved(a);
+
+        assertEquals(List.of("b", "c"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, false, null, 10)));
+        assertEquals(List.of("b"), ids(sortIndex.page(ProductSortIndex.SortKey.RATING, false, "c1", 10)));
+    }
+
+    @Test
+    public void testPage_ContinuesAfterCursor() {
+        // price desc: a(30), c(20), b(10)
+        List<Product> first = sortIndex.page(ProductSortIndex.SortKey.PRICE, true, null, null, 2);
+        assertEquals(List.of("a", "c"), ids(first));
+
+        PageCursor after = new PageCursor(20.0, "c");
+        assertEquals(List.of("b"), ids(sortIndex.page(ProductSortIndex.SortKey.PRICE, true, null, after, 2)));
+        assertEquals(List.of("b", "a"), ids(sortIndex.page(ProductSortIndex.SortKey.RATING, true, "c1", new PageCursor(9.0, "z"), 5)));
+    }
+}
@@ -0,0 +1,138 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Order;
+import com.cs308.backend.models.User;
+import com.cs308.backend.models.UserRecommendations;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RecommendationTaskTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations ops;
+
+    @Mock
+    private BulkOperations upserts;
+
+    private RecommendationTask task;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        task = new RecommendationTask(mongoTemplate);
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenAnswer(inv -> Stream.of(
+                order("u1", "Delivered", "phone", "case"),
+                order("u2", "Delivered", "phone", "case", "charger"),
+                order("u3", "Delivered", "phone"),
+                order("u3", "refunded", "laptop", "case")));
+        when(mongoTemplate.stream(any(Query.class), eq(User.class))).thenAnswer(inv -> Stream.of(
+                wisher("u4", "charger")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserRecommendations.class)).thenReturn(upserts);
+    }
+
+    @Test
+    public void testModel_RanksBySimilarityAndSkipsRefundedOrders() {
+        ItemSimilarityModel model = task.buildModel();
+
+        assertTrue(model.similarity("phone", "case") > model.similarity("phone", "charger"));
+        // the refunded order never paired laptop with anything, and u3 does not own case
+        assertEquals(0, model.similarity("laptop", "case"));
+        assertEquals(List.of("case", "charger"), model.recommend("u3", 10));
+        assertEquals(List.of("case"), model.recommend("u3", 1));
+        // already bought, so not recommended again
+        assertEquals(List.of("charger"), model.recommend("u1", 10));
+        assertEquals(List.of(), model.recommend("nobody", 10));
+    }
+
+    @Test
+    public void testModel_WishlistCountsLessThanPurchase() {
+        ItemSimilarityModel model = new ItemSimilarityModel.Builder()
+                .addPurchases("u1", List.of("a", "b"))
+                .addWishlist("u2", List.of("a", "c"))
+                .addPurchases("u3", List.of("a"))
+                .build();
+
+        assertTrue(model.similarity("a", "b") > model.similarity("a", "c"));
+        assertEquals(List.of("b", "c"), model.recommend("u3", 10));
+    }
+
+    @Test
+    public void testApply_UpsertsTopListPerUser() {
+        task.onStart(Map.of());
+
+        assertEquals(0, task.apply(List.of(user("u3"), user("u4"), user("u9")), Map.of(), ops));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(upserts, times(3)).upsert(queries.capture(), updates.capture());
+        verify(upserts).execute();
+        verifyNoInteractions(ops);
+
+        Map<String, Object> byUser = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            Document set = (Document) updates.getAllValues().get(i).getUpdateObject().get("$set");
+            byUser.put(queries.getAllValues().get(i).getQueryObject().getString("_id"), set.get("productIds"));
+        }
+        assertEquals(List.of("case", "charger"), byUser.get("u3"));
+        assertEquals(List.of("case", "phone"), byUser.get("u4"));
+        // users without history still get an (empty) list, replacing stale ones
+        assertEquals(List.of(), byUser.get("u9"));
+    }
+
+    @Test
+    public void testApply_ResumedJobBuildsModelOnFirstChunk() {
+        // no onStart: the job was resumed after a restart
+        task.apply(List.of(user("u3")), Map.of(), ops);
+        task.apply(List.of(user("u1")), Map.of(), ops);
+
+        verify(mongoTemplate, times(1)).stream(any(Query.class), eq(Order.class));
+        verify(upserts, times(2)).execute();
+
+        task.onComplete(Map.of());
+        task.apply(List.of(user("u1")), Map.of(), ops);
+        verify(mongoTemplate, times(2)).stream(any(Query.class), eq(Order.class));
+    }
+
+    private static Order order(String userId, String status, String... productIds) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setStatus(status);
+        order.setPaid(true);
+        order.setProductIds(new ArrayList<>(List.of(productIds)));
+        return order;
+    }
+
+    private static User wisher(String userId, String... productIds) {
+        User user = user(userId);
+        user.setWishList(new ArrayList<>(List.of(productIds)));
+        return user;
+    }
+
+    private static User user(String userId) {
+        User user = new User();
+        user.setUserId(userId);
+        return user;
+    }
+}
@@ -36,6 +36,8 @@ class RefundTest {
     @Mock private PaymentService paymentService;
     @Mock private OrderService orderService;
     @Mock private OrderHistoryService orderHistoryService;
+    @Mock private JobService jobService;
+    @Mock private RecommendationService recommendationService;
 
     @InjectMocks
     private OrderController orderController;
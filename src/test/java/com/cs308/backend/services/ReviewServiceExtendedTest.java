@@ -3,6 +3,12 @@ package com.cs308.backend.services;
 
 import com.cs308.backend.models.Product;
 import com.cs308.backend.models.Review;
+import com.cs308.backend.models.ReviewModeration;
+import com.cs308.backend.models.ReviewPage;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import com.cs308.backend.util.PageCursor;
 import com.cs308.backend.repositories.ProductRepository;
 import com.cs308.backend.repositories.ReviewRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,14 +16,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.server.ResponseStatusException;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class ReviewServiceExtendedTest {
@@ -28,6 +45,12 @@ public class ReviewServiceExtendedTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private ReviewService reviewService;
 
@@ -58,12 +81,33 @@ public class ReviewServiceExtendedTest {
     public void testDeclineReview_Successful() {
         testReview.setVerified(true);
         when(reviewRepository.findById(testReview.getReviewId())).thenReturn(Optional.of(testReview));
-        when(reviewRepository.save(any(Review.class))).thenReturn(testReview);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Review.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(new Product());
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
 
         Review result = reviewService.declineReview(testReview.getReviewId());
 
         assertFalse(result.isVerified());
-        verify(reviewRepository, times(1)).save(testReview);
+        assertTrue(result.isDeclined());
+        // a conditional update of the two flags instead of a full save
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Review.class));
+        verify(reviewRepository, never()).save(any(Review.class));
+        // the 3-star rating is taken back from the product
+        verify(mongoTemplate).findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class));
+    }
+
+    @Test
+    public void testDeclineReview_AlreadyDeclinedKeepsRating() {
+        when(reviewRepository.findById(testReview.getReviewId())).thenReturn(Optional.of(testReview));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Review.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        reviewService.declineReview(testReview.getReviewId());
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class));
     }
 
     @Test
@@ -80,23 +124,244 @@ public class ReviewServiceExtendedTest {
 
     @Test
     public void testPostReview_RecalculatesAverageRatingCorrectly() {
-        Review secondReview = new Review();
-        secondReview.setReviewId(UUID.randomUUID().toString());
-        secondReview.setUserId(UUID.randomUUID().toString());
-        secondReview.setProductId(testProduct.getProductId());
-        secondReview.setRating(5.0);
-        secondReview.setVerified(true);
+        // a 5-star review was already counted; the 3-star one brings the totals to 8 / 2
+        testProduct.setRatingSum(8.0);
+        testProduct.setRatingCount(2);
+        testProduct.setRatingHistogram(Map.of("3", 1, "5", 1));
 
         when(reviewRepository.save(any(Review.class))).thenReturn(testReview);
-        when(productRepository.findById(testReview.getProductId())).thenReturn(Optional.of(testProduct));
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(reviewRepository.findByProductId(testProduct.getProductId()))
-                .thenReturn(List.of(testReview, secondReview));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(testProduct);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
 
         Review result = reviewService.postReview(testReview);
 
         assertEquals(4.0, testProduct.getRating());
         assertEquals(testReview.getReviewId(), result.getReviewId());
-        verify(productRepository, atLeastOnce()).save(testProduct);
+        verify(catalogCache).put(testProduct);
+    }
+
+    @Test
+    public void testPostReview_ProductMissing() {
+        when(reviewRepository.save(any(Review.class))).thenReturn(testReview);
+
+        assertThrows(IllegalArgumentException.class, () -> reviewService.postReview(testReview));
+        verify(catalogCache, never()).put(any());
+    }
+
+    @Test
+    public void testPostReview_NewerReviewWritesTheAverage() {
+        testProduct.setRatingSum(3.0);
+        testProduct.setRatingCount(1);
+        when(reviewRepository.save(any(Review.class))).thenReturn(testReview);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(testProduct);
+        // the counters moved on before our average was written
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        reviewService.postReview(testReview);
+
+        verify(catalogCache, never()).put(any());
+    }
+
+    @Test
+    public void testDeleteReview_TakesRatingBackOnce() {
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Review.class))).thenReturn(testReview, (Review) null);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(testProduct);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        reviewService.deleteReview(testReview.getReviewId());
+        assertThrows(IllegalArgumentException.class, () -> reviewService.deleteReview(testReview.getReviewId()));
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class));
+        // no reviews left: the average drops back to 0
+        assertEquals(0.0, testProduct.getRating());
+    }
+
+    @Test
+    public void testGetRatingSummary_FillsEveryStarLevel() {
+        testProduct.setRating(4.5);
+        testProduct.setRatingCount(2);
+        testProduct.setRatingHistogram(Map.of("4", 1, "5", 1));
+        when(catalogCache.get(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
+
+        Map<String, Object> summary = reviewService.getRatingSummary(testProduct.getProductId()).orElseThrow();
+
+        assertEquals(4.5, summary.get("average"));
+        assertEquals(2, summary.get("count"));
+        assertEquals(Map.of("1", 0, "2", 0, "3", 0, "4", 1, "5", 1), summary.get("histogram"));
+        verifyNoInteractions(reviewRepository);
+    }
+
+    @Test
+    public void testPostReview_SetsFeedFields() {
+        when(reviewRepository.save(any(Review.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(testProduct);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        testReview.setHelpfulCount(7);
+
+        Review saved = reviewService.postReview(testReview);
+
+        assertTrue(saved.isHasComment());
+        assertEquals(0, saved.getHelpfulCount());
+        assertNotNull(saved.getCreatedAt());
+        assertEquals(0, saved.getCreatedAt().getNano() % 1_000_000);
+    }
+
+    @Test
+    public void testGetReviewFeed_FirstPageIsCachedUntilModeration() {
+        Review newer = feedReview("r2", LocalDateTime.of(2024, 5, 2, 10, 0));
+        Review older = feedReview("r1", LocalDateTime.of(2024, 5, 1, 10, 0));
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(List.of(newer, older));
+        String productId = testProduct.getProductId();
+
+        ReviewPage first = reviewService.getReviewFeed(productId, ReviewService.FeedOrder.NEWEST, null, 2);
+        ReviewPage again = reviewService.getReviewFeed(productId, ReviewService.FeedOrder.NEWEST, null, 2);
+
+        assertSame(first, again);
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Review.class));
+        // a full page hands out a cursor after its last review
+        PageCursor next = PageCursor.decode(first.getNextCursor());
+        assertEquals("r1", next.id());
+
+        when(reviewRepository.findById(testReview.getReviewId())).thenReturn(Optional.of(testReview));
+        when(reviewRepository.save(any(Review.class))).thenReturn(testReview);
+        reviewService.approveReview(testReview.getReviewId());
+
+        reviewService.getReviewFeed(productId, ReviewService.FeedOrder.NEWEST, null, 2);
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Review.class));
+    }
+
+    @Test
+    public void testGetReviewFeed_NextPageStartsAfterCursor() {
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(List.of(feedReview("r1", LocalDateTime.now())));
+        String cursor = new PageCursor(3.0, "r9").encode();
+
+        ReviewPage page = reviewService.getReviewFeed(testProduct.getProductId(), ReviewService.FeedOrder.HELPFUL, cursor, 20);
+
+        assertNull(page.getNextCursor());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Review.class));
+        assertEquals(20, query.getValue().getLimit());
+        assertTrue(query.getValue().getQueryObject().containsKey("$or"));
+        assertEquals(-1, query.getValue().getSortObject().get("helpfulCount"));
+        assertEquals(true, query.getValue().getQueryObject().get("hasComment"));
+    }
+
+    @Test
+    public void testGetReviewFeed_FillsInOlderReviewsUntilBackfilled() {
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(List.of());
+        String cursor = new PageCursor(3.0, "r9").encode();
+
+        reviewService.getReviewFeed(testProduct.getProductId(), ReviewService.FeedOrder.HELPFUL, cursor, 20);
+        ArgumentCaptor<Query> legacy = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(legacy.capture(), eq(ReviewFeedFieldsTask.FEED_FIELDS), eq(Review.class));
+        assertEquals(testProduct.getProductId(), legacy.getValue().getQueryObject().get("productId"));
+        assertEquals(new Document("$exists", false), legacy.getValue().getQueryObject().get("hasComment"));
+
+        reviewService.markFeedFieldsBackfilled();
+        reviewService.getReviewFeed(testProduct.getProductId(), ReviewService.FeedOrder.HELPFUL, cursor, 20);
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Review.class));
+    }
+
+    @Test
+    public void testFeedOrder_RejectsUnknownOrder() {
+        assertEquals(ReviewService.FeedOrder.NEWEST, ReviewService.FeedOrder.parse(null));
+        assertEquals(ReviewService.FeedOrder.HELPFUL, ReviewService.FeedOrder.parse("helpful"));
+        assertThrows(ResponseStatusException.class, () -> ReviewService.FeedOrder.parse("oldest"));
+    }
+
+    @Test
+    public void testModerate_OneBulkWriteAndOneRatingUpdatePerProduct() {
+        BulkOperations ops = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class)).thenReturn(ops);
+        when(ops.execute()).thenReturn(BulkWriteResult.acknowledged(0, 3, 0, 3, List.of(), List.of()));
+        Review approved = moderated("r1", "p1", 5.0, false);
+        Review declined1 = moderated("r2", "p1", 4.0, true);
+        Review declined2 = moderated("r3", "p1", 2.0, true);
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(List.of(approved, declined1, declined2));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(testProduct);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        ReviewModeration request = new ReviewModeration();
+        request.setApprove(List.of("r1"));
+        request.setDecline(List.of("r2", "r3", "gone"));
+        Map<String, Object> summary = reviewService.moderate(request);
+
+        assertEquals(1L, summary.get("approved"));
+        assertEquals(2L, summary.get("declined"));
+        assertEquals(1, summary.get("skipped"));
+        verify(ops, times(2)).updateMulti(any(Query.class), any(Update.class));
+        verify(ops, times(1)).execute();
+        verify(reviewRepository, never()).save(any(Review.class));
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Product.class));
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(-6.0, inc.get("ratingSum"));
+        assertEquals(-2, inc.get("ratingCount"));
+        assertEquals(-1, inc.get("ratingHistogram.4"));
+        assertEquals(-1, inc.get("ratingHistogram.2"));
+    }
+
+    @Test
+    public void testModerate_RejectsConflictingOrOversizedBatches() {
+        ReviewModeration both = new ReviewModeration();
+        both.setApprove(List.of("r1"));
+        both.setDecline(List.of("r1"));
+        assertThrows(IllegalArgumentException.class, () -> reviewService.moderate(both));
+
+        ReviewModeration tooMany = new ReviewModeration();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i <= ReviewService.MAX_MODERATION_BATCH; i++) {
+            ids.add("r" + i);
+        }
+        tooMany.setApprove(ids);
+        assertThrows(IllegalArgumentException.class, () -> reviewService.moderate(tooMany));
+
+        assertThrows(IllegalArgumentException.class, () -> reviewService.moderate(new ReviewModeration()));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void testGetPendingCommentsPage_KeysetById() {
+        Review pending = feedReview("r5", LocalDateTime.now());
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(List.of(pending));
+
+        ReviewPage page = reviewService.getPendingCommentsPage(new PageCursor(null, "r4").encode(), 1);
+
+        assertEquals("r5", PageCursor.decode(page.getNextCursor()).id());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Review.class));
+        assertEquals(new Document("$gt", "r4"), query.getValue().getQueryObject().get("_id"));
+        assertEquals(false, query.getValue().getQueryObject().get("declined"));
+    }
+
+    private static Review moderated(String id, String productId, double rating, boolean declined) {
+        Review review = new Review();
+        review.setReviewId(id);
+        review.setProductId(productId);
+        review.setRating(rating);
+        review.setDeclined(declined);
+        return review;
+    }
+
+    private Review feedReview(String id, LocalDateTime createdAt) {
+        Review review = new Review();
+        review.setReviewId(id);
+        review.setProductId(testProduct.getProductId());
+        review.setVerified(true);
+        review.setHasComment(true);
+        review.setComment("ok");
+        review.setCreatedAt(createdAt);
+        return review;
     }
 }
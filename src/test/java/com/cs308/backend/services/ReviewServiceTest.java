@@ -12,14 +12,23 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.mongodb.client.result.UpdateResult;
+import org.mockito.ArgumentCaptor;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class ReviewServiceTest {
@@ -30,12 +39,18 @@ public class ReviewServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCatalogCache catalogCache;
+
     @Mock
     private OrderRepository orderRepository;
 
     @Mock
     private CartRepository cartRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private ReviewService reviewService;
 
@@ -63,10 +78,17 @@ public class ReviewServiceTest {
     @Test
     public void testPostReview_Successful() {
         // Arrange
-        when(productRepository.findById(testReview.getProductId())).thenReturn(Optional.of(testProduct));
+        Product updated = new Product();
+        updated.setProductId(testProduct.getProductId());
+        updated.setReviewIds(new ArrayList<>(List.of(testReview.getReviewId())));
+        updated.setRatingSum(4.5);
+        updated.setRatingCount(1);
+        updated.setRatingHistogram(Map.of("5", 1));
         when(reviewRepository.save(any(Review.class))).thenReturn(testReview);
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(reviewRepository.findByProductId(testProduct.getProductId())).thenReturn(List.of(testReview));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(updated);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
 
         // Act
         Review result = reviewService.postReview(testReview);
@@ -74,8 +96,61 @@ public class ReviewServiceTest {
         // Assert
         assertFalse(result.isVerified()); // Should be unverified by default
         verify(reviewRepository, times(1)).save(testReview);
-        verify(productRepository, times(2)).save(testProduct); // Called twice due to rating calculation
-        assertTrue(testProduct.getReviewIds().contains(testReview.getReviewId()));
+        // one atomic update instead of re-reading every review of the product
+        verify(reviewRepository, never()).findByProductId(any());
+        verify(productRepository, never()).save(any(Product.class));
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Product.class));
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(4.5, inc.get("ratingSum"));
+        assertEquals(1, inc.get("ratingCount"));
+        assertEquals(1, inc.get("ratingHistogram.5"));
+        assertEquals(testReview.getReviewId(), ((Document) update.getValue().getUpdateObject().get("$push")).get("reviewIds"));
+
+        assertEquals(4.5, updated.getRating());
+        verify(catalogCache).put(updated);
+    }
+
+    @Test
+    public void testPostReview_SeedsCountersOfProductRatedBeforeThem() {
+        // 10 older reviews averaging 4.2, plus the new 1-star one already saved
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            reviews.add(rated(i < 2 ? 5.0 : i < 4 ? 3.0 : 4.333333333333333));
+        }
+        reviews.add(rated(1.0));
+        testReview.setRating(1.0);
+        Product seeded = new Product();
+        seeded.setProductId(testProduct.getProductId());
+        when(reviewRepository.save(any(Review.class))).thenReturn(testReview);
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(reviews);
+        // the $inc only matches products that have the counters
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenAnswer(inv -> ((Query) inv.getArgument(0)).getQueryObject().get("ratingCount", Document.class).get("$exists").equals(true)
+                        ? null : seeded);
+
+        reviewService.postReview(testReview);
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Product.class));
+        Document seed = update.getAllValues().get(1).getUpdateObject();
+        assertNull(seed.get("$inc"));
+        Document set = (Document) seed.get("$set");
+        assertEquals(11, set.get("ratingCount"));
+        assertEquals(43.0, (double) set.get("ratingSum"), 1e-9);
+        assertEquals(43.0 / 11, (double) set.get("rating"), 1e-9);
+        assertEquals(testReview.getReviewId(), ((Document) seed.get("$push")).get("reviewIds"));
+        // rating is part of the seed; no separate guarded write
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class));
+        verify(catalogCache).put(seeded);
+    }
+
+    private Review rated(double rating) {
+        Review review = new Review();
+        review.setProductId(testProduct.getProductId());
+        review.setRating(rating);
+        return review;
     }
 
     @Test
@@ -0,0 +1,88 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.Category;
+import com.cs308.backend.models.Product;
+import com.cs308.backend.repositories.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SearchSuggestServiceTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private SearchSuggestService searchSuggestService;
+
+    private static Product product(String id, String name, String categoryId, double price, double rating) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setProductName(name);
+        p.setCategoryId(categoryId);
+        p.setPrice(price);
+        p.setRating(rating);
+        return p;
+    }
+
+    private static Category category(String id, String name) {
+        Category c = new Category();
+        c.setCategoryId(id);
+        c.setCategoryName(name);
+        return c;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> field(Map<String, Object> response, String list, String field) {
+        return ((List<Map<String, Object>>) response.get(list)).stream()
+                .map(m -> (String) m.get(field))
+                .toList();
+    }
+
+    @BeforeEach
+    public void setup() {
+        when(categoryRepository.findAll()).thenReturn(List.of(
+                category("c1", "Laptops"), category("c2", "Lamps")));
+        searchSuggestService.onCatalogReload(List.of(
+                product("p1", "Gaming Laptop", "c1", 1000, 4.5),
+                product("p2", "Office Laptop", "c1", 800, 3.0),
+                product("p3", "Desk Lamp", "c2", 40, 5.0),
+                product("p4", "Unpriced Laptop", "c1", 0, 5.0)));
+    }
+
+    @Test
+    public void testSuggest_MatchesWordPrefixesAndSkipsUnpriced() {
+        Map<String, Object> response = searchSuggestService.suggest("LAP", 10);
+
+        assertEquals(List.of("p1", "p2"), field(response, "products", "productId"));
+        assertEquals(List.of("Laptops"), field(response, "categories", "categoryName"));
+        // categories ranked by product count: Laptops (2 priced + 1 unpriced) before Lamps (1)
+        assertEquals(List.of("Laptops", "Lamps"), field(searchSuggestService.suggest("la", 10), "categories", "categoryName"));
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void testProductAndCategoryUpdates_AreIncremental() {
+        searchSuggestService.suggest("", 10);
+
+        Product renamed = product("p1", "Gaming Mouse", "c1", 1000, 4.5);
+        searchSuggestService.onProductUpdated(product("p1", "Gaming Laptop", "c1", 1000, 4.5), renamed);
+        searchSuggestService.onProductRemoved(product("p2", "Office Laptop", "c1", 800, 3.0));
+        searchSuggestService.onCategorySaved(category("c3", "Mice"));
+        searchSuggestService.onCategoryRemoved("c2");
+
+        assertTrue(field(searchSuggestService.suggest("laptop", 10), "products", "productId").isEmpty());
+        assertEquals(List.of("p1"), field(searchSuggestService.suggest("mou", 10), "products", "productId"));
+        assertEquals(List.of("Mice"), field(searchSuggestService.suggest("mi", 10), "categories", "categoryName"));
+        assertTrue(field(searchSuggestService.suggest("lamps", 10), "categories", "categoryName").isEmpty());
+    }
+}
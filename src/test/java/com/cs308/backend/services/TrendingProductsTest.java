@@ -0,0 +1,196 @@
+package com.cs308.backend.services;
+
+import com.cs308.backend.models.TrendingCounter;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TrendingProductsTest {
+    private static final long HOUR = 3_600_000L;
+    // a bucket boundary in every window
+    private static final long T0 = 1_000 * 24 * HOUR;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations ops;
+
+    private TrendingProducts trending;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoTemplate.stream(any(Query.class), eq(TrendingCounter.class))).thenAnswer(inv -> Stream.empty());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingCounter.class)).thenReturn(ops);
+        trending = new TrendingProducts(mongoTemplate);
+    }
+
+    @Test
+    public void testTop_RanksPerWindowAndAgesOut() {
+        trending.record("old", 10, T0);
+        trending.record("new", 3, T0 + 2 * HOUR);
+        trending.record("new", 3, T0 + 2 * HOUR);
+        trending.record("tied", 6, T0 + 2 * HOUR);
+
+        long now = T0 + 2 * HOUR + 60_000;
+        assertEquals(List.of("new", "tied"), trending.top(TrendingProducts.Window.HOUR, 10, now));
+        assertEquals(List.of("old", "new", "tied"), trending.top(TrendingProducts.Window.DAY, 10, now));
+        assertEquals(List.of("old"), trending.top(TrendingProducts.Window.WEEK, 1, now));
+
+        long nextDay = T0 + 25 * HOUR;
+        assertEquals(List.of(), trending.top(TrendingProducts.Window.HOUR, 10, nextDay));
+        assertEquals(List.of("new", "tied"), trending.top(TrendingProducts.Window.DAY, 10, nextDay));
+        assertEquals(List.of("old", "new", "tied"), trending.top(TrendingProducts.Window.WEEK, 10, nextDay));
+    }
+
+    @Test
+    public void testTop_CachedForTtl() {
+        trending.record("a", 1, T0);
+        assertEquals(List.of("a"), trending.top(TrendingProducts.Window.HOUR, 10, T0));
+
+        trending.record("b", 5, T0);
+        assertEquals(List.of("a"), trending.top(TrendingProducts.Window.HOUR, 10, T0 + 1_000));
+        assertEquals(List.of("b", "a"), trending.top(TrendingProducts.Window.HOUR, 10, T0 + TrendingProducts.RANKING_TTL_MS));
+    }
+
+    @Test
+    public void testRecordPurchase_WeightsUnits() {
+        trending.recordPurchase(List.of("a", "b"), List.of(1, 2));
+        trending.recordCartAdd("c");
+        trending.recordCartAdd("c");
+
+        assertEquals(List.of("b", "a", "c"), trending.top(TrendingProducts.Window.HOUR, 10));
+    }
+
+    @Test
+    public void testConcurrentRecords_AreAllCounted() throws Exception {
+        // the first event claims the bucket; after that adds never race with a reset
+        trending.record("hot", 1, T0 + 1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    trending.record("hot", 1, T0 + 1);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        trending.record("warm", 80_000, T0 + 1);
+
+        assertEquals(List.of("hot", "warm"), trending.top(TrendingProducts.Window.DAY, 10, T0 + 2));
+    }
+
+    @Test
+    public void testCheckpoint_WritesChangedAndRestoresAfterRestart() {
+        trending.record("a", 4, T0);
+        trending.record("b", 1, T0 - 8 * 24 * HOUR);
+
+        assertEquals(2, trending.checkpoint(T0 + 1));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(ops).upsert(any(Query.class), update.capture());
+        // b aged out of every window: dropped from memory and Mongo
+        verify(ops).remove(any(Query.class));
+        verify(ops).execute();
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Long>> buckets = (Map<String, Map<String, Long>>)
+                ((Document) update.getValue().getUpdateObject().get("$set")).get("buckets");
+        assertEquals(Map.of(Long.toString(T0 / 60_000), 4L), buckets.get("1h"));
+
+        // nothing changed since: nothing to write
+        assertEquals(0, trending.checkpoint(T0 + 2));
+
+        TrendingProducts restarted = new TrendingProducts(mongoTemplate);
+        when(mongoTemplate.stream(any(Query.class), eq(TrendingCounter.class)))
+                .thenAnswer(inv -> Stream.of(new TrendingCounter("a:old", "a", "old", buckets, null)));
+        restarted.record("c", 2, T0 + 3);
+        // restored counts merge with what was counted before the restore
+        assertEquals(List.of("a", "c"), restarted.top(TrendingProducts.Window.DAY, 10, T0 + 3));
+    }
+
+    @Test
+    public void testCheckpoint_NodesSharingCollectionKeepEachOthersCounts() {
+        Map<String, TrendingCounter> collection = new HashMap<>();
+        doAnswer(inv -> {
+            Query query = inv.getArgument(0);
+            Document set = (Document) ((Update) inv.getArgument(1)).getUpdateObject().get("$set");
+            String id = (String) query.getQueryObject().get("_id");
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Long>> buckets = (Map<String, Map<String, Long>>) set.get("buckets");
+            collection.put(id, new TrendingCounter(id, set.getString("productId"), set.getString("nodeId"), buckets, null));
+            return ops;
+        }).when(ops).upsert(any(Query.class), any(Update.class));
+        doAnswer(inv -> {
+            collection.remove((String) ((Query) inv.getArgument(0)).getQueryObject().get("_id"));
+            return ops;
+        }).when(ops).remove(any(Query.class));
+
+        TrendingProducts first = new TrendingProducts(mongoTemplate);
+        TrendingProducts second = new TrendingProducts(mongoTemplate);
+        first.record("a", 4, T0);
+        second.record("a", 3, T0);
+        second.record("b", 5, T0);
+        second.record("gone", 1, T0 - 8 * 24 * HOUR);
+        assertEquals(1, first.checkpoint(T0 + 1));
+        assertEquals(3, second.checkpoint(T0 + 1));
+        // the second node's checkpoint and cleanup leave the first node's document alone
+        assertEquals(3, collection.size());
+
+        when(mongoTemplate.stream(any(Query.class), eq(TrendingCounter.class)))
+                .thenAnswer(inv -> List.copyOf(collection.values()).stream());
+        TrendingProducts restarted = new TrendingProducts(mongoTemplate);
+        assertEquals(List.of("a", "b"), restarted.top(TrendingProducts.Window.DAY, 10, T0 + 2));
+
+        // restored counts rank, but only the restarted node's own count is written back: b is 6, not 11
+        restarted.record("b", 1, T0 + 2);
+        assertEquals(1, restarted.checkpoint(T0 + 3));
+        assertEquals(4, collection.size());
+        when(mongoTemplate.stream(any(Query.class), eq(TrendingCounter.class)))
+                .thenAnswer(inv -> List.copyOf(collection.values()).stream());
+        TrendingProducts again = new TrendingProducts(mongoTemplate);
+        assertEquals(List.of("a", "b"), again.top(TrendingProducts.Window.DAY, 10, T0 + 4));
+    }
+
+    @Test
+    public void testCheckpoint_SkippedWhileCheckpointUnreadable() {
+        when(mongoTemplate.stream(any(Query.class), eq(TrendingCounter.class))).thenThrow(new IllegalStateException("down"));
+        trending.record("a", 1, T0);
+
+        assertEquals(0, trending.checkpoint(T0));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(TrendingCounter.class));
+        // rankings still work from memory
+        assertEquals(List.of("a"), trending.top(TrendingProducts.Window.HOUR, 10, T0));
+    }
+
+    @Test
+    public void testWindowParse() {
+        assertEquals(TrendingProducts.Window.DAY, TrendingProducts.Window.parse(null));
+        assertEquals(TrendingProducts.Window.HOUR, TrendingProducts.Window.parse("1h"));
+        assertEquals(TrendingProducts.Window.WEEK, TrendingProducts.Window.parse("7D"));
+        assertEquals(TrendingProducts.Window.WEEK, TrendingProducts.Window.parse("week"));
+        assertThrows(ResponseStatusException.class, () -> TrendingProducts.Window.parse("1y"));
+    }
+}
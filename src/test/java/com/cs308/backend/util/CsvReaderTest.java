@@ -0,0 +1,29 @@
+package com.cs308.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTest {
+
+    @Test
+    public void testReadRecord_HandlesQuotesAndLineEndings() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "a,b,c\r\n\"x, y\",\"say \"\"hi\"\"\",\n\n\"multi\nline\",2,3"));
+
+        assertEquals(List.of("a", "b", "c"), reader.readRecord());
+        assertEquals(List.of("x, y", "say \"hi\"", ""), reader.readRecord());
+        assertEquals(List.of("multi\nline", "2", "3"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void testReadRecord_UnterminatedQuoteFails() {
+        CsvReader reader = new CsvReader(new StringReader("\"open,1"));
+        assertThrows(IOException.class, reader::readRecord);
+    }
+}
@@ -0,0 +1,98 @@
+package com.cs308.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedTimerWheelTest {
+
+    @Test
+    public void testAdvance_FiresInDeadlineOrderAcrossRounds() {
+        HashedTimerWheel wheel = new HashedTimerWheel(1_000, 8, 0);
+        List<String> fired = new ArrayList<>();
+        // 8 slots of a second: 20s is two and a half turns away
+        wheel.schedule(20_000, () -> fired.add("20s"));
+        wheel.schedule(3_500, () -> fired.add("3.5s"));
+        wheel.schedule(4_000, () -> fired.add("4s"));
+
+        assertEquals(0, wheel.advance(2_999));
+        assertEquals(2, wheel.advance(4_000));
+        assertEquals(List.of("3.5s", "4s"), fired);
+        // same slot as 20s, one turn early
+        assertEquals(0, wheel.advance(12_000));
+        assertEquals(1, wheel.advance(20_000));
+        assertEquals(List.of("3.5s", "4s", "20s"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testSchedule_PastDeadlineFiresOnNextAdvance() {
+        HashedTimerWheel wheel = new HashedTimerWheel(1_000, 8, 10_000);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(1_000, () -> fired.add("late"));
+
+        assertEquals(1, wheel.advance(10_000));
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    public void testCancel_TimerNeverFires() {
+        HashedTimerWheel wheel = new HashedTimerWheel(1_000, 8, 0);
+        List<String> fired = new ArrayList<>();
+        HashedTimerWheel.Timeout timeout = wheel.schedule(2_000, () -> fired.add("cancelled"));
+        wheel.advance(1_000);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.advance(10_000));
+        assertTrue(fired.isEmpty());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    public void testAdvance_FailingTaskDoesNotStopOthers() {
+        HashedTimerWheel wheel = new HashedTimerWheel(1_000, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(1_000, () -> {
+            throw new IllegalStateException("boom");
+        });
+        HashedTimerWheel.Timeout ok = wheel.schedule(1_000, () -> fired.add("ok"));
+
+        assertEquals(2, wheel.advance(1_000));
+        assertEquals(List.of("ok"), fired);
+        assertTrue(ok.isExpired());
+        assertFalse(ok.cancel());
+    }
+
+    @Test
+    public void testTaskMayScheduleAnotherTimer() {
+        HashedTimerWheel wheel = new HashedTimerWheel(1_000, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(1_000, () -> wheel.schedule(3_000, () -> fired.add("retry")));
+
+        wheel.advance(1_000);
+        assertEquals(1, wheel.size());
+        wheel.advance(3_000);
+        assertEquals(List.of("retry"), fired);
+    }
+
+    @Test
+    public void testManyTimers_EachFiresOnce() {
+        HashedTimerWheel wheel = new HashedTimerWheel(1_000, 512, 0);
+        int[] counts = new int[5_000];
+        for (int i = 0; i < counts.length; i++) {
+            int id = i;
+            wheel.schedule(i * 700L, () -> counts[id]++);
+        }
+        assertEquals(counts.length, wheel.size());
+
+        assertEquals(counts.length, wheel.advance(counts.length * 700L));
+        for (int count : counts) {
+            assertEquals(1, count);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.cs308.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntCountMapTest {
+
+    @Test
+    public void testAdd_AccumulatesAndGrows() {
+        IntCountMap map = new IntCountMap();
+        for (int key = 0; key < 1000; key++) {
+            map.add(key, key);
+        }
+        assertEquals(1000, map.size());
+        assertEquals(7 + 3, map.add(7, 3));
+        assertEquals(999, map.get(999));
+        assertEquals(0, map.get(1000));
+        assertEquals(0, map.get(-1));
+    }
+
+    @Test
+    public void testForEach_VisitsEveryEntryOnce() {
+        IntCountMap map = new IntCountMap(2);
+        map.add(3, 1);
+        map.add(1 << 20, 2);
+        map.add(3, 1);
+
+        Map<Integer, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+
+        assertEquals(Map.of(3, 2, 1 << 20, 2), seen);
+    }
+
+    @Test
+    public void testAdd_RejectsNegativeKeys() {
+        assertThrows(IllegalArgumentException.class, () -> new IntCountMap().add(-1, 1));
+    }
+}
@@ -0,0 +1,34 @@
+package com.cs308.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+
+    @Test
+    public void testEncodeDecode_RoundTrips() {
+        PageCursor sorted = new PageCursor(19.99, "abc-123");
+        assertEquals(sorted, PageCursor.decode(sorted.encode()));
+
+        PageCursor idOnly = new PageCursor(null, "abc-123");
+        assertEquals(idOnly, PageCursor.decode(idOnly.encode()));
+
+        PageCursor max = new PageCursor(Double.MAX_VALUE, "x");
+        assertEquals(max, PageCursor.decode(max.encode()));
+    }
+
+    @Test
+    public void testDecode_BlankMeansFirstPage() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    public void testDecode_RejectsGarbage() {
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode("not a cursor!"));
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode(
+                java.util.Base64.getUrlEncoder().encodeToString("abc|".getBytes())));
+    }
+}
@@ -0,0 +1,40 @@
+package com.cs308.backend.util;
+
+import com.cs308.backend.models.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductFieldsTest {
+
+    @Test
+    public void testParse_SummaryListAndUnknownFields() {
+        assertNull(ProductFields.parse(null));
+        assertNull(ProductFields.parse(" "));
+        assertEquals(List.of("productId", "productName", "price", "rating", "stockCount", "categoryId", "listedAt"),
+                ProductFields.parse("summary"));
+        assertEquals(List.of("price", "productId"), ProductFields.parse("price, productId,price"));
+        assertThrows(ResponseStatusException.class, () -> ProductFields.parse("price,password"));
+
+        assertTrue(ProductFields.coveredBySummary(List.of("price", "productId")));
+        assertFalse(ProductFields.coveredBySummary(List.of("price", "distributorInfo")));
+    }
+
+    @Test
+    public void testSelect_KeepsOnlyRequestedFieldsInOrder() {
+        Product product = new Product();
+        product.setProductId("p1");
+        product.setPrice(12.5);
+        product.setDistributorInfo("secret");
+
+        List<Map<String, Object>> rows = ProductFields.select(List.of(product), List.of("price", "productId"));
+
+        assertEquals(1, rows.size());
+        assertEquals(List.of("price", "productId"), List.copyOf(rows.get(0).keySet()));
+        assertEquals(12.5, rows.get(0).get("price"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.cs308.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuggestionTrieTest {
+
+    private static List<String> ids(List<SuggestionTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionTrie.Suggestion::id).toList();
+    }
+
+    @Test
+    public void testSuggest_RanksByScoreAndDeduplicatesKeys() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        trie.put(new SuggestionTrie.Suggestion("1", "Gaming Laptop", 4.0), List.of("gaming laptop", "laptop"));
+        trie.put(new SuggestionTrie.Suggestion("2", "Laptop Bag", 2.0), List.of("laptop bag", "bag"));
+        trie.put(new SuggestionTrie.Suggestion("3", "Lamp", 5.0), List.of("lamp"));
+
+        assertEquals(List.of("3", "1"), ids(trie.suggest("la", 10)));
+        assertEquals(List.of("1", "2"), ids(trie.suggest("lap", 10)));
+        assertEquals(List.of("1"), ids(trie.suggest("lap", 1)));
+        assertEquals(List.of("1"), ids(trie.suggest("gam", 10)));
+        assertTrue(trie.suggest("x", 10).isEmpty());
+    }
+
+    @Test
+    public void testPutAndRemove_KeepCachedListsCurrent() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        trie.put(new SuggestionTrie.Suggestion("1", "Laptop", 4.0), List.of("laptop"));
+        trie.put(new SuggestionTrie.Suggestion("2", "Lamp", 3.0), List.of("lamp"));
+        trie.put(new SuggestionTrie.Suggestion("3", "Lantern", 1.0), List.of("lantern"));
+
+        // "3" was pushed out of the top 2 at "la" and has to come back after a removal
+        trie.remove("1");
+        assertEquals(List.of("2", "3"), ids(trie.suggest("la", 10)));
+        assertTrue(trie.suggest("lap", 10).isEmpty());
+
+        // renaming replaces the old keys
+        trie.put(new SuggestionTrie.Suggestion("2", "Desk", 3.0), List.of("desk"));
+        assertEquals(List.of("3"), ids(trie.suggest("la", 10)));
+        assertEquals(List.of("2"), ids(trie.suggest("d", 10)));
+        assertEquals(2, trie.size());
+
+        trie.clear();
+        assertTrue(trie.suggest("", 10).isEmpty());
+        assertEquals(0, trie.size());
+    }
+}